@@ -0,0 +1,58 @@
+package com.siemens.internship.jmh;
+
+import com.siemens.internship.InternshipApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+/**
+ * The real application (without the web server) on its own in-memory H2 database, seeded with {@code rows} items
+ * with ids 1..rows. Started once per benchmark trial.
+ */
+final class BenchmarkContext implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final JdbcTemplate jdbcTemplate;
+
+    private BenchmarkContext(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    static BenchmarkContext start(int rows) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:jmh-" + UUID.randomUUID(),
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        BenchmarkContext benchmarkContext = new BenchmarkContext(context);
+        benchmarkContext.seed(rows);
+        return benchmarkContext;
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    void resetStatuses() {
+        jdbcTemplate.update("UPDATE item SET status = 'NEW'");
+    }
+
+    private void seed(int rows) {
+        jdbcTemplate.update("INSERT INTO item (id, name, description, status, email, version) "
+                + "SELECT x, 'Item ' || x, 'Description ' || x, 'NEW', 'item' || x || '@test.com', 0 "
+                + "FROM SYSTEM_RANGE(1, ?)", rows);
+        // ids created through JPA during the benchmark must not collide with the seeded ones
+        jdbcTemplate.execute("ALTER SEQUENCE item_seq RESTART WITH " + (rows + 1_000));
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,75 @@
+package com.siemens.internship.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemRequest;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * What {@code POST /api/items} does with a body before the item is saved: read it, validate it, map it to the
+ * entity. {@code entityWithBeanValidation} is the old path (entity as DTO, {@code @Valid} into a BindingResult),
+ * {@code requestRecord} the ItemRequest one. Run with the GC profiler to see the bytes allocated per request:
+ * {@code mvn verify -Pjmh -Djmh.args="-prof gc ItemCreateRequest"} (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ItemCreateRequestBenchmark {
+
+    @Param({"valid", "invalid"})
+    private String body;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final SpringValidatorAdapter validator =
+            new SpringValidatorAdapter(Validation.buildDefaultValidatorFactory().getValidator());
+    private ObjectReader itemReader;
+    private ObjectReader requestReader;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        itemReader = objectMapper.readerFor(Item.class);
+        requestReader = objectMapper.readerFor(ItemRequest.class);
+        String email = body.equals("valid") ? "item1@test.com" : "not an email";
+        json = ("{\"name\":\"Item 1\",\"description\":\"Description 1\",\"status\":\"NEW\",\"email\":\"" + email + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object entityWithBeanValidation() throws IOException {
+        Item item = itemReader.readValue(json);
+        BindingResult result = new BeanPropertyBindingResult(item, "item");
+        validator.validate(item, result);
+        if (result.hasErrors()) {
+            return result.getFieldErrors().stream()
+                    .map(error -> error.getField() + " Error")
+                    .collect(Collectors.toList());
+        }
+        return item;
+    }
+
+    @Benchmark
+    public Object requestRecord() throws IOException {
+        ItemRequest request = requestReader.readValue(json);
+        List<String> errors = request.errors();
+        if (!errors.isEmpty()) {
+            return errors;
+        }
+        return request.toItem();
+    }
+}
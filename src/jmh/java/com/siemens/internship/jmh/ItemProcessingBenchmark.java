@@ -0,0 +1,46 @@
+package com.siemens.internship.jmh;
+
+import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ProcessingSummary;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full {@link ItemService#processItemsAsync()} run per measurement, statuses are reset before each one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ItemProcessingBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    private BenchmarkContext context;
+    private ItemService itemService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows);
+        itemService = context.bean(ItemService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStatuses() {
+        context.resetStatuses();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProcessingSummary processItemsAsync() {
+        return itemService.processItemsAsync().join();
+    }
+}
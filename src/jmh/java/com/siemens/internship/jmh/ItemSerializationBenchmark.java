@@ -0,0 +1,50 @@
+package com.siemens.internship.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * JSON serialization of item lists with the same ObjectMapper configuration Spring MVC uses.
+ * {@code writeValueAsBytes} materializes the whole document like a buffered response,
+ * {@code writeToStream} writes straight to a sink like the streaming list endpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ItemSerializationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private List<Item> items;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        items = LongStream.rangeClosed(1, size)
+                .mapToObj(i -> new Item(i, "Item " + i, "Description " + i, ItemStatus.NEW, "item" + i + "@test.com"))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(items);
+    }
+
+    @Benchmark
+    public void writeToStream() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), items);
+    }
+}
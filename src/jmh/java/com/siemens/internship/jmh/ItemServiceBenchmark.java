@@ -0,0 +1,63 @@
+package com.siemens.internship.jmh;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single item operations of {@link ItemService} against the embedded H2 at different table sizes.
+ * {@code findById} goes through the item cache, {@code repositoryFindById} is the uncached database read.
+ * {@code save} inserts, so the table grows by the number of save invocations during a trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ItemServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    private BenchmarkContext context;
+    private ItemService itemService;
+    private ItemRepository itemRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows);
+        itemService = context.bean(ItemService.class);
+        itemRepository = context.bean(ItemRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Item> findById() {
+        return itemService.findById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Item> repositoryFindById() {
+        return itemRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public Item save() {
+        return itemService.save(new Item(null, "Benchmark", "Saved by JMH", ItemStatus.NEW, "jmh@test.com"));
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+}
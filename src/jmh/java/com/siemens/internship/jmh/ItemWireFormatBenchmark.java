@@ -0,0 +1,65 @@
+package com.siemens.internship.jmh;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.siemens.internship.controller.ItemWireFormats;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding 100k items the way the list endpoint does ({@link ItemWireFormats}): per format, with all fields or
+ * {@code id,status}, and with the gzip a compressing server adds on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ItemWireFormatBenchmark {
+
+    @Param({"application/json", "application/cbor", "application/x-jackson-smile"})
+    private String format;
+
+    @Param({"", "id,status"})
+    private String fields;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private final ItemWireFormats wireFormats = new ItemWireFormats(Jackson2ObjectMapperBuilder.json().build());
+    private List<Item> items;
+    private MediaType mediaType;
+    private ObjectWriter writer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        items = LongStream.rangeClosed(1, 100_000)
+                .mapToObj(i -> new Item(i, "Item " + i, "Description " + i, ItemStatus.NEW, "item" + i + "@test.com", 0L))
+                .toList();
+        mediaType = MediaType.valueOf(format);
+        writer = wireFormats.writer(fields);
+    }
+
+    @Benchmark
+    public void writeList() throws IOException {
+        OutputStream out = gzip ? new GZIPOutputStream(OutputStream.nullOutputStream(), 8192) : OutputStream.nullOutputStream();
+        try (JsonGenerator generator = wireFormats.createGenerator(mediaType, out)) {
+            generator.writeStartArray();
+            for (Item item : items) {
+                writer.writeValue(generator, item);
+            }
+            generator.writeEndArray();
+        }
+    }
+}
@@ -1,15 +1,26 @@
 package com.siemens.internship;
 
+import com.siemens.internship.service.VirtualThreadTaskExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
 
 @SpringBootApplication
 @EnableAsync //needed for @Async
+@EnableScheduling //incremental item processing
 public class InternshipApplication {
 
 	public static void main(String[] args) {
@@ -17,16 +28,46 @@ public class InternshipApplication {
 		SpringApplication.run(InternshipApplication.class, args);
 	}
 
-	//Bean for ThreadPoolTaskExecutor
+	//rejections of the itemTaskExecutor, the pool itself doesn't track them
+	private final LongAdder itemTaskRejections = new LongAdder();
+
+	//Bean for ThreadPoolTaskExecutor (default, spring.threads.virtual.enabled=false)
+	//Active threads, pool and queue size are published by Boot as executor.*{name=itemTaskExecutor}
 	@Bean(name = "itemTaskExecutor")
+	@ConditionalOnThreading(Threading.PLATFORM)
 	public Executor itemTaskExecutor() {
+		RejectedExecutionHandler abort = new ThreadPoolExecutor.AbortPolicy();
+
 		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 		executor.setCorePoolSize(5);
 		executor.setMaxPoolSize(10);
 		executor.setQueueCapacity(20);
 		executor.setThreadNamePrefix("ItemThread-");
+		executor.setRejectedExecutionHandler((task, pool) -> {
+			itemTaskRejections.increment();
+			abort.rejectedExecution(task, pool);
+		});
 		executor.initialize();
 		return executor;
 	}
 
+	@Bean
+	public MeterBinder itemTaskExecutorRejections() {
+		return registry -> FunctionCounter.builder("executor.rejected", itemTaskRejections, LongAdder::sum)
+				.description("Tasks rejected because the pool and its queue were full")
+				.tag("name", "itemTaskExecutor")
+				.register(registry);
+	}
+
+	//Virtual thread mode (spring.threads.virtual.enabled=true, this also moves Tomcat to virtual threads).
+	//Item tasks block on JDBC, so there is no point in running more of them than there are connections:
+	//at most poolSize tasks run at once, extra tasks wait for a permit. Processing jobs are started without
+	//waiting (tryExecute), a job beyond the limit is rejected like with the bounded queue above (503 for
+	//POST /process), so neither a request thread nor the scheduler resuming runs is parked.
+	@Bean(name = "itemTaskExecutor")
+	@ConditionalOnThreading(Threading.VIRTUAL)
+	public Executor virtualItemTaskExecutor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+		return new VirtualThreadTaskExecutor("ItemVirtualThread-", poolSize, itemTaskRejections);
+	}
+
 }
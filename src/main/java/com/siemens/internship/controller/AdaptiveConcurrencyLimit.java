@@ -0,0 +1,84 @@
+package com.siemens.internship.controller;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Concurrency limit that follows the observed latency (AIMD): every request that finishes within the target while
+ * the limit was actually used adds {@code 1/limit} (about +1 per round of requests), a slower one multiplies the
+ * limit by {@value #BACKOFF}. Requests beyond the limit are not queued, {@link #tryAcquire} just fails.
+ * <p>
+ * One overload shows up as a whole window of slow requests, all of which ran under the old limit. So there is at
+ * most one decrease per window: only a slow request that started after the last decrease counts, the others are
+ * the same congestion seen again (as TCP halves its window once per round trip, not once per lost packet).
+ * <p>
+ * In-flight count, limit and the time of the last decrease are atomics, nothing here blocks.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    static final double BACKOFF = 0.9;
+
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limitBits; // double
+    private final AtomicLong lastDecrease; // System.nanoTime()
+
+    AdaptiveConcurrencyLimit(int initialLimit, int maxLimit, long latencyTargetNanos, long now) {
+        if (initialLimit < 1 || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("need 1 <= concurrency <= max-concurrency, were " + initialLimit + " and " + maxLimit);
+        }
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+        this.lastDecrease = new AtomicLong(now);
+    }
+
+    /**
+     * @return the number of requests in flight including this one, 0 if the limit is reached
+     */
+    int tryAcquire() {
+        int limit = limit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * @param inFlightAtStart what {@link #tryAcquire} returned for this request
+     * @param start           {@link System#nanoTime()} when the request was admitted
+     * @param now             {@link System#nanoTime()} when it finished
+     */
+    void release(int inFlightAtStart, long start, long now) {
+        inFlight.decrementAndGet();
+        if (now - start > latencyTargetNanos) {
+            long last = lastDecrease.get();
+            // the loser of a race between two slow requests of the same window doesn't decrease again
+            if (start - last > 0 && lastDecrease.compareAndSet(last, now)) {
+                update(limit -> Math.max(1, limit * BACKOFF));
+            }
+        } else if (inFlightAtStart * 2 >= limit()) {
+            // an idle limit would grow forever without ever being tested
+            update(limit -> Math.min(maxLimit, limit + 1 / limit));
+        }
+    }
+
+    int limit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void update(DoubleUnaryOperator change) {
+        limitBits.updateAndGet(bits -> Double.doubleToLongBits(change.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+}
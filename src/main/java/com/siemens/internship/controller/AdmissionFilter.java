@@ -0,0 +1,203 @@
+package com.siemens.internship.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of {@code /api/items}: a request is only let through if
+ * <ol>
+ *     <li>its client still has a token (429 otherwise),</li>
+ *     <li>its endpoint still has a token (429 otherwise),</li>
+ *     <li>and its endpoint is below its adaptive concurrency limit (503 otherwise).</li>
+ * </ol>
+ * Rejections are immediate and carry {@code Retry-After}, nothing is queued: a burst of expensive list or bulk
+ * requests is cut off at their own limits, before they hold Tomcat threads and database connections that the cheap
+ * {@code GET /api/items/{id}} calls need. Each endpoint class has its own buckets and limit. A request rejected by
+ * its endpoint gets its client token back (and its endpoint token, if it was the concurrency limit), so a client
+ * is only charged for requests that went through.
+ * <p>
+ * Clients are told apart by remote address, by a header only if {@code item.admission.client-header} is set
+ * (behind a trusted proxy that sets it).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final String ITEMS = "/api/items";
+
+    public enum Endpoint {
+        // GET /api/items/{id}, search and the processing job status
+        READ,
+        // GET /api/items without limit or status: the streamed list of the whole table
+        LIST,
+        // GET /api/items?limit=..., ?status=...: one keyset page, bounded by the page size
+        PAGE,
+        // POST, PUT, PATCH, DELETE of a single item
+        WRITE,
+        BULK,
+        // POST /api/items/process, starts a processing run
+        PROCESS
+    }
+
+    private enum Rejection {CLIENT_RATE, ENDPOINT_RATE, CONCURRENCY}
+
+    private final AdmissionProperties properties;
+    private final Cache<String, TokenBucket> clientBuckets;
+    private final Map<Endpoint, TokenBucket> endpointBuckets = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, AdaptiveConcurrencyLimit> limits = new EnumMap<>(Endpoint.class);
+    private volatile Map<Endpoint, Map<Rejection, Counter>> rejections = Map.of(); // set once bound to a registry
+
+    public AdmissionFilter(AdmissionProperties properties) {
+        this.properties = properties;
+        this.clientBuckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getClientIdleTimeout())
+                .build();
+        long now = System.nanoTime();
+        for (Endpoint endpoint : Endpoint.values()) {
+            AdmissionProperties.Endpoint limit = properties.getEndpoints()
+                    .getOrDefault(endpoint, new AdmissionProperties.Endpoint());
+            endpointBuckets.put(endpoint, new TokenBucket(limit.getRate(), limit.getBurst(), now));
+            limits.put(endpoint, new AdaptiveConcurrencyLimit(limit.getConcurrency(), limit.getMaxConcurrency(),
+                    limit.getLatencyTarget().toNanos(), now));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !(path.equals(ITEMS) || path.startsWith(ITEMS + "/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        Endpoint endpoint = classify(method, request.getRequestURI().substring(request.getContextPath().length()),
+                method.equals("GET") && (request.getParameter("limit") != null || request.getParameter("status") != null));
+        long now = System.nanoTime();
+
+        TokenBucket clientBucket = clientBucket(request, now);
+        long wait = clientBucket.tryTake(now);
+        if (wait > 0) {
+            reject(response, endpoint, Rejection.CLIENT_RATE, HttpStatus.TOO_MANY_REQUESTS, wait);
+            return;
+        }
+        TokenBucket endpointBucket = endpointBuckets.get(endpoint);
+        wait = endpointBucket.tryTake(now);
+        if (wait > 0) {
+            clientBucket.giveBack();
+            reject(response, endpoint, Rejection.ENDPOINT_RATE, HttpStatus.TOO_MANY_REQUESTS, wait);
+            return;
+        }
+        AdaptiveConcurrencyLimit limit = limits.get(endpoint);
+        int inFlight = limit.tryAcquire();
+        if (inFlight == 0) {
+            clientBucket.giveBack();
+            endpointBucket.giveBack();
+            // nothing to compute here, a second is about one round of the requests that are in
+            reject(response, endpoint, Rejection.CONCURRENCY, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limit.release(inFlight, now, System.nanoTime());
+        }
+    }
+
+    // paged: the request carries limit or status, which the controller answers with one page instead of the stream
+    static Endpoint classify(String method, String path, boolean paged) {
+        String rest = path.substring(ITEMS.length());
+        if (rest.isEmpty() || rest.equals("/")) {
+            if (!method.equals("GET")) {
+                return Endpoint.WRITE;
+            }
+            return paged ? Endpoint.PAGE : Endpoint.LIST;
+        }
+        if (rest.startsWith("/bulk")) {
+            return Endpoint.BULK;
+        }
+        if (rest.equals("/process")) {
+            return method.equals("POST") ? Endpoint.PROCESS : Endpoint.READ;
+        }
+        return method.equals("GET") ? Endpoint.READ : Endpoint.WRITE;
+    }
+
+    private TokenBucket clientBucket(HttpServletRequest request, long now) {
+        String header = properties.getClientHeader();
+        String client = header == null || header.isBlank() ? null : request.getHeader(header);
+        if (client == null || client.isBlank()) {
+            client = request.getRemoteAddr();
+        }
+        AdmissionProperties.Rate rate = properties.getClient();
+        return clientBuckets.get(client, key -> new TokenBucket(rate.getRate(), rate.getBurst(), now));
+    }
+
+    private void reject(HttpServletResponse response, Endpoint endpoint, Rejection rejection, HttpStatus status,
+                        long waitNanos) throws IOException {
+        Counter counter = rejections.getOrDefault(endpoint, Map.of()).get(rejection);
+        if (counter != null) {
+            counter.increment();
+        }
+        long seconds = Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(status == HttpStatus.TOO_MANY_REQUESTS
+                ? "Too many requests, retry in " + seconds + " s"
+                : "Service is overloaded, retry in " + seconds + " s");
+    }
+
+    //Published: admission.rejected{endpoint,reason}, admission.limit and admission.in.flight{endpoint}
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map<Endpoint, Map<Rejection, Counter>> counters = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            String name = endpoint.name().toLowerCase();
+            Map<Rejection, Counter> byReason = new EnumMap<>(Rejection.class);
+            for (Rejection rejection : Rejection.values()) {
+                byReason.put(rejection, Counter.builder("admission.rejected")
+                        .description("Requests rejected by admission control")
+                        .tag("endpoint", name)
+                        .tag("reason", rejection.name().toLowerCase())
+                        .register(registry));
+            }
+            counters.put(endpoint, byReason);
+            AdaptiveConcurrencyLimit limit = limits.get(endpoint);
+            Gauge.builder("admission.limit", limit, AdaptiveConcurrencyLimit::limit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("endpoint", name)
+                    .register(registry);
+            Gauge.builder("admission.in.flight", limit, AdaptiveConcurrencyLimit::inFlight)
+                    .tag("endpoint", name)
+                    .register(registry);
+        }
+        rejections = counters;
+    }
+}
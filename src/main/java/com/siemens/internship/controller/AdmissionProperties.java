@@ -0,0 +1,51 @@
+package com.siemens.internship.controller;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Limits of the {@link AdmissionFilter}, {@code item.admission.*} in application.properties.
+ */
+@ConfigurationProperties("item.admission")
+@Getter
+@Setter
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    // clients are limited per remote address; with a header name set, requests carrying that header are limited per
+    // value instead. Only for a trusted proxy in front that sets the header itself: clients could pick any value
+    // and get a fresh bucket for every request
+    private String clientHeader;
+
+    // clients that were not seen for this long lose their bucket (it would be full again anyway)
+    private Duration clientIdleTimeout = Duration.ofMinutes(10);
+    private long maxClients = 100_000;
+
+    private Rate client = new Rate();
+
+    private Map<AdmissionFilter.Endpoint, Endpoint> endpoints = new EnumMap<>(AdmissionFilter.Endpoint.class);
+
+    @Getter
+    @Setter
+    public static class Rate {
+        // tokens per second, and how many can be taken at once after a quiet period
+        private double rate = 100;
+        private int burst = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Endpoint extends Rate {
+        // concurrent requests allowed at first, the limit then moves between 1 and maxConcurrency
+        private int concurrency = 16;
+        private int maxConcurrency = 64;
+        // a request slower than this counts as a sign of overload and shrinks the limit
+        private Duration latencyTarget = Duration.ofSeconds(1);
+    }
+}
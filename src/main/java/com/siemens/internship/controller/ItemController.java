@@ -1,41 +1,155 @@
 package com.siemens.internship.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.siemens.internship.model.BulkResult;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemPatch;
+import com.siemens.internship.model.ItemRequest;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.service.ItemBulkService;
+import com.siemens.internship.service.ItemSearchIndex;
 import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ProcessingJob;
+import com.siemens.internship.service.ProcessingJobRegistry;
+import com.siemens.internship.service.ProcessingJobService;
+import com.siemens.internship.service.ProcessingJobStatus;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/items")
 public class ItemController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     @Autowired
     private ItemService itemService;
 
-    @GetMapping
-    public ResponseEntity<List<Item>> getAllItems() {
-        return new ResponseEntity<>(itemService.findAll(), HttpStatus.OK);
+    @Autowired
+    private ProcessingJobService processingJobService;
+
+    @Autowired
+    private ItemBulkService itemBulkService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ItemWireFormats itemWireFormats;
+
+    //The list is streamed: items are read through a database cursor and written to the response one by one,
+    //so neither the entities nor the JSON are ever held in memory as a whole. Once the response buffer
+    //is full Tomcat switches to chunked transfer encoding.
+    //?fields=id,status writes only those properties, responses above server.compression.min-response-size are
+    //gzipped for clients that accept it.
+    //Old: return new ResponseEntity<>(itemService.findAll(), HttpStatus.OK);
+    //Accept: application/cbor or application/x-jackson-smile gets the same array in a binary encoding, smaller
+    //and cheaper to parse. One mapping for the three, so clients that accept anything still get JSON.
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ItemWireFormats.SMILE_VALUE})
+    public void getAllItems(@RequestParam(required = false) String fields,
+                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                            HttpServletResponse response) throws IOException {
+        writeItems(response, itemWireFormats.arrayFormat(accept), fields, true);
     }
 
-    @PostMapping
-    public ResponseEntity<?> createItem(@Valid @RequestBody Item item, BindingResult result) {
+    //One JSON document per line, clients can start consuming before the export is finished
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamAllItems(@RequestParam(required = false) String fields, HttpServletResponse response) throws IOException {
+        writeItems(response, MediaType.APPLICATION_NDJSON, fields, false);
+    }
 
-       if (result.hasErrors()) {
-            List<String> errors = result.getFieldErrors().stream()
-                    .map(error -> error.getField() + " Error")
-                    .collect(Collectors.toList());
-             return ResponseEntity.badRequest().body(errors); // Returns error list
+    //Cursor pagination: GET /api/items?limit=50, then ?after=<nextAfter>&limit=50 until nextAfter is null
+    //Optional status filter: GET /api/items?status=NEW&limit=50
+    @GetMapping(params = "limit")
+    public ResponseEntity<?> getItemPage(@RequestParam(required = false) ItemStatus status,
+                                         @RequestParam(required = false) Long after, @RequestParam int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(List.of("limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        return new ResponseEntity<>(itemService.findPage(status, after, limit), HttpStatus.OK);
+    }
+
+    //status filter without a limit: pages of DEFAULT_PAGE_SIZE, continue with ?status=..&after=<nextAfter>
+    @GetMapping(params = {"status", "!limit"})
+    public ResponseEntity<?> getItemsByStatus(@RequestParam ItemStatus status, @RequestParam(required = false) Long after) {
+        return getItemPage(status, after, DEFAULT_PAGE_SIZE);
+    }
+
+    //Search over name and description: GET /api/items/search?q=red chair matches items containing both words,
+    //q=chai* every word starting with chai. Paged like the list: ?limit=50, then &after=<nextAfter>
+    @GetMapping("/search")
+    public ResponseEntity<?> searchItems(@RequestParam String q, @RequestParam(required = false) Long after,
+                                         @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(List.of("limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        return new ResponseEntity<>(itemService.search(q, after, limit), HttpStatus.OK);
+    }
+
+    private void writeItems(HttpServletResponse response, MediaType format, String fields, boolean array) throws IOException {
+        ObjectWriter writer = itemWireFormats.writer(fields); //unknown fields fail here, before anything is written
+        response.setContentType(format.toString());
+        //the generator must not close the response stream (the container does that) and must not
+        //close an unfinished array on failure, a broken export has to stay recognizable as broken
+        try (JsonGenerator generator = itemWireFormats.createGenerator(format, response.getOutputStream())
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+            if (array) {
+                generator.writeStartArray();
+            } else {
+                generator.setRootValueSeparator(null); //the default separator is a space, lines must start with '{'
+            }
+            try {
+                itemService.forEachItem(item -> {
+                    try {
+                        writer.writeValue(generator, item);
+                        if (!array) {
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause(); //client went away, stop reading from the database
+            }
+            if (array) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    //The body is an immutable ItemRequest checked by its own errors(): no BindingResult, no Bean Validation
+    //reflection and no allocations for a valid item, this is the ingest hot path.
+    //Old: createItem(@Valid @RequestBody Item item, BindingResult result), errors streamed out of the BindingResult
+    @PostMapping
+    public ResponseEntity<?> createItem(@RequestBody ItemRequest request) {
+        List<String> errors = request.errors();
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest().body(errors); // Returns error list
         }
-        return new ResponseEntity<>(itemService.save(item), HttpStatus.CREATED);
+        return new ResponseEntity<>(itemService.save(request.toItem()), HttpStatus.CREATED);
     }
 
     @GetMapping("/{id}")
@@ -50,7 +164,7 @@ public class ItemController {
     @PutMapping("/{id}")
     public ResponseEntity<Item> updateItem(@PathVariable Long id,@Valid @RequestBody Item item) {
 
-        Optional<Item> existingItem = itemService.findById(id);
+        Optional<Item> existingItem = itemService.findForUpdate(id); //not the cache, its version may be stale
         if (existingItem.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); //ERROR 404 -> item does not exist
         }
@@ -66,10 +180,26 @@ public class ItemController {
         if(item.getStatus() != null){
             updatedItem.setStatus(item.getStatus());
         }
+        if(item.getVersion() != null){
+            updatedItem.setVersion(item.getVersion()); //the save fails with 409 if the item changed since this version
+        }
 
         return new ResponseEntity<>(itemService.save(updatedItem), HttpStatus.OK);
     }
 
+    //Partial update without reading the item first: one UPDATE statement, 404 if it touched no row.
+    //Send "version" to make it conditional, a stale version answers 409.
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchItem(@PathVariable Long id, @Valid @RequestBody ItemPatch patch, BindingResult result) {
+        if (result.hasErrors()) {
+            List<String> errors = result.getFieldErrors().stream()
+                    .map(error -> error.getField() + " Error")
+                    .collect(Collectors.toList());
+            return ResponseEntity.badRequest().body(errors);
+        }
+        return new ResponseEntity<>(itemService.patch(id, patch) ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteItem(@PathVariable Long id) {
         if (!itemService.existsById(id)) {
@@ -80,8 +210,108 @@ public class ItemController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT); //NOT CONFLICT
     }
 
+    //Bulk endpoints take a JSON array or NDJSON (one item per line). The body is read element by element and
+    //written in batched chunks; the response lists an error per rejected element (index = position in the body).
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkResult> createItems(HttpServletRequest request) throws IOException {
+        try (MappingIterator<Item> items = readElements(request, Item.class)) {
+            return new ResponseEntity<>(itemBulkService.create(items), HttpStatus.OK);
+        }
+    }
+
+    @PutMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkResult> updateItems(HttpServletRequest request) throws IOException {
+        try (MappingIterator<Item> items = readElements(request, Item.class)) {
+            return new ResponseEntity<>(itemBulkService.update(items), HttpStatus.OK);
+        }
+    }
+
+    //body: the ids to delete, e.g. [1, 2, 3]
+    @DeleteMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkResult> deleteItems(HttpServletRequest request) throws IOException {
+        try (MappingIterator<Long> ids = readElements(request, Long.class)) {
+            return new ResponseEntity<>(itemBulkService.delete(ids), HttpStatus.OK);
+        }
+    }
+
+    //a root level array is unwrapped, NDJSON is read as a sequence of root values
+    private <T> MappingIterator<T> readElements(HttpServletRequest request, Class<T> type) throws IOException {
+        return objectMapper.readerFor(type).readValues(request.getInputStream());
+    }
+
+    //Processing runs as a background job: the servlet thread only registers the job and returns its id,
+    //progress is polled with GET and a run can be stopped with DELETE.
+    //Old: GET /process blocked on processItemsAsync().get() until the whole table was processed.
+    @PostMapping("/process")
+    public ResponseEntity<ProcessingJobStatus> startProcessing() {
+        ProcessingJob job = processingJobService.start();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/items/process/" + job.getId()))
+                .body(job.status());
+    }
+
     @GetMapping("/process")
-    public ResponseEntity<List<Item>> processItems() throws ExecutionException, InterruptedException {
-        return new ResponseEntity<>(itemService.processItemsAsync().get(), HttpStatus.OK);
+    public ResponseEntity<List<ProcessingJobStatus>> getProcessingJobs() {
+        return new ResponseEntity<>(processingJobService.findAll().stream().map(ProcessingJob::status).toList(),
+                HttpStatus.OK);
+    }
+
+    //Items processing gave up on (failed permanently or ran out of retries), with the last error.
+    //Paged like the items: ?limit=50, then ?after=<last itemId>&limit=50
+    @GetMapping("/process/dead-letters")
+    public ResponseEntity<?> getDeadLetters(@RequestParam(required = false) Long after,
+                                            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(List.of("limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        return new ResponseEntity<>(processingJobService.findDeadLetters(after, limit), HttpStatus.OK);
+    }
+
+    @GetMapping("/process/{jobId}")
+    public ResponseEntity<ProcessingJobStatus> getProcessingJob(@PathVariable String jobId) {
+        return processingJobService.find(jobId)
+                .map(job -> new ResponseEntity<>(job.status(), HttpStatus.OK))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @DeleteMapping("/process/{jobId}")
+    public ResponseEntity<ProcessingJobStatus> cancelProcessing(@PathVariable String jobId) {
+        Optional<ProcessingJob> job = processingJobService.find(jobId);
+        if (job.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        boolean cancelled = processingJobService.cancel(job.get());
+        //409 -> the job already finished, there is nothing left to cancel
+        return new ResponseEntity<>(job.get().status(), cancelled ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ItemWireFormats.UnknownFieldsException.class)
+    public ResponseEntity<List<String>> handleUnknownFields(ItemWireFormats.UnknownFieldsException e) {
+        return ResponseEntity.badRequest().body(List.of(e.getMessage()));
+    }
+
+    @ExceptionHandler(ItemSearchIndex.InvalidQueryException.class)
+    public ResponseEntity<List<String>> handleInvalidQuery(ItemSearchIndex.InvalidQueryException e) {
+        return ResponseEntity.badRequest().body(List.of(e.getMessage()));
+    }
+
+    @ExceptionHandler(ItemSearchIndex.NotReadyException.class)
+    public ResponseEntity<String> handleSearchNotReady(ItemSearchIndex.NotReadyException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleConcurrentUpdate(ObjectOptimisticLockingFailureException e) {
+        return new ResponseEntity<>("Item was changed by another request, reload it and retry", HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ProcessingJobRegistry.JobLimitExceededException.class)
+    public ResponseEntity<String> handleJobLimit(ProcessingJobRegistry.JobLimitExceededException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejectedJob(RejectedExecutionException e) {
+        return new ResponseEntity<>("Item executor is saturated, try again later", HttpStatus.SERVICE_UNAVAILABLE);
     }
 }
@@ -0,0 +1,135 @@
+package com.siemens.internship.controller;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.siemens.internship.model.Item;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Encoders for the streamed item lists: JSON, CBOR or Smile, with all fields or only the ones a client asked for
+ * ({@code ?fields=id,status}).
+ * <p>
+ * All formats share the configuration of the application's ObjectMapper. Field selection goes through a copy of
+ * it, where items carry a property filter, so the entity and the mapper of the other endpoints stay unchanged.
+ */
+@Component
+public class ItemWireFormats {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType SMILE = MediaType.valueOf(SMILE_VALUE);
+    public static final List<String> FIELDS = List.of("id", "name", "description", "status", "email", "version");
+
+    private static final String FILTER = "itemFields";
+
+    private final ObjectMapper fieldsMapper;
+    private final ObjectWriter allFields;
+    private final JsonFactory jsonFactory;
+    private final JsonFactory cborFactory = new CBORFactory();
+    private final JsonFactory smileFactory = new SmileFactory();
+
+    public ItemWireFormats(ObjectMapper objectMapper) {
+        this.fieldsMapper = objectMapper.copy().addMixIn(Item.class, FilteredItem.class);
+        this.allFields = writer(SimpleBeanPropertyFilter.serializeAll());
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * @param fields comma separated property names, null or blank for all of them
+     * @throws UnknownFieldsException if a name is not one of {@link #FIELDS}
+     */
+    public ObjectWriter writer(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return allFields;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        List<String> unknown = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            (FIELDS.contains(name) ? selected : unknown).add(name);
+        }
+        if (!unknown.isEmpty()) {
+            throw new UnknownFieldsException(unknown);
+        }
+        return writer(SimpleBeanPropertyFilter.filterOutAllExcept(selected));
+    }
+
+    /**
+     * The encoding for a list request: the one the client prefers by quality ({@code q}), the more specific type
+     * on a tie, so {@code application/cbor, &#42;/&#42;} is CBOR but {@code application/cbor;q=0.1, application/json} is
+     * JSON. A wildcard that covers JSON stands for JSON, and JSON is also the answer if nothing matches.
+     */
+    public MediaType arrayFormat(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        // sortBySpecificity ignores q since Spring 6; the second (stable) sort puts quality first
+        MimeTypeUtils.sortBySpecificity(accepted);
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue; // "not acceptable"
+            }
+            if (type.isWildcardType() || type.isWildcardSubtype()) {
+                if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    return MediaType.APPLICATION_JSON;
+                }
+                continue;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                return MediaType.APPLICATION_CBOR;
+            }
+            if (type.isCompatibleWith(SMILE)) {
+                return SMILE;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return MediaType.APPLICATION_JSON;
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * @param format JSON (NDJSON too), {@link MediaType#APPLICATION_CBOR} or {@link #SMILE}
+     */
+    public JsonGenerator createGenerator(MediaType format, OutputStream out) throws IOException {
+        JsonFactory factory = MediaType.APPLICATION_CBOR.isCompatibleWith(format) ? cborFactory
+                : SMILE.isCompatibleWith(format) ? smileFactory
+                : jsonFactory;
+        return factory.createGenerator(out);
+    }
+
+    //Without FLUSH_AFTER_WRITE_VALUE: every item would be flushed through to the response, one network chunk each
+    private ObjectWriter writer(SimpleBeanPropertyFilter filter) {
+        return fieldsMapper.writer(new SimpleFilterProvider().addFilter(FILTER, filter))
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @JsonFilter(FILTER)
+    private interface FilteredItem {
+    }
+
+    public static class UnknownFieldsException extends IllegalArgumentException {
+        public UnknownFieldsException(List<String> unknown) {
+            super("Unknown fields " + unknown + ", available are " + FIELDS);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.siemens.internship.controller;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket without a lock: the whole state is one timestamp, the time at which the bucket would be empty
+ * (generic cell rate algorithm). Taking a token moves it forward by one token's worth of time, with a single
+ * compare-and-set; the bucket is full when the timestamp lies {@code burst} tokens or more in the past.
+ */
+final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong emptyAt;
+
+    TokenBucket(double tokensPerSecond, int burst, long now) {
+        if (tokensPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("rate and burst must be positive, were " + tokensPerSecond + " and " + burst);
+        }
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000 / tokensPerSecond));
+        this.burstNanos = burst * nanosPerToken;
+        this.emptyAt = new AtomicLong(now - burstNanos); // starts full
+    }
+
+    /**
+     * @param now {@link System#nanoTime()}
+     * @return 0 if a token was taken, otherwise the nanoseconds until the next one is available
+     */
+    long tryTake(long now) {
+        while (true) {
+            long current = emptyAt.get();
+            long next = (current - now > 0 ? current : now) + nanosPerToken;
+            long ahead = next - now;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (emptyAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns a token taken by {@link #tryTake} for a request that was rejected further on.
+     */
+    void giveBack() {
+        emptyAt.addAndGet(-nanosPerToken);
+    }
+}
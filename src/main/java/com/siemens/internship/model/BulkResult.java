@@ -0,0 +1,17 @@
+package com.siemens.internship.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk request. Elements are reported by their position in the request body (0 based).
+ *
+ * @param succeeded number of elements that were written
+ * @param failed    number of elements that were rejected or could not be written
+ * @param ids       ids of the written items, in request order
+ * @param errors    one entry per failed element, capped so a huge broken upload can't blow up the response
+ */
+public record BulkResult(int succeeded, int failed, List<Long> ids, List<Error> errors) {
+
+    public record Error(int index, Long id, List<String> messages) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.siemens.internship.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * An item that processing gave up on, with the error of its last attempt. There is at most one record per item:
+ * a later failure replaces it, a later successful run removes it.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeadLetterItem {
+
+    public static final int MAX_ERROR_LENGTH = 1000;
+
+    @Id
+    private Long itemId;
+    private String stage;
+    @Column(length = MAX_ERROR_LENGTH)
+    private String error;
+    private int attempts;
+    private Instant failedAt;
+
+    // the error column of a failure, cut to fit
+    public static String error(Throwable cause) {
+        String message = cause.toString();
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
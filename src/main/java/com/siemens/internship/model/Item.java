@@ -1,9 +1,17 @@
 package com.siemens.internship.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -13,20 +21,49 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+// (status, id): "all items with status X after id Y" is a range seek, both for the processing run and ?status=
+@Table(indexes = @Index(name = "idx_item_status_id", columnList = "status, id"))
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class Item {
+    // Pooled sequence: Hibernate reserves 50 ids per round trip and knows them before the INSERT,
+    // so inserts can be sent as JDBC batches (an IDENTITY column would force one statement per row)
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @SequenceGenerator(name = "item_seq", sequenceName = "item_seq", allocationSize = 50)
     private Long id;
     private String name;
     private String description;
-    private String status;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ItemStatus status;
 
     // Added email validation
     @Email(message = "Invalid email!")
     @NotBlank(message = "Email cannot be blank!")
     private String email;
-}
\ No newline at end of file
+
+    // Optimistic lock: every write increments it and checks the value it read, so a concurrent writer gets a
+    // conflict instead of silently overwriting. Clients may send it back on PUT/PATCH, it is never required.
+    @Version
+    private Long version;
+
+    public Item(Long id, String name, String description, ItemStatus status, String email) {
+        this(id, name, description, status, email, null);
+    }
+
+    // items created without a status still have to be picked up by the processing run
+    @PrePersist
+    void defaultStatus() {
+        if (status == null) {
+            status = ItemStatus.NEW;
+        }
+    }
+
+    // Detached copy of this item, for places where one instance must not be shared between callers (item cache)
+    public Item copy() {
+        return new Item(id, name, description, status, email, version);
+    }
+}
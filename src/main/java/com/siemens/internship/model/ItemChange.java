@@ -0,0 +1,32 @@
+package com.siemens.internship.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Outbox row: the item was created or updated and has to be processed. Written in the same transaction as the
+ * item itself, deleted by the incremental processor in the transaction that processed it.
+ */
+@Entity
+@Getter
+@NoArgsConstructor
+public class ItemChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_change_seq")
+    @SequenceGenerator(name = "item_change_seq", sequenceName = "item_change_seq", allocationSize = 50)
+    private Long id;
+    private Long itemId;
+    private Instant changedAt;
+
+    public ItemChange(Long itemId, Instant changedAt) {
+        this.itemId = itemId;
+        this.changedAt = changedAt;
+    }
+}
@@ -0,0 +1,17 @@
+package com.siemens.internship.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset (cursor) listing.
+ *
+ * @param items     the page, ordered by id
+ * @param nextAfter value for the {@code after} parameter of the next page, null on the last page
+ */
+public record ItemPage(List<ItemSummary> items, Long nextAfter) {
+
+    public static ItemPage of(List<ItemSummary> items, int limit) {
+        Long nextAfter = items.size() < limit ? null : items.get(items.size() - 1).id();
+        return new ItemPage(items, nextAfter);
+    }
+}
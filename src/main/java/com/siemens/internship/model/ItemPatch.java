@@ -0,0 +1,18 @@
+package com.siemens.internship.model;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Body of {@code PATCH /api/items/{id}}. Every field is optional, only the non-null ones are written.
+ *
+ * @param version if set, the update only applies when the stored item still has this version
+ */
+public record ItemPatch(String name,
+                        String description,
+                        ItemStatus status,
+                        @Email(message = "Invalid email!")
+                        @Pattern(regexp = "\\S+", message = "Email cannot be blank!")
+                        String email,
+                        Long version) {
+}
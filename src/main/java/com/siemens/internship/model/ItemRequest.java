@@ -0,0 +1,97 @@
+package com.siemens.internship.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Body of {@code POST /api/items}.
+ * <p>
+ * Validated by {@link #errors()} instead of Bean Validation: plain checks over the characters, no reflection,
+ * no regex and no allocation for a valid request. The rules are those of {@link Item}'s annotations ({@code @Email},
+ * {@code @NotBlank}) plus the column length, so a request that passes here also passes on the entity.
+ * Quoted local parts and IP literals ({@code "a b"@x}, {@code a@[10.0.0.1]}), which {@code @Email} accepts,
+ * are rejected.
+ */
+public record ItemRequest(String name, String description, ItemStatus status, String email) {
+
+    public static final int MAX_LENGTH = 255;
+    private static final int MAX_LOCAL_PART = 64;
+    private static final int MAX_DOMAIN_LABEL = 63;
+
+    /**
+     * @return one "field Error" per invalid field like the other endpoints, the shared empty list if there is none
+     */
+    public List<String> errors() {
+        boolean nameValid = name == null || name.length() <= MAX_LENGTH;
+        boolean descriptionValid = description == null || description.length() <= MAX_LENGTH;
+        boolean emailValid = isEmail(email);
+        if (nameValid && descriptionValid && emailValid) {
+            return List.of();
+        }
+        List<String> errors = new ArrayList<>(3);
+        if (!nameValid) {
+            errors.add("name Error");
+        }
+        if (!descriptionValid) {
+            errors.add("description Error");
+        }
+        if (!emailValid) {
+            errors.add("email Error");
+        }
+        return errors;
+    }
+
+    // new entity, a missing status becomes NEW when it is persisted
+    public Item toItem() {
+        return new Item(null, name, description, status, email);
+    }
+
+    // local@domain: dot separated atoms on both sides, domain labels of letters, digits and inner hyphens
+    static boolean isEmail(String email) {
+        if (email == null || email.length() > MAX_LENGTH) {
+            return false;
+        }
+        int at = email.lastIndexOf('@');
+        if (at <= 0 || at > MAX_LOCAL_PART || at == email.length() - 1) {
+            return false;
+        }
+        return isLocalPart(email, at) && isDomain(email, at + 1);
+    }
+
+    private static boolean isLocalPart(String email, int end) {
+        char previous = '.';
+        for (int i = 0; i < end; i++) {
+            char c = email.charAt(i);
+            if (c == '.' ? previous == '.' : !isAtomChar(c)) {
+                return false;
+            }
+            previous = c;
+        }
+        return previous != '.';
+    }
+
+    private static boolean isDomain(String email, int start) {
+        int labelLength = 0;
+        char previous = '.';
+        for (int i = start; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                if (previous == '.' || previous == '-') {
+                    return false;
+                }
+                labelLength = 0;
+            } else if (c == '-' ? previous == '.' : !(Character.isLetterOrDigit(c) || c > 0x7F)) {
+                return false;
+            } else if (++labelLength > MAX_DOMAIN_LABEL) {
+                return false;
+            }
+            previous = c;
+        }
+        return previous != '.' && previous != '-';
+    }
+
+    // RFC 5322 atext, plus any non-ASCII character like @Email
+    private static boolean isAtomChar(char c) {
+        return Character.isLetterOrDigit(c) || c > 0x7F || "!#$%&'*+-/=?^_`{|}~".indexOf(c) >= 0;
+    }
+}
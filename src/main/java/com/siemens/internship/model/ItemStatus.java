@@ -0,0 +1,25 @@
+package com.siemens.internship.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Lifecycle of an {@link Item}. Stored by name in an enum column, so the database rejects unknown values and
+ * H2 keeps only the ordinal per row.
+ */
+public enum ItemStatus {
+    NEW,
+    UPDATED,
+    PROCESSED;
+
+    // shared by every caller, so read-only; still backed by the EnumSet for its bit-mask contains()
+    private static final Set<ItemStatus> PENDING = Collections.unmodifiableSet(EnumSet.complementOf(EnumSet.of(PROCESSED)));
+
+    /**
+     * Statuses the processing run still has to pick up, as an unmodifiable set.
+     */
+    public static Set<ItemStatus> pending() {
+        return PENDING;
+    }
+}
@@ -0,0 +1,8 @@
+package com.siemens.internship.model;
+
+/**
+ * List view of an {@link Item}. Queries returning this projection only select these columns,
+ * description and email are never loaded.
+ */
+public record ItemSummary(Long id, String name, ItemStatus status) {
+}
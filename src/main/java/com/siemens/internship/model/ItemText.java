@@ -0,0 +1,8 @@
+package com.siemens.internship.model;
+
+/**
+ * Search view of an {@link Item}: the fields the search index is built from, plus the version so an older read
+ * never replaces a newer one in the index.
+ */
+public record ItemText(Long id, Long version, String name, String description) {
+}
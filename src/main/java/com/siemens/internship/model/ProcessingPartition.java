@@ -0,0 +1,61 @@
+package com.siemens.internship.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * A range of item ids ({@code rangeStart <= id < rangeEnd}) that one node at a time leases for processing.
+ * <p>
+ * {@code leaseToken} grows with every claim, writes made under a lease check it, so a node whose lease expired
+ * and was taken over can't write anything anymore. {@code lastPassStartedAt} is when the last completed pass
+ * over the range was claimed: every item that was pending before that time has been processed.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProcessingPartition implements Persistable<Integer> {
+    @Id
+    private Integer id;
+    private long rangeStart;
+    private long rangeEnd;
+    private String owner;
+    private long leaseToken;
+    private Instant leaseUntil;
+    private Instant claimedAt;
+    private Instant lastPassStartedAt;
+
+    //save() of a new partition must insert, a merge would overwrite the lease of a row another node just created
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean created;
+
+    public ProcessingPartition(Integer id, long rangeStart, long rangeEnd) {
+        this.id = id;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.created = true;
+    }
+
+    @Override
+    public boolean isNew() {
+        return created;
+    }
+
+    @PostLoad
+    @PostPersist
+    void stored() {
+        created = false;
+    }
+}
@@ -0,0 +1,60 @@
+package com.siemens.internship.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Durable record of a processing run, so a run interrupted by a restart or a crash can be resumed.
+ * <p>
+ * {@code startedAt} is what makes a resume cheap: partitions whose last pass was claimed after it are done for this
+ * run ({@link ProcessingPartition#getLastPassStartedAt()}), and inside the others only items that are still pending
+ * are fetched. Like a partition, a running run is leased by one node ({@code owner}, {@code leaseUntil}); the
+ * counters and the last completed id range are the checkpoint that node writes while renewing the lease.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProcessingRun {
+
+    public enum State { RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    public static final int MAX_ERROR_LENGTH = 1000;
+
+    @Id
+    private String id;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private State state;
+    private String owner;
+    private Instant leaseUntil;
+    private long total;
+    private long processed;
+    private long notFound;
+    private long failed;
+    private Long lastRangeStart;
+    private Long lastRangeEnd;
+    @Column(nullable = false)
+    private Instant startedAt;
+    private Instant checkpointAt;
+    private Instant finishedAt;
+    @Column(length = MAX_ERROR_LENGTH)
+    private String error;
+
+    public ProcessingRun(String id, long total, Instant startedAt, String owner, Instant leaseUntil) {
+        this.id = id;
+        this.state = State.RUNNING;
+        this.total = total;
+        this.startedAt = startedAt;
+        this.owner = owner;
+        this.leaseUntil = leaseUntil;
+    }
+}
@@ -0,0 +1,12 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.DeadLetterItem;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface DeadLetterItemRepository extends JpaRepository<DeadLetterItem, Long> {
+
+    List<DeadLetterItem> findByItemIdGreaterThanOrderByItemIdAsc(Long after, Limit limit);
+}
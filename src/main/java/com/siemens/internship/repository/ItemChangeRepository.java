@@ -0,0 +1,26 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.ItemChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ItemChangeRepository extends JpaRepository<ItemChange, Long> {
+
+    // Outbox rows in write order from the primary key, locked for the calling transaction. Rows another node
+    // is consuming right now are skipped instead of waited for, so replicas drain disjoint sets of rows.
+    // Native for SKIP LOCKED, see ProcessingPartitionRepository.
+    @Query(value = """
+            SELECT * FROM item_change
+            WHERE id > :after AND id <= :upTo
+            ORDER BY id LIMIT :limit
+            FOR UPDATE SKIP LOCKED""", nativeQuery = true)
+    List<ItemChange> lockNext(@Param("after") long after, @Param("upTo") long upTo, @Param("limit") int limit);
+
+    // The rows of a failed chunk again, one item at a time. Rows another node consumed in between are gone or
+    // skipped, like in lockNext.
+    @Query(value = "SELECT * FROM item_change WHERE id IN (:ids) FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ItemChange> lockAll(@Param("ids") List<Long> ids);
+}
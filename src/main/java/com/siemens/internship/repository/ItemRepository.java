@@ -1,12 +1,106 @@
 package com.siemens.internship.repository;
 
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ItemSummary;
+import com.siemens.internship.model.ItemText;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
     @Query("SELECT id FROM Item")
     List<Long> findAllIds();
+
+    // Keyset paging over the primary key: the page size comes from the Pageable (LIMIT),
+    // the start position from the last id of the previous page, so every page costs the same.
+    @Query("SELECT i.id FROM Item i WHERE i.id > :after ORDER BY i.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable page);
+
+    // Same keyset, restricted to one status and served from the (status, id) index: the processing run only
+    // walks the rows it still has to process, however many are already done.
+    @Query("SELECT i.id FROM Item i WHERE i.status = :status AND i.id > :after ORDER BY i.id")
+    List<Long> findIdsByStatus(@Param("status") ItemStatus status, @Param("after") Long after, Pageable page);
+
+    // ... and to an id range (a processing partition), still one index range scan
+    @Query("SELECT i.id FROM Item i WHERE i.status = :status AND i.id > :after AND i.id < :before ORDER BY i.id")
+    List<Long> findIdsByStatusBetween(@Param("status") ItemStatus status, @Param("after") Long after,
+                                      @Param("before") Long before, Pageable page);
+
+    // whether an id range (a processing partition) has anything left to process, stops at the first index entry
+    boolean existsByStatusInAndIdGreaterThanAndIdLessThan(Collection<ItemStatus> statuses, Long after, Long before);
+
+    @Query("SELECT max(i.id) FROM Item i")
+    Long findMaxId();
+
+    long countByStatus(ItemStatus status);
+
+    long countByStatusIn(Collection<ItemStatus> statuses);
+
+    @Query("SELECT i.id FROM Item i WHERE i.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Partial update in one statement, no read before the write: null parameters keep the stored value.
+    // With a version the row is only touched if nobody wrote it in between. Returns the number of updated rows.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE Item i SET
+                i.name = COALESCE(:name, i.name),
+                i.description = COALESCE(:description, i.description),
+                i.status = COALESCE(:status, i.status),
+                i.email = COALESCE(:email, i.email),
+                i.version = i.version + 1
+            WHERE i.id = :id AND (:version IS NULL OR i.version = :version)""")
+    int patch(@Param("id") Long id,
+              @Param("name") String name,
+              @Param("description") String description,
+              @Param("status") ItemStatus status,
+              @Param("email") String email,
+              @Param("version") Long version);
+
+    // Keyset page for list views, served straight from the primary key index: the database seeks to
+    // the first id after the cursor and reads `limit` rows, so page 10,000 costs the same as page 1
+    // (OFFSET would read and discard every row before the page).
+    List<ItemSummary> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    List<ItemSummary> findByStatusAndIdGreaterThanOrderByIdAsc(ItemStatus status, Long after, Limit limit);
+
+    // one page of search hits, the ids come from the in-memory search index
+    List<ItemSummary> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    // what the search index needs of written items, re-read after commit
+    @Query("SELECT new com.siemens.internship.model.ItemText(i.id, i.version, i.name, i.description) FROM Item i WHERE i.id IN :ids")
+    List<ItemText> findTextByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Forward-only cursor over the whole table, has to be consumed inside a (read-only) transaction
+    // and closed afterwards. Rows are fetched from the driver in blocks of the fetch size and loaded
+    // read-only, so Hibernate keeps no dirty-checking snapshots for them.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT i FROM Item i ORDER BY i.id")
+    Stream<Item> streamAll();
+
+    // Same cursor for building the search index at startup: a constructor projection, so nothing ends up in the
+    // persistence context however many rows are read
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new com.siemens.internship.model.ItemText(i.id, i.version, i.name, i.description) FROM Item i ORDER BY i.id")
+    Stream<ItemText> streamAllText();
 }
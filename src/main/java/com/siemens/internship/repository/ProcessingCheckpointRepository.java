@@ -0,0 +1,21 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.ProcessingCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface ProcessingCheckpointRepository extends JpaRepository<ProcessingCheckpoint, String> {
+
+    // moves the position forward only, 0 if it is already there or further (or the checkpoint doesn't exist yet)
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ProcessingCheckpoint c SET c.position = :position, c.updatedAt = :now
+            WHERE c.name = :name AND c.position < :position""")
+    int advance(@Param("name") String name, @Param("position") long position, @Param("now") Instant now);
+}
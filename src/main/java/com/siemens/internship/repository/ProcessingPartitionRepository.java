@@ -0,0 +1,47 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.ProcessingPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface ProcessingPartitionRepository extends JpaRepository<ProcessingPartition, Integer> {
+
+    @Query("SELECT max(p.id) FROM ProcessingPartition p")
+    Integer findMaxId();
+
+    // The first partition that still needs a pass started at or after :since and isn't leased (or whose lease
+    // expired). The row stays locked until the claiming transaction ends; nodes claiming at the same time
+    // skip it and take the next one instead of waiting for the lock.
+    // Native because Hibernate's H2 dialect doesn't render SKIP LOCKED (PostgreSQL and MySQL 8 accept the same SQL).
+    @Query(value = """
+            SELECT * FROM processing_partition
+            WHERE (last_pass_started_at IS NULL OR last_pass_started_at < :since)
+              AND (owner IS NULL OR lease_until < :now)
+            ORDER BY id LIMIT 1
+            FOR UPDATE SKIP LOCKED""", nativeQuery = true)
+    Optional<ProcessingPartition> lockClaimable(@Param("since") Instant since, @Param("now") Instant now);
+
+    @Query("SELECT count(p) FROM ProcessingPartition p WHERE p.lastPassStartedAt IS NULL OR p.lastPassStartedAt < :since")
+    long countUnfinished(@Param("since") Instant since);
+
+    // The lease checks below return 0 once another node took the partition over (new token)
+
+    @Modifying
+    @Query("UPDATE ProcessingPartition p SET p.leaseUntil = :until WHERE p.id = :id AND p.leaseToken = :token")
+    int renew(@Param("id") Integer id, @Param("token") long token, @Param("until") Instant until);
+
+    @Modifying
+    @Query("""
+            UPDATE ProcessingPartition p SET p.owner = NULL, p.leaseUntil = NULL, p.lastPassStartedAt = p.claimedAt
+            WHERE p.id = :id AND p.leaseToken = :token""")
+    int complete(@Param("id") Integer id, @Param("token") long token);
+
+    @Modifying
+    @Query("UPDATE ProcessingPartition p SET p.owner = NULL, p.leaseUntil = NULL WHERE p.id = :id AND p.leaseToken = :token")
+    int release(@Param("id") Integer id, @Param("token") long token);
+}
@@ -0,0 +1,67 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.ProcessingRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ProcessingRunRepository extends JpaRepository<ProcessingRun, String> {
+
+    // Unfinished runs nobody drives: released on shutdown, lease expired (the owner died), or owned by this node
+    // under the same node id before a restart
+    @Query("""
+            SELECT r FROM ProcessingRun r
+            WHERE r.state = com.siemens.internship.model.ProcessingRun.State.RUNNING
+              AND (r.owner IS NULL OR r.leaseUntil < :now OR r.owner = :node)
+            ORDER BY r.startedAt""")
+    List<ProcessingRun> findResumable(@Param("node") String node, @Param("now") Instant now);
+
+    // Same condition as findResumable, checked again in the UPDATE: of two nodes resuming the same run one gets 0
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ProcessingRun r SET r.owner = :node, r.leaseUntil = :until
+            WHERE r.id = :id AND r.state = com.siemens.internship.model.ProcessingRun.State.RUNNING
+              AND (r.owner IS NULL OR r.leaseUntil < :now OR r.owner = :node)""")
+    int claim(@Param("id") String id, @Param("node") String node, @Param("now") Instant now,
+              @Param("until") Instant until);
+
+    // The writes below return 0 once another node took the run over
+
+    // null range: keep the last completed one
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ProcessingRun r SET
+                r.processed = :processed, r.notFound = :notFound, r.failed = :failed,
+                r.lastRangeStart = COALESCE(:rangeStart, r.lastRangeStart),
+                r.lastRangeEnd = COALESCE(:rangeEnd, r.lastRangeEnd),
+                r.checkpointAt = :now, r.leaseUntil = :until
+            WHERE r.id = :id AND r.owner = :node AND r.state = com.siemens.internship.model.ProcessingRun.State.RUNNING""")
+    int checkpoint(@Param("id") String id, @Param("node") String node,
+                   @Param("processed") long processed, @Param("notFound") long notFound, @Param("failed") long failed,
+                   @Param("rangeStart") Long rangeStart, @Param("rangeEnd") Long rangeEnd,
+                   @Param("now") Instant now, @Param("until") Instant until);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingRun r SET r.owner = NULL, r.leaseUntil = NULL WHERE r.id = :id AND r.owner = :node")
+    int release(@Param("id") String id, @Param("node") String node);
+
+    // final state; RUNNING with owner NULL releases the run for an immediate resume
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ProcessingRun r SET
+                r.state = :state, r.processed = :processed, r.notFound = :notFound, r.failed = :failed,
+                r.owner = NULL, r.leaseUntil = NULL, r.checkpointAt = :now, r.finishedAt = :finishedAt, r.error = :error
+            WHERE r.id = :id AND r.owner = :node AND r.state = com.siemens.internship.model.ProcessingRun.State.RUNNING""")
+    int finish(@Param("id") String id, @Param("node") String node, @Param("state") ProcessingRun.State state,
+               @Param("processed") long processed, @Param("notFound") long notFound, @Param("failed") long failed,
+               @Param("now") Instant now, @Param("finishedAt") Instant finishedAt, @Param("error") String error);
+}
@@ -0,0 +1,22 @@
+package com.siemens.internship.service;
+
+import java.time.Duration;
+
+/**
+ * Summary of one run of the {@link ItemBatchProcessor}.
+ *
+ * @param processed number of items whose status was updated
+ * @param notFound  ids that were paged but deleted before their chunk was loaded
+ * @param failed    ids of chunks whose transaction failed and was rolled back
+ * @param chunks    number of chunks (transactions) the run was split into
+ * @param cancelled whether the run stopped early because it was cancelled
+ * @param elapsed   wall clock time of the whole run
+ */
+public record BatchResult(long processed, long notFound, long failed, int chunks, boolean cancelled,
+                          Duration elapsed) {
+
+    public double itemsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : processed * 1_000_000_000.0 / nanos;
+    }
+}
@@ -0,0 +1,260 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.DeadLetterItem;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemChange;
+import com.siemens.internship.model.ProcessingCheckpoint;
+import com.siemens.internship.repository.DeadLetterItemRepository;
+import com.siemens.internship.repository.ItemChangeRepository;
+import com.siemens.internship.repository.ProcessingCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Processes only the items that were written since the last run, by draining the {@link ItemChangeLog} outbox.
+ * <p>
+ * Every chunk of outbox rows is handled in one transaction: the referenced items are processed and the rows are
+ * deleted. A crash before the commit leaves the rows in place, so nothing is lost and nothing is consumed twice.
+ * After the commit the high-water mark (id of the last consumed row) is moved forward; it only says where to
+ * start reading, a mark that lags behind after a crash costs a few reads of already deleted rows. The cost of a
+ * run follows the number of writes since the previous one, not the size of the item table. Items that are no longer
+ * pending, because a partitioned or pipeline run processed them since they were written, are skipped and only their
+ * rows are deleted, so every item still makes one status transition.
+ * <p>
+ * Outbox ids come from a sequence and transactions may commit out of id order, so a row can appear below the
+ * high-water mark after it was passed. Each run therefore starts at the mark, reads to the end and then wraps
+ * around to pick up whatever is left below it.
+ * <p>
+ * A chunk that fails is retried item by item, each item in a transaction of its own, so one bad item doesn't hold
+ * up the rest of its chunk. An item that a processor still rejects is stored as a {@link DeadLetterItem} and its
+ * rows are deleted, otherwise every run would fail on it again. Items that fail on a database error are not their
+ * own fault: their rows stay in the outbox and are retried on the next run.
+ * <p>
+ * Replicas drain side by side: a chunk's rows are read {@code FOR UPDATE SKIP LOCKED} inside its transaction, so
+ * each row is consumed by exactly one node. They share one mark, which is only ever moved forward and not inside
+ * the chunk transactions, so the chunks of different nodes don't wait on its row. Being shared and not tied to a
+ * node id (random per start by default), it survives restarts.
+ */
+@Slf4j
+@Component
+public class IncrementalItemProcessor {
+
+    static final String CHECKPOINT = "incremental-item-processing";
+
+    private final ItemChangeRepository changeRepository;
+    private final ProcessingCheckpointRepository checkpointRepository;
+    private final DeadLetterItemRepository deadLetterRepository;
+    private final ItemBatchProcessor batchProcessor;
+    private final ItemCache itemCache;
+    private final ItemProcessingMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final boolean enabled;
+
+    public IncrementalItemProcessor(ItemChangeRepository changeRepository,
+                                    ProcessingCheckpointRepository checkpointRepository,
+                                    DeadLetterItemRepository deadLetterRepository,
+                                    ItemBatchProcessor batchProcessor,
+                                    ItemCache itemCache,
+                                    ItemProcessingMetrics metrics,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${item.processing.incremental.enabled:true}") boolean enabled) {
+        this.changeRepository = changeRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.batchProcessor = batchProcessor;
+        this.itemCache = itemCache;
+        this.metrics = metrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = batchProcessor.getChunkSize();
+        this.enabled = enabled;
+    }
+
+    @Scheduled(fixedDelayString = "${item.processing.incremental.interval:PT5S}",
+            initialDelayString = "${item.processing.incremental.interval:PT5S}")
+    void scheduledDrain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            BatchResult result = drain();
+            if (result.chunks() > 0) {
+                log.info("Incremental processing: {} processed, {} not found, {} failed in {} ms",
+                        result.processed(), result.notFound(), result.failed(), result.elapsed().toMillis());
+            }
+        } catch (RuntimeException e) {
+            log.error("Incremental processing failed, retrying on the next run", e); // keep the schedule alive
+        }
+    }
+
+    /**
+     * Processes every item that has an outbox row, one chunk of rows at a time. Only one drain may run at a time.
+     */
+    public synchronized BatchResult drain() {
+        long start = System.nanoTime();
+        long mark = checkpointRepository.findById(CHECKPOINT).map(ProcessingCheckpoint::getPosition).orElse(0L);
+
+        Totals totals = new Totals();
+        drainRange(mark, Long.MAX_VALUE, true, totals); // moves the mark with every chunk
+        if (mark > 0) {
+            drainRange(0L, mark, false, totals); // rows that committed below the mark, and earlier failures
+        }
+
+        return new BatchResult(totals.processed, totals.notFound, totals.failed, totals.chunks, false,
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    // drains the rows with after < id <= upTo
+    private void drainRange(long after, long upTo, boolean advancesMark, Totals totals) {
+        long position = after;
+        while (true) {
+            long from = position;
+            List<ItemChange> claimed = new ArrayList<>(); // still known when the transaction rolls back
+            long chunkStart = System.nanoTime();
+            List<Item> items;
+            try {
+                items = transactionTemplate.execute(tx -> {
+                    List<ItemChange> changes = changeRepository.lockNext(from, upTo, chunkSize);
+                    claimed.addAll(changes);
+                    if (changes.isEmpty()) {
+                        return List.of();
+                    }
+                    List<Item> processed = batchProcessor.processChunk(itemIds(changes));
+                    changeRepository.deleteAllInBatch(changes);
+                    return processed;
+                });
+            } catch (RuntimeException e) {
+                if (claimed.isEmpty()) {
+                    throw e; // reading the outbox failed, nothing to skip
+                }
+                // rolled back, the rows are back in the outbox
+                log.warn("Incremental chunk of changes {}..{} failed, processing its items one by one: {}",
+                        claimed.get(0).getId(), claimed.get(claimed.size() - 1).getId(), e.toString());
+                items = null;
+            }
+            if (claimed.isEmpty()) {
+                return;
+            }
+
+            totals.chunks++;
+            if (items != null) {
+                List<Long> itemIds = itemIds(claimed);
+                itemCache.invalidateAll(itemIds);
+                batchProcessor.refreshSearchIndex(itemIds);
+                int missing = itemIds.size() - items.size(); // deleted, or processed by another run in the meantime
+                metrics.chunkCommitted(items.size(), missing, System.nanoTime() - chunkStart);
+                totals.processed += items.size();
+                totals.notFound += missing;
+            } else {
+                drainOneByOne(claimed, chunkStart, totals);
+            }
+            if (advancesMark) {
+                // rows of items that failed on a database error are picked up below the mark next time
+                advanceCheckpoint(claimed.get(claimed.size() - 1).getId());
+            }
+
+            if (claimed.size() < chunkSize) {
+                return;
+            }
+            position = claimed.get(claimed.size() - 1).getId();
+        }
+    }
+
+    // the chunk's rows whose items went through are reported as one committed chunk, like in the pipeline
+    private void drainOneByOne(List<ItemChange> claimed, long chunkStart, Totals totals) {
+        Map<Long, List<Long>> changeIdsByItem = claimed.stream().collect(Collectors.groupingBy(
+                ItemChange::getItemId, LinkedHashMap::new, Collectors.mapping(ItemChange::getId, Collectors.toList())));
+        int[] written = new int[2]; // processed, not found
+        List<Long> refreshed = new ArrayList<>();
+        changeIdsByItem.forEach((itemId, changeIds) -> {
+            try {
+                List<Item> items = transactionTemplate.execute(tx -> {
+                    List<ItemChange> changes = changeRepository.lockAll(changeIds);
+                    if (changes.isEmpty()) {
+                        return null; // another node consumed them in between
+                    }
+                    List<Item> processed = batchProcessor.processChunk(List.of(itemId));
+                    changeRepository.deleteAllInBatch(changes);
+                    return processed;
+                });
+                if (items != null) {
+                    itemCache.invalidate(itemId);
+                    refreshed.add(itemId);
+                    written[0] += items.size();
+                    written[1] += 1 - items.size();
+                }
+            } catch (DataAccessException | TransactionException e) {
+                log.warn("Incremental processing of item {} failed, its changes stay for the next run: {}",
+                        itemId, e.toString());
+                metrics.itemsFailed(1);
+                totals.failed++;
+            } catch (RuntimeException e) {
+                deadLetter(itemId, changeIds, e);
+                totals.failed++;
+            }
+        });
+        batchProcessor.refreshSearchIndex(refreshed);
+        metrics.chunkCommitted(written[0], written[1], System.nanoTime() - chunkStart);
+        totals.processed += written[0];
+        totals.notFound += written[1];
+    }
+
+    // the item's rows go with the dead letter; if storing it fails they stay and the item is retried next run
+    private void deadLetter(Long itemId, List<Long> changeIds, RuntimeException cause) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                List<ItemChange> changes = changeRepository.lockAll(changeIds);
+                if (changes.isEmpty()) {
+                    return;
+                }
+                deadLetterRepository.save(new DeadLetterItem(itemId, "process", DeadLetterItem.error(cause), 1,
+                        Instant.now()));
+                changeRepository.deleteAllInBatch(changes);
+            });
+            metrics.deadLettered(1);
+            log.warn("Item {} dead-lettered by incremental processing: {}", itemId, cause.toString());
+        } catch (RuntimeException e) {
+            metrics.itemsFailed(1);
+            log.warn("Could not dead-letter item {}, its changes stay for the next run: {}", itemId, e.toString());
+        }
+    }
+
+    // an item written several times since the last run is processed once
+    private static List<Long> itemIds(List<ItemChange> changes) {
+        return changes.stream().map(ItemChange::getItemId).distinct().toList();
+    }
+
+    // a short transaction of its own; the first node to get here creates the row
+    private void advanceCheckpoint(long position) {
+        try {
+            if (checkpointRepository.advance(CHECKPOINT, position, Instant.now()) == 0
+                    && !checkpointRepository.existsById(CHECKPOINT)) {
+                checkpointRepository.saveAndFlush(new ProcessingCheckpoint(CHECKPOINT, position, Instant.now()));
+            }
+        } catch (DataIntegrityViolationException e) {
+            checkpointRepository.advance(CHECKPOINT, position, Instant.now()); // another node created it first
+        }
+    }
+
+    private static final class Totals {
+        private long processed;
+        private long notFound;
+        private long failed;
+        private int chunks;
+    }
+}
@@ -0,0 +1,183 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Processes the pending items (every status but {@link ItemStatus#PROCESSED}) in fixed size chunks instead of
+ * one task per id.
+ * <p>
+ * Ids are paged per pending status with a keyset query on the (status, id) index (id greater than the last id
+ * of the previous chunk), so a run only reads rows that still need work and a repeat run over an already
+ * processed table costs one empty index lookup per status. Every chunk
+ * is loaded with a single findAllById and written back in its own transaction, so Hibernate flushes
+ * the status updates as one JDBC batch. Only one chunk lives in the persistence context at a time,
+ * which keeps the heap flat no matter how many rows the table has.
+ */
+@Slf4j
+@Component
+public class ItemBatchProcessor {
+
+    private final ItemRepository itemRepository;
+    private final ItemCache itemCache;
+    private final ItemSearchIndex searchIndex;
+    private final ItemProcessors processors;
+    private final ItemProcessingMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public ItemBatchProcessor(ItemRepository itemRepository,
+                              ItemCache itemCache,
+                              ItemSearchIndex searchIndex,
+                              ItemProcessors processors,
+                              ItemProcessingMetrics metrics,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${item.processing.chunk-size:500}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("item.processing.chunk-size must be positive, was " + chunkSize);
+        }
+        this.itemRepository = itemRepository;
+        this.itemCache = itemCache;
+        this.searchIndex = searchIndex;
+        this.processors = processors;
+        this.metrics = metrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Marks every pending item as processed, chunk by chunk.
+     *
+     * @param listener receives the items of each chunk after its transaction committed,
+     *                 or the ids of a chunk whose transaction failed
+     */
+    public BatchResult process(ChunkListener listener) {
+        return process(listener, () -> false);
+    }
+
+    /**
+     * Same as {@link #process(ChunkListener)}, but stops before the next chunk once {@code cancelled} is true.
+     * A chunk that already started is always committed completely.
+     */
+    public BatchResult process(ChunkListener listener, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        try {
+            BatchResult result = processChunks(listener, cancelled, start);
+            metrics.runFinished(result.cancelled() ? "cancelled" : "completed", result.elapsed().toNanos());
+            return result;
+        } catch (RuntimeException e) {
+            metrics.runFinished("error", System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private BatchResult processChunks(ChunkListener listener, BooleanSupplier cancelled, long start) {
+        long processed = 0;
+        long notFound = 0;
+        long failed = 0;
+        int chunks = 0;
+        boolean stopped = false;
+
+        statuses:
+        for (ItemStatus status : ItemStatus.pending()) {
+            Long lastId = Long.MIN_VALUE;
+            while (true) {
+                if (cancelled.getAsBoolean()) {
+                    stopped = true;
+                    break statuses;
+                }
+
+                List<Long> ids = itemRepository.findIdsByStatus(status, lastId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+
+                chunks++;
+                long chunkStart = System.nanoTime();
+                List<Item> items;
+                try {
+                    items = transactionTemplate.execute(tx -> processChunk(ids));
+                } catch (RuntimeException e) {
+                    // the chunk was rolled back, the remaining chunks are independent of it
+                    log.warn("Processing chunk {}..{} failed: {}", ids.get(0), ids.get(ids.size() - 1), e.toString());
+                    metrics.chunkFailed(ids.size(), System.nanoTime() - chunkStart);
+                    failed += ids.size();
+                    listener.onChunkFailed(ids, e);
+                    items = null;
+                }
+
+                if (items != null) {
+                    itemCache.invalidateAll(ids); // committed, cached copies still have the old status
+                    refreshSearchIndex(ids);
+                    int missing = ids.size() - items.size(); // deleted or processed between paging and loading
+                    metrics.chunkCommitted(items.size(), missing, System.nanoTime() - chunkStart);
+                    processed += items.size();
+                    notFound += missing;
+                    listener.onChunk(items, missing);
+                }
+
+                if (ids.size() < chunkSize) {
+                    break; // last (partial) page of this status, no need for another round trip
+                }
+                lastId = ids.get(ids.size() - 1);
+            }
+        }
+
+        return new BatchResult(processed, notFound, failed, chunks, stopped,
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    // after commit, processors may have changed name and description; also used by the IncrementalItemProcessor
+    void refreshSearchIndex(Collection<Long> ids) {
+        try {
+            searchIndex.refresh(ids);
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh the search index for processed items: {}", e.toString()); // stale, not wrong
+        }
+    }
+
+    // processes the given items inside the caller's transaction, also used by the IncrementalItemProcessor;
+    // an item that fails processing fails (rolls back) the whole chunk, there are no dead letters on this path
+    // (the IncrementalItemProcessor retries a failed chunk item by item and dead-letters the ones that still fail).
+    // Like the pipeline's write stage it skips items that are no longer pending: an outbox row outlives the
+    // partitioned or pipeline run that processed its item. One that gets processed concurrently fails the
+    // version check on commit. Deleted and skipped items are both missing from the result
+    List<Item> processChunk(List<Long> ids) {
+        List<Item> items = itemRepository.findAllById(ids).stream()
+                .filter(item -> ItemStatus.pending().contains(item.getStatus()))
+                .toList();
+        processors.process(items).values().stream().findFirst().ifPresent(error -> {
+            throw error;
+        });
+        // the entities are managed, so the updates are flushed together on commit (hibernate.jdbc.batch_size)
+        return itemRepository.saveAll(items);
+    }
+
+    /**
+     * Callback for the chunks of a run, invoked on the thread that runs {@link #process}.
+     */
+    @FunctionalInterface
+    public interface ChunkListener {
+
+        void onChunk(List<Item> processed, int notFound);
+
+        default void onChunkFailed(List<Long> ids, RuntimeException cause) {
+        }
+    }
+}
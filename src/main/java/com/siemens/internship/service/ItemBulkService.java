@@ -0,0 +1,328 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.BulkResult;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemRequest;
+import com.siemens.internship.repository.ItemRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk create, update and delete.
+ * <p>
+ * The input is consumed as an iterator, so a streamed request body is never held in memory as a whole. Elements
+ * are validated one by one, the valid ones are written in chunks, each in its own transaction, so Hibernate sends
+ * them as JDBC batches. A chunk that fails to commit is written again one element per transaction, so only the
+ * elements the database rejects are reported as failed; the other chunks are unaffected.
+ */
+@Slf4j
+@Service
+public class ItemBulkService {
+
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ItemRepository itemRepository;
+    private final ItemCache itemCache;
+    private final ItemChangeLog changeLog;
+    private final ItemSearchIndex searchIndex;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public ItemBulkService(ItemRepository itemRepository,
+                           ItemCache itemCache,
+                           ItemChangeLog changeLog,
+                           ItemSearchIndex searchIndex,
+                           Validator validator,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${item.bulk.chunk-size:500}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("item.bulk.chunk-size must be positive, was " + chunkSize);
+        }
+        this.itemRepository = itemRepository;
+        this.itemCache = itemCache;
+        this.changeLog = changeLog;
+        this.searchIndex = searchIndex;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkResult create(Iterator<Item> items) {
+        return write(items, item -> item.getId() == null ? null : "id must not be set on create", this::insert);
+    }
+
+    /**
+     * Same rules as a single PUT: the id is required, non-null fields overwrite the stored ones.
+     */
+    public BulkResult update(Iterator<Item> items) {
+        return write(items, item -> item.getId() != null ? null : "id is required on update", this::merge);
+    }
+
+    public BulkResult delete(Iterator<Long> ids) {
+        Report report = new Report();
+        List<Indexed<Long>> chunk = new ArrayList<>(chunkSize);
+        Input<Long> input = new Input<>(ids);
+        int index = 0;
+        while (input.next()) {
+            Long id = input.current();
+            if (id == null) {
+                report.fail(index, null, List.of("id is required on delete"));
+            } else {
+                chunk.add(new Indexed<>(index, id, id));
+            }
+            index++;
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, report, this::remove);
+            }
+        }
+        input.reportError(index, report);
+        writeChunk(chunk, report, this::remove);
+        return report.result();
+    }
+
+    private BulkResult write(Iterator<Item> items, Function<Item, String> idRule,
+                             Function<List<Indexed<Item>>, Map<Integer, Outcome>> writer) {
+        Report report = new Report();
+        List<Indexed<Item>> chunk = new ArrayList<>(chunkSize);
+        Input<Item> input = new Input<>(items);
+        int index = 0;
+        while (input.next()) {
+            Item item = input.current();
+            List<String> errors = validate(item);
+            String idError = idRule.apply(item);
+            if (idError != null) {
+                errors.add(idError);
+            }
+            if (errors.isEmpty()) {
+                chunk.add(new Indexed<>(index, item.getId(), item));
+            } else {
+                report.fail(index, item.getId(), errors);
+            }
+            index++;
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, report, writer);
+            }
+        }
+        input.reportError(index, report);
+        writeChunk(chunk, report, writer);
+        return report.result();
+    }
+
+    // writes the chunk in one transaction and clears it; the writer returns the outcome per request index,
+    // elements without one were not found
+    private <T> void writeChunk(List<Indexed<T>> chunk, Report report,
+                                Function<List<Indexed<T>>, Map<Integer, Outcome>> writer) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        if (!tryWriteChunk(chunk, report, writer)) {
+            // one bad element rolled back the whole chunk, find it by writing the elements one by one
+            for (Indexed<T> element : chunk) {
+                if (!tryWriteChunk(List.of(element), report, writer)) {
+                    report.fail(element.index(), element.id(), List.of("write failed"));
+                }
+            }
+        }
+        chunk.clear();
+    }
+
+    // false if the transaction failed, nothing was reported for the chunk then
+    private <T> boolean tryWriteChunk(List<Indexed<T>> chunk, Report report,
+                                      Function<List<Indexed<T>>, Map<Integer, Outcome>> writer) {
+        try {
+            Map<Integer, Outcome> outcomes = transactionTemplate.execute(status -> writer.apply(chunk));
+            List<Long> written = outcomes.values().stream().map(Outcome::id).toList();
+            itemCache.invalidateAll(written);
+            searchIndex.refresh(written); // one SELECT for the chunk, deleted ids drop out of the index
+            for (Indexed<T> element : chunk) {
+                Outcome outcome = outcomes.get(element.index());
+                if (outcome == null) {
+                    report.fail(element.index(), element.id(), List.of("item not found"));
+                } else if (outcome.error() != null) {
+                    report.fail(element.index(), element.id(), List.of(outcome.error()));
+                } else {
+                    report.succeed(outcome.id());
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // the database's message names tables and constraints, the client only gets "write failed"
+            log.warn("Bulk write of {} item(s) starting at element {} failed", chunk.size(), chunk.get(0).index(), e);
+            return false;
+        }
+    }
+
+    // new entities, so a chunk that is written again after a rollback doesn't carry the ids and versions the
+    // failed attempt assigned
+    private Map<Integer, Outcome> insert(List<Indexed<Item>> chunk) {
+        List<Item> saved = itemRepository.saveAll(chunk.stream()
+                .map(Indexed::value)
+                .map(item -> new Item(null, item.getName(), item.getDescription(), item.getStatus(), item.getEmail()))
+                .toList());
+        Map<Integer, Outcome> outcomes = new HashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            outcomes.put(chunk.get(i).index(), Outcome.written(saved.get(i).getId()));
+        }
+        changeLog.record(saved.stream().map(Item::getId).toList());
+        return outcomes;
+    }
+
+    private Map<Integer, Outcome> merge(List<Indexed<Item>> chunk) {
+        Map<Long, Item> stored = itemRepository.findAllById(chunk.stream().map(Indexed::id).toList())
+                .stream().collect(Collectors.toMap(Item::getId, Function.identity()));
+        Map<Integer, Outcome> outcomes = new HashMap<>();
+        List<Long> updated = new ArrayList<>();
+        for (Indexed<Item> element : chunk) {
+            Item changes = element.value();
+            Item target = stored.get(element.id());
+            if (target == null) {
+                continue;
+            }
+            // same rule as PUT/PATCH: a version in the request has to match the stored one
+            if (changes.getVersion() != null && !changes.getVersion().equals(target.getVersion())) {
+                outcomes.put(element.index(), Outcome.failed(target.getId(), "version conflict, stored version is "
+                        + target.getVersion()));
+                continue;
+            }
+            if (changes.getName() != null) {
+                target.setName(changes.getName());
+            }
+            if (changes.getDescription() != null) {
+                target.setDescription(changes.getDescription());
+            }
+            if (changes.getStatus() != null) {
+                target.setStatus(changes.getStatus());
+            }
+            if (changes.getEmail() != null) {
+                target.setEmail(changes.getEmail());
+            }
+            outcomes.put(element.index(), Outcome.written(target.getId()));
+            updated.add(target.getId());
+        }
+        changeLog.record(updated);
+        // managed entities, flushed as a batch of versioned UPDATEs on commit
+        return outcomes;
+    }
+
+    private Map<Integer, Outcome> remove(List<Indexed<Long>> chunk) {
+        Set<Long> existing = Set.copyOf(itemRepository.findExistingIds(chunk.stream().map(Indexed::id).toList()));
+        if (!existing.isEmpty()) {
+            itemRepository.deleteAllByIdInBatch(existing); // a single DELETE ... WHERE id IN (...)
+        }
+        Map<Integer, Outcome> outcomes = new HashMap<>();
+        for (Indexed<Long> element : chunk) {
+            if (existing.contains(element.id())) {
+                outcomes.put(element.index(), Outcome.written(element.id()));
+            }
+        }
+        return outcomes;
+    }
+
+    // the entity's annotations plus the VARCHAR(255) columns, which only ItemRequest checks for single writes
+    private List<String> validate(Item item) {
+        Set<ConstraintViolation<Item>> violations = validator.validate(item);
+        List<String> errors = new ArrayList<>(violations.size());
+        for (ConstraintViolation<Item> violation : violations) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        checkLength("name", item.getName(), errors);
+        checkLength("description", item.getDescription(), errors);
+        checkLength("email", item.getEmail(), errors);
+        return errors;
+    }
+
+    private static void checkLength(String field, String value, List<String> errors) {
+        if (value != null && value.length() > ItemRequest.MAX_LENGTH) {
+            errors.add(field + ": must be at most " + ItemRequest.MAX_LENGTH + " characters");
+        }
+    }
+
+    // element of the request body with its position, and the id it refers to (null for creates)
+    private record Indexed<T>(int index, Long id, T value) {
+    }
+
+    // what happened to one element of a chunk, error is null if it was written
+    private record Outcome(Long id, String error) {
+
+        static Outcome written(Long id) {
+            return new Outcome(id, null);
+        }
+
+        static Outcome failed(Long id, String error) {
+            return new Outcome(id, error);
+        }
+    }
+
+    // Reading the request body can fail half way (malformed JSON, wrong types). The elements read until then are
+    // still written, the broken one is reported and the rest of the input is skipped.
+    private static final class Input<T> {
+        private final Iterator<T> source;
+        private T current;
+        private String error;
+
+        Input(Iterator<T> source) {
+            this.source = source;
+        }
+
+        boolean next() {
+            try {
+                if (!source.hasNext()) {
+                    return false;
+                }
+                current = source.next();
+                return true;
+            } catch (RuntimeException e) {
+                error = e.getMessage();
+                return false;
+            }
+        }
+
+        T current() {
+            return current;
+        }
+
+        void reportError(int index, Report report) {
+            if (error != null) {
+                report.fail(index, null, List.of("unreadable element, the rest of the input was skipped: " + error));
+            }
+        }
+    }
+
+    private static final class Report {
+        private int succeeded;
+        private int failed;
+        private final List<Long> ids = new ArrayList<>();
+        private final List<BulkResult.Error> errors = new ArrayList<>();
+
+        void succeed(Long id) {
+            succeeded++;
+            ids.add(id);
+        }
+
+        void fail(int index, Long id, List<String> messages) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BulkResult.Error(index, id, messages));
+            }
+        }
+
+        BulkResult result() {
+            return new BulkResult(succeeded, failed, ids, errors);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.siemens.internship.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bounded read-through cache of items by id, in front of {@link ItemRepository#findById}.
+ * <p>
+ * Entries expire after a fixed time and the least valuable ones are evicted once the maximum size is reached.
+ * Concurrent misses on the same id wait for a single database load instead of each issuing their own.
+ * Missing ids are cached as well (as empty), so every write path has to call {@link #invalidate} after commit.
+ * Callers always get their own copy of a cached item, so they can modify it freely.
+ * <p>
+ * The cache is local to the node. With several replicas a write on another node is only seen here once the entry
+ * expires, so {@code item.cache.ttl} bounds how stale a read can be; read-modify-write paths read the database.
+ */
+@Component
+public class ItemCache implements MeterBinder {
+
+    private final LoadingCache<Long, Optional<Item>> cache;
+
+    @Autowired
+    public ItemCache(ItemRepository itemRepository,
+                     @Value("${item.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${item.cache.ttl:5m}") Duration ttl) {
+        this(itemRepository, maximumSize, ttl, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    // ticker and maintenance executor are only replaced by tests
+    ItemCache(ItemRepository itemRepository, long maximumSize, Duration ttl, Ticker ticker, Executor executor) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .build(id -> itemRepository.findById(id).map(Item::copy));
+    }
+
+    public Optional<Item> get(Long id) {
+        return cache.get(id).map(Item::copy);
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll(Collection<Long> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // cache.gets{result=hit|miss}, cache.evictions, cache.size, ... with tag cache=items
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "items");
+    }
+
+    public long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+}
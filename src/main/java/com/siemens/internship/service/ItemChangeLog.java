@@ -0,0 +1,37 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.ItemChange;
+import com.siemens.internship.repository.ItemChangeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Records written items in the outbox for {@link IncrementalItemProcessor}. Has to be called inside the
+ * transaction that writes the items, so an item change and its outbox row commit or roll back together.
+ */
+@Component
+public class ItemChangeLog {
+
+    private final ItemChangeRepository changeRepository;
+    private final boolean enabled;
+
+    public ItemChangeLog(ItemChangeRepository changeRepository,
+                         @Value("${item.processing.incremental.enabled:true}") boolean enabled) {
+        this.changeRepository = changeRepository;
+        this.enabled = enabled;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Collection<Long> itemIds) {
+        if (!enabled || itemIds.isEmpty()) {
+            return; // nobody drains the outbox, don't let it grow
+        }
+        Instant now = Instant.now();
+        changeRepository.saveAll(itemIds.stream().map(id -> new ItemChange(id, now)).toList());
+    }
+}
@@ -0,0 +1,90 @@
+package com.siemens.internship.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Meters of the item processing path. Everything is registered once up front, so the hot path only touches
+ * Micrometer counters and timers (adder based, no locking between processing threads).
+ * <ul>
+ *     <li>{@code item.processing.items{result=processed|failed|not_found}} items per outcome</li>
+ *     <li>{@code item.processing.retries} database attempts repeated after a transient error</li>
+ *     <li>{@code item.processing.chunk} duration of one chunk (load + update + commit), with histogram</li>
+ *     <li>{@code item.processing.chunk.size} items per committed chunk</li>
+ *     <li>{@code item.processing.run{outcome=completed|cancelled|error}} duration of a whole run</li>
+ * </ul>
+ */
+@Component
+public class ItemProcessingMetrics {
+
+    private final MeterRegistry registry;
+    private final Counter processed;
+    private final Counter failed;
+    private final Counter notFound;
+    private final Counter retries;
+    private final Timer chunkTimer;
+    private final DistributionSummary chunkSize;
+
+    public ItemProcessingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.processed = itemCounter("processed");
+        this.failed = itemCounter("failed");
+        this.notFound = itemCounter("not_found");
+        this.retries = Counter.builder("item.processing.retries")
+                .description("Database attempts repeated after a transient error")
+                .register(registry);
+        this.chunkTimer = Timer.builder("item.processing.chunk")
+                .description("Time to load, update and commit one chunk of items")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.chunkSize = DistributionSummary.builder("item.processing.chunk.size")
+                .description("Items per committed chunk")
+                .baseUnit("items")
+                .register(registry);
+    }
+
+    void chunkCommitted(int items, int missing, long nanos) {
+        processed.increment(items);
+        notFound.increment(missing);
+        chunkSize.record(items);
+        chunkTimer.record(Duration.ofNanos(nanos));
+    }
+
+    void chunkFailed(int ids, long nanos) {
+        failed.increment(ids);
+        chunkTimer.record(Duration.ofNanos(nanos));
+    }
+
+    void deadLettered(int items) {
+        failed.increment(items);
+    }
+
+    // failed on their own, outside a chunk, and left for the next run
+    void itemsFailed(int items) {
+        failed.increment(items);
+    }
+
+    void retried() {
+        retries.increment();
+    }
+
+    void runFinished(String outcome, long nanos) {
+        Timer.builder("item.processing.run")
+                .description("Duration of a whole processing run")
+                .tag("outcome", outcome)
+                .register(registry) // registered once per outcome, later calls return the same timer
+                .record(Duration.ofNanos(nanos));
+    }
+
+    private Counter itemCounter(String result) {
+        return Counter.builder("item.processing.items")
+                .description("Items handled by processing runs")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,666 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.DeadLetterItem;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.DeadLetterItemRepository;
+import com.siemens.internship.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Processes the pending items in three stages connected by bounded queues of chunks:
+ * <ol>
+ *     <li>fetch (the calling thread) pages the pending ids like the {@link ItemBatchProcessor} and loads each chunk</li>
+ *     <li>process ({@code item.processing.pipeline.workers} threads) hands each chunk to the {@link ItemProcessors},
+ *     which spread it over their own pools</li>
+ *     <li>persist (one thread) buffers the processed chunks and writes the buffer back as one JDBC batch in one
+ *     transaction</li>
+ * </ol>
+ * A stage that gets ahead blocks on the full queue in front of the next one, so a slow database slows fetching
+ * down instead of piling chunks up on the heap: no more than {@code 2 * queue-capacity + workers + 2} chunks and
+ * the persist buffer are in flight at any time.
+ * <p>
+ * Transient database errors are retried with backoff ({@link TransientRetry}). A chunk that can't be written
+ * falls back to writing its items one by one, each with its own retries, so one bad item doesn't take its chunk
+ * down. Items that still fail are stored as {@link DeadLetterItem}s. Every item of a run is reported as exactly
+ * one {@link ItemResult}; only errors that can't be pinned on items (paging the ids, storing dead letters) fail
+ * the run as a whole.
+ * <p>
+ * The persist buffer is a write-behind per run: it collects up to {@code flush-size} items (several chunks) and is
+ * flushed once it is full, once its oldest item waited {@code flush-interval}, and always before the run returns.
+ * An item fetched twice in a run (its status changed in between) is written and reported once, in its last state.
+ * Results are only reported after their flush committed. On shutdown running runs stop fetching and flush what
+ * they have before the context closes ({@code spring.lifecycle.timeout-per-shutdown-phase}); if a run fails,
+ * whatever was still buffered stays pending for the next run.
+ */
+@Slf4j
+@Component
+public class ItemProcessingPipeline implements SmartLifecycle {
+
+    // rows changed or deleted since they were fetched are left alone here and go through the per-item path;
+    // name, description and email are written too because ItemProcessors may have changed them
+    static final String UPDATE_PROCESSED = "UPDATE item SET name = ?, description = ?, email = ?, status = ?, "
+            + "version = version + 1 WHERE id = ? AND version = ?";
+
+    private static final Batch END = new Batch(List.of(), List.of(), List.of());
+    private static final long POLL_MILLIS = 100;
+
+    private final ItemRepository itemRepository;
+    private final DeadLetterItemRepository deadLetterRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ItemCache itemCache;
+    private final ItemSearchIndex searchIndex;
+    private final ItemProcessors processors;
+    private final ItemProcessingMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final TransientRetry retry;
+    private final int chunkSize;
+    private final int workers;
+    private final int queueCapacity;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final AtomicInteger activeRuns = new AtomicInteger();
+    private volatile boolean stopping;
+    private volatile boolean running;
+
+    public ItemProcessingPipeline(ItemRepository itemRepository,
+                                  DeadLetterItemRepository deadLetterRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  ItemCache itemCache,
+                                  ItemSearchIndex searchIndex,
+                                  ItemProcessors processors,
+                                  ItemProcessingMetrics metrics,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${item.processing.chunk-size:500}") int chunkSize,
+                                  @Value("${item.processing.pipeline.workers:2}") int workers,
+                                  @Value("${item.processing.pipeline.queue-capacity:4}") int queueCapacity,
+                                  @Value("${item.processing.pipeline.max-attempts:3}") int maxAttempts,
+                                  @Value("${item.processing.pipeline.backoff:50ms}") Duration backoff,
+                                  @Value("${item.processing.pipeline.flush-size:2000}") int flushSize,
+                                  @Value("${item.processing.pipeline.flush-interval:200ms}") Duration flushInterval) {
+        if (chunkSize <= 0 || workers <= 0 || queueCapacity <= 0 || flushSize <= 0) {
+            throw new IllegalArgumentException("chunk size, workers, queue capacity and flush size must be positive, were "
+                    + chunkSize + ", " + workers + ", " + queueCapacity + ", " + flushSize);
+        }
+        this.itemRepository = itemRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.itemCache = itemCache;
+        this.searchIndex = searchIndex;
+        this.processors = processors;
+        this.metrics = metrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retry = new TransientRetry(maxAttempts, backoff, metrics::retried);
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.flushSize = flushSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+    }
+
+    /**
+     * Processes every pending item.
+     *
+     * @param listener receives the result of every item, always on the persist thread and one at a time
+     * @throws RuntimeException if the run failed as a whole, the items it didn't reach stay pending
+     */
+    public BatchResult run(Consumer<ItemResult> listener) {
+        return run(listener, () -> false);
+    }
+
+    /**
+     * Same as {@link #run(Consumer)}, but stops fetching once {@code cancelled} is true.
+     * Chunks that were already fetched are still processed and written.
+     */
+    public BatchResult run(Consumer<ItemResult> listener, BooleanSupplier cancelled) {
+        return run(Long.MIN_VALUE, Long.MAX_VALUE, () -> { }, listener, cancelled);
+    }
+
+    /**
+     * Same as {@link #run(Consumer, BooleanSupplier)}, restricted to the ids with {@code after < id < before}.
+     *
+     * @param writeGuard runs first in every transaction that writes items; if it throws, nothing of that
+     *                   transaction is written and the run fails with its exception (transient errors are retried)
+     */
+    public BatchResult run(long after, long before, Runnable writeGuard, Consumer<ItemResult> listener,
+                           BooleanSupplier cancelled) {
+        try (Stages stages = stages()) {
+            return run(stages, after, before, writeGuard, listener, cancelled);
+        }
+    }
+
+    /**
+     * Same as {@link #run(long, long, Runnable, Consumer, BooleanSupplier)} on stage threads that outlive the run,
+     * for callers that run many small ranges one after the other.
+     */
+    public BatchResult run(Stages stages, long after, long before, Runnable writeGuard, Consumer<ItemResult> listener,
+                           BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        activeRuns.incrementAndGet();
+        try {
+            BatchResult result = new Run(stages, after, before, writeGuard, listener,
+                    () -> stopping || cancelled.getAsBoolean()).execute(start);
+            metrics.runFinished(result.cancelled() ? "cancelled" : "completed", result.elapsed().toNanos());
+            return result;
+        } catch (RuntimeException e) {
+            metrics.runFinished("error", System.nanoTime() - start);
+            throw e;
+        } finally {
+            activeRuns.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stage threads (and whether there are dead letters to clear) for the runs of one job, so that a run over a
+     * small range only costs its queries. The runs on one {@code Stages} must not overlap. Closing it stops the
+     * threads.
+     */
+    public Stages stages() {
+        return new Stages();
+    }
+
+    @Override
+    public void start() {
+        stopping = false;
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        stopping = true;
+        awaitRuns();
+        running = false;
+    }
+
+    // called before any bean is destroyed: running runs see stopping as cancelled, write what they fetched and
+    // flush their buffers; the lifecycle processor waits for the callback up to its shutdown phase timeout
+    @Override
+    public void stop(Runnable callback) {
+        stopping = true;
+        Thread.ofPlatform().name("ItemPipeline-shutdown").start(() -> {
+            awaitRuns();
+            running = false;
+            callback.run();
+        });
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void awaitRuns() {
+        try {
+            while (activeRuns.get() > 0) {
+                Thread.sleep(POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int[] writeChunk(List<Item> items) {
+        return jdbcTemplate.batchUpdate(UPDATE_PROCESSED, items.stream()
+                .map(item -> new Object[]{item.getName(), item.getDescription(), item.getEmail(),
+                        item.getStatus().name(), item.getId(), item.getVersion()})
+                .toList());
+    }
+
+    // re-reads the row, so an item that changed since it was fetched is processed in its current state,
+    // and one that was processed in the meantime (e.g. by another node) is not processed twice
+    private boolean writeItem(Long id) {
+        return itemRepository.findById(id)
+                .filter(item -> ItemStatus.pending().contains(item.getStatus()))
+                .map(item -> {
+                    processors.process(item);
+                    return true;
+                }).orElse(false);
+    }
+
+    /**
+     * One chunk on its way through the stages.
+     *
+     * @param notFound ids that were paged but deleted before the chunk was loaded
+     * @param failures items that already failed for good in an earlier stage
+     */
+    private record Batch(List<Item> items, List<Long> notFound, List<Failure> failures) {
+    }
+
+    private record Failure(Long itemId, String stage, int attempts, Throwable cause) {
+
+        String message() {
+            return DeadLetterItem.error(cause);
+        }
+    }
+
+    // the write guard refused a transaction, carries the guard's exception
+    private static final class WriteRefused extends RuntimeException {
+
+        WriteRefused(RuntimeException cause) {
+            super(cause.toString(), cause);
+        }
+    }
+
+    // thrown inside a stage once the run is failing, ends the stage without being reported itself
+    private static final class Aborted extends RuntimeException {
+
+        Aborted() {
+            super(null, null, false, false);
+        }
+    }
+
+    public final class Stages implements AutoCloseable {
+
+        private final ExecutorService executor = Executors.newFixedThreadPool(workers + 1,
+                Thread.ofPlatform().name("ItemPipeline-", 0).factory());
+        // skips the delete per chunk in the usual case; dead letters of this job are of items it won't see again
+        private final boolean clearDeadLetters = deadLetterRepository.count() > 0;
+
+        private Stages() {
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+
+    private final class Run {
+
+        private final Stages stages;
+        private final long after;
+        private final long before;
+        private final Runnable writeGuard;
+        private final Consumer<ItemResult> listener;
+        private final BooleanSupplier cancelled;
+        private final BlockingQueue<Batch> fetched = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<Batch> processed = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicInteger runningWorkers = new AtomicInteger(workers);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // write-behind buffer, only used by the persist thread
+        private final Map<Long, Item> bufferedItems = new LinkedHashMap<>();
+        private final Set<Long> bufferedNotFound = new LinkedHashSet<>();
+        private final Map<Long, Failure> bufferedFailures = new LinkedHashMap<>();
+        private long firstBufferedAt;
+
+        // only written by the persist thread, read once it finished
+        private long processedCount;
+        private long notFoundCount;
+        private long failedCount;
+        private int chunks;
+
+        Run(Stages stages, long after, long before, Runnable writeGuard, Consumer<ItemResult> listener,
+            BooleanSupplier cancelled) {
+            this.stages = stages;
+            this.after = after;
+            this.before = before;
+            this.writeGuard = writeGuard;
+            this.listener = listener;
+            this.cancelled = cancelled;
+        }
+
+        BatchResult execute(long start) {
+            List<Future<?>> running = new ArrayList<>(workers + 1);
+            boolean stopped = false;
+            try {
+                for (int i = 0; i < workers; i++) {
+                    running.add(stages.executor.submit(() -> guarded(this::processStage)));
+                }
+                Future<?> persist = stages.executor.submit(() -> guarded(this::persistStage));
+                running.add(persist);
+
+                try {
+                    stopped = fetchStage();
+                    put(fetched, END);
+                } catch (Aborted e) {
+                    fail(new IllegalStateException("Processing run was interrupted")); // no-op if a stage failed
+                } catch (RuntimeException e) {
+                    fail(e);
+                }
+
+                try {
+                    persist.get(); // every chunk that made it into the pipeline is written (or the run failed)
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    fail(new IllegalStateException("Processing run was interrupted"));
+                } catch (ExecutionException e) {
+                    fail(e.getCause());
+                }
+            } finally {
+                running.forEach(stage -> stage.cancel(true)); // wakes up stages still waiting on a queue after a failure
+            }
+
+            Throwable error = failure.get();
+            if (error instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (error != null) {
+                throw new IllegalStateException("Processing run failed", error);
+            }
+            return new BatchResult(processedCount, notFoundCount, failedCount, chunks, stopped,
+                    Duration.ofNanos(System.nanoTime() - start));
+        }
+
+        private boolean fetchStage() {
+            for (ItemStatus status : ItemStatus.pending()) {
+                Long lastId = after;
+                while (true) {
+                    if (cancelled.getAsBoolean()) {
+                        return true;
+                    }
+                    Long from = lastId;
+                    List<Long> ids = retry.call(() -> itemRepository.findIdsByStatusBetween(status, from, before,
+                            PageRequest.of(0, chunkSize))).value();
+                    if (ids.isEmpty()) {
+                        break;
+                    }
+                    put(fetched, load(ids));
+                    if (ids.size() < chunkSize) {
+                        break;
+                    }
+                    lastId = ids.get(ids.size() - 1);
+                }
+            }
+            return false;
+        }
+
+        private Batch load(List<Long> ids) {
+            try {
+                List<Item> items = retry.call(() -> itemRepository.findAllById(ids)).value();
+                Set<Long> found = items.stream().map(Item::getId).collect(Collectors.toSet());
+                return new Batch(items, ids.stream().filter(id -> !found.contains(id)).toList(), List.of());
+            } catch (TransientRetry.AttemptsFailedException e) {
+                // the ids are known, so this chunk is dead-lettered and the run goes on with the next one
+                return new Batch(List.of(), List.of(), ids.stream()
+                        .map(id -> new Failure(id, "fetch", e.getAttempts(), e.getCause()))
+                        .toList());
+            }
+        }
+
+        private void processStage() {
+            while (true) {
+                Batch batch = take(fetched);
+                if (batch == END) {
+                    put(fetched, END); // for the other workers
+                    if (runningWorkers.decrementAndGet() == 0) {
+                        put(processed, END);
+                    }
+                    return;
+                }
+                Map<Long, RuntimeException> errors = processors.process(batch.items());
+                List<Item> items = new ArrayList<>(batch.items().size());
+                List<Failure> failures = new ArrayList<>(batch.failures());
+                for (Item item : batch.items()) {
+                    RuntimeException error = errors.get(item.getId());
+                    if (error == null) {
+                        items.add(item);
+                    } else {
+                        failures.add(new Failure(item.getId(), "process", 1, error)); // not a database error, no retry
+                    }
+                }
+                put(processed, new Batch(items, batch.notFound(), failures));
+            }
+        }
+
+        private void persistStage() {
+            while (true) {
+                Batch batch = poll(processed, flushDueAt());
+                if (batch == END) {
+                    flush();
+                    return;
+                }
+                if (batch != null) {
+                    buffer(batch);
+                }
+                if (bufferedCount() >= flushSize || System.nanoTime() - flushDueAt() >= 0) {
+                    flush();
+                }
+            }
+        }
+
+        // the latest state of an id wins, whatever the buffer had for it before is dropped
+        private void buffer(Batch batch) {
+            chunks++;
+            if (bufferedCount() == 0) {
+                firstBufferedAt = System.nanoTime();
+            }
+            for (Item item : batch.items()) {
+                bufferedNotFound.remove(item.getId());
+                bufferedFailures.remove(item.getId());
+                bufferedItems.put(item.getId(), item);
+            }
+            for (Long id : batch.notFound()) {
+                bufferedItems.remove(id);
+                bufferedFailures.remove(id);
+                bufferedNotFound.add(id);
+            }
+            for (Failure failure : batch.failures()) {
+                bufferedItems.remove(failure.itemId());
+                bufferedNotFound.remove(failure.itemId());
+                bufferedFailures.put(failure.itemId(), failure);
+            }
+        }
+
+        private int bufferedCount() {
+            return bufferedItems.size() + bufferedNotFound.size() + bufferedFailures.size();
+        }
+
+        // an empty buffer is never due
+        private long flushDueAt() {
+            return bufferedCount() == 0 ? System.nanoTime() + flushIntervalNanos : firstBufferedAt + flushIntervalNanos;
+        }
+
+        private void flush() {
+            if (bufferedCount() == 0) {
+                return;
+            }
+            long flushStart = System.nanoTime();
+            List<Item> items = new ArrayList<>(bufferedItems.values());
+            List<ItemResult> results = new ArrayList<>(bufferedCount());
+            List<Failure> failures = new ArrayList<>(bufferedFailures.values());
+            List<Item> oneByOne = new ArrayList<>();
+
+            if (!items.isEmpty()) {
+                try {
+                    TransientRetry.Attempted<int[]> written = retry.call(() -> guarded(() -> writeChunk(items)));
+                    for (int i = 0; i < items.size(); i++) {
+                        if (written.value()[i] == 0) {
+                            oneByOne.add(items.get(i)); // changed or deleted since it was fetched
+                        } else {
+                            results.add(ItemResult.processed(items.get(i).getId(), written.attempts()));
+                        }
+                    }
+                } catch (TransientRetry.AttemptsFailedException e) {
+                    rethrowIfRefused(e);
+                    log.warn("Writing items {}..{} failed after {} attempts, writing them one by one: {}",
+                            items.get(0).getId(), items.get(items.size() - 1).getId(), e.getAttempts(), e.getMessage());
+                    oneByOne.addAll(items);
+                }
+            }
+
+            for (Item item : oneByOne) {
+                try {
+                    TransientRetry.Attempted<Boolean> found = retry.call(() -> guarded(() -> writeItem(item.getId())));
+                    results.add(found.value()
+                            ? ItemResult.processed(item.getId(), found.attempts())
+                            : ItemResult.notFound(item.getId(), found.attempts()));
+                } catch (TransientRetry.AttemptsFailedException e) {
+                    rethrowIfRefused(e);
+                    failures.add(new Failure(item.getId(), "persist", e.getAttempts(), e.getCause()));
+                }
+            }
+            bufferedNotFound.forEach(id -> results.add(ItemResult.notFound(id, 1)));
+
+            List<Long> written = results.stream()
+                    .filter(result -> result.outcome() == ItemResult.Outcome.PROCESSED)
+                    .map(ItemResult::itemId)
+                    .toList();
+            if (!written.isEmpty()) {
+                itemCache.invalidateAll(written); // committed, cached copies still have the old status
+                refreshSearchIndex(written);
+                clearDeadLetters(written);
+            }
+            if (!failures.isEmpty()) {
+                results.addAll(deadLetter(failures));
+            }
+            bufferedItems.clear();
+            bufferedNotFound.clear();
+            bufferedFailures.clear();
+
+            int missing = results.size() - written.size() - failures.size();
+            metrics.chunkCommitted(written.size(), missing, System.nanoTime() - flushStart);
+            processedCount += written.size();
+            notFoundCount += missing;
+            failedCount += failures.size();
+            results.forEach(listener);
+        }
+
+        // if this fails the items stay pending and are picked up again by the next run
+        private List<ItemResult> deadLetter(List<Failure> failures) {
+            Instant now = Instant.now();
+            List<DeadLetterItem> records = failures.stream()
+                    .map(f -> new DeadLetterItem(f.itemId(), f.stage(), f.message(), f.attempts(), now))
+                    .toList();
+            retry.call(() -> deadLetterRepository.saveAll(records));
+            metrics.deadLettered(failures.size());
+            Failure first = failures.get(0);
+            log.warn("{} items dead-lettered, e.g. item {} in stage {}: {}",
+                    failures.size(), first.itemId(), first.stage(), first.message());
+            return failures.stream()
+                    .map(f -> new ItemResult(f.itemId(), ItemResult.Outcome.DEAD_LETTERED, f.attempts(), f.message()))
+                    .toList();
+        }
+
+        private <T> T guarded(Supplier<T> writes) {
+            return transactionTemplate.execute(tx -> {
+                try {
+                    writeGuard.run();
+                } catch (RuntimeException e) {
+                    throw new WriteRefused(e);
+                }
+                return writes.get();
+            });
+        }
+
+        // not the items' fault, so they are not dead-lettered: the run stops and they stay pending
+        private void rethrowIfRefused(TransientRetry.AttemptsFailedException e) {
+            if (e.getCause() instanceof WriteRefused refused) {
+                throw (RuntimeException) refused.getCause();
+            }
+        }
+
+        // processors may have changed name and description
+        private void refreshSearchIndex(List<Long> ids) {
+            try {
+                searchIndex.refresh(ids);
+            } catch (RuntimeException e) {
+                log.warn("Could not refresh the search index for processed items: {}", e.toString()); // stale, not wrong
+            }
+        }
+
+        private void clearDeadLetters(List<Long> ids) {
+            if (!stages.clearDeadLetters) {
+                return;
+            }
+            try {
+                deadLetterRepository.deleteAllByIdInBatch(ids);
+            } catch (RuntimeException e) {
+                log.warn("Could not remove dead letters of processed items: {}", e.toString()); // stale, not wrong
+            }
+        }
+
+        private void guarded(Runnable stage) {
+            try {
+                stage.run();
+            } catch (Aborted e) {
+                // another stage failed first
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }
+
+        private void fail(Throwable cause) {
+            if (failure.compareAndSet(null, cause)) {
+                log.error("Processing run failed, stopping all stages", cause);
+            }
+        }
+
+        private Batch take(BlockingQueue<Batch> queue) {
+            try {
+                Batch batch;
+                while ((batch = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                    checkNotFailed();
+                }
+                return batch;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new Aborted();
+            }
+        }
+
+        // null once deadline (System.nanoTime()) passed without a batch
+        private Batch poll(BlockingQueue<Batch> queue, long deadline) {
+            try {
+                while (true) {
+                    long remaining = deadline - System.nanoTime();
+                    Batch batch = queue.poll(Math.max(0, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POLL_MILLIS))),
+                            TimeUnit.NANOSECONDS);
+                    if (batch != null || remaining <= 0) {
+                        return batch;
+                    }
+                    checkNotFailed();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new Aborted();
+            }
+        }
+
+        private void put(BlockingQueue<Batch> queue, Batch batch) {
+            try {
+                while (!queue.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    checkNotFailed(); // backpressure: wait for the next stage, unless it is gone
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new Aborted();
+            }
+        }
+
+        private void checkNotFailed() {
+            if (failure.get() != null) {
+                throw new Aborted();
+            }
+        }
+    }
+}
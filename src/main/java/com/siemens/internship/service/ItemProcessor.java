@@ -0,0 +1,30 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+
+/**
+ * One step of what processing does to an item (normalization, hashing, validation, enrichment, ...).
+ * <p>
+ * Every bean implementing this is applied to every processed item, in {@link org.springframework.core.annotation.Order}
+ * order, before the item is marked processed. {@link ItemProcessors} runs each processor on the pool that fits its
+ * {@link #workload()}. A processor may change the item's name, description and email, they are written back together
+ * with the status. Throwing fails only that item, it is dead-lettered and later processors skip it.
+ * <p>
+ * Implementations are called from several threads at once and must be thread safe; each item is only ever
+ * handled by one thread at a time.
+ */
+public interface ItemProcessor {
+
+    void process(Item item);
+
+    default Workload workload() {
+        return Workload.CPU_BOUND;
+    }
+
+    enum Workload {
+        /** pure computation on the item, runs on the work-stealing pool sized to the cores */
+        CPU_BOUND,
+        /** waits on I/O (remote calls, files, ...), runs on a separate pool so it can't starve the cores */
+        BLOCKING
+    }
+}
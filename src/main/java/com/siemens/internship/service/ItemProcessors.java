@@ -0,0 +1,194 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Applies the {@link ItemProcessor}s to a chunk of items and marks the ones that went through as processed.
+ * <p>
+ * Consecutive processors with the same {@link ItemProcessor.Workload} form a step, the steps run one after the
+ * other over the whole chunk:
+ * <ul>
+ *     <li>CPU-bound steps run on a {@link ForkJoinPool} with one thread per core ({@code parallelism}); the chunk
+ *     is split in halves until the slices are small, idle threads steal slices from busy ones</li>
+ *     <li>blocking steps run one task per item on a fixed pool of {@code blocking-threads}, so waiting on I/O
+ *     never occupies the cores or the common pool</li>
+ * </ul>
+ * Neither pool is the {@code itemTaskExecutor}, which only runs the @Async entry points. Pool usage is published
+ * as {@code executor.*{name=itemCpuPool|itemBlockingPool}}.
+ */
+@Component
+public class ItemProcessors {
+
+    private final List<Step> steps;
+    private final ForkJoinPool cpuPool;
+    private final ExecutorService blockingPool;
+
+    public ItemProcessors(List<ItemProcessor> processors,
+                          MeterRegistry registry,
+                          @Value("${item.processing.processors.parallelism:0}") int parallelism,
+                          @Value("${item.processing.processors.blocking-threads:16}") int blockingThreads) {
+        if (parallelism < 0 || blockingThreads <= 0) {
+            throw new IllegalArgumentException("parallelism must not be negative and blocking-threads must be positive, were "
+                    + parallelism + ", " + blockingThreads);
+        }
+        this.steps = steps(processors);
+        this.cpuPool = new ForkJoinPool(parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism,
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("ItemCpu-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+        this.blockingPool = Executors.newFixedThreadPool(blockingThreads,
+                Thread.ofPlatform().name("ItemBlocking-", 0).factory());
+        new ExecutorServiceMetrics(cpuPool, "itemCpuPool", Tags.empty()).bindTo(registry);
+        new ExecutorServiceMetrics(blockingPool, "itemBlockingPool", Tags.empty()).bindTo(registry);
+    }
+
+    /**
+     * Runs every processor over the items and sets the status of those that didn't fail to {@link ItemStatus#PROCESSED}.
+     *
+     * @return the exception of every item that failed, by item id; these items are left as they were after the
+     * processor that failed
+     */
+    public Map<Long, RuntimeException> process(List<Item> items) {
+        RuntimeException[] errors = new RuntimeException[items.size()];
+        for (Step step : steps) {
+            if (step.workload() == ItemProcessor.Workload.CPU_BOUND) {
+                cpuPool.invoke(new Slice(step.processors(), items, errors, 0, items.size(), threshold(items.size())));
+            } else {
+                runBlocking(step.processors(), items, errors);
+            }
+        }
+
+        Map<Long, RuntimeException> failures = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (errors[i] == null) {
+                items.get(i).setStatus(ItemStatus.PROCESSED);
+            } else {
+                failures.put(items.get(i).getId(), errors[i]);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * {@link #process(List)} for a single item, a failure is thrown.
+     */
+    public void process(Item item) {
+        RuntimeException error = process(List.of(item)).get(item.getId());
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        cpuPool.shutdownNow();
+        blockingPool.shutdownNow();
+    }
+
+    // a few slices per core, so stealing can even out items that take longer than others
+    private int threshold(int items) {
+        return Math.max(1, items / (cpuPool.getParallelism() * 4));
+    }
+
+    private void runBlocking(List<ItemProcessor> processors, List<Item> items, RuntimeException[] errors) {
+        List<Callable<Void>> tasks = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            int index = i;
+            if (errors[index] == null) {
+                tasks.add(() -> {
+                    apply(processors, items, errors, index);
+                    return null;
+                });
+            }
+        }
+        try {
+            blockingPool.invokeAll(tasks); // apply() records the errors, the futures have nothing to report
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for blocking item processors", e);
+        }
+    }
+
+    // every index is written by exactly one task per step; invoke()/invokeAll() publish the writes to the caller
+    private static void apply(List<ItemProcessor> processors, List<Item> items, RuntimeException[] errors, int index) {
+        if (errors[index] != null) {
+            return; // failed in an earlier step
+        }
+        Item item = items.get(index);
+        try {
+            for (ItemProcessor processor : processors) {
+                processor.process(item);
+            }
+        } catch (RuntimeException e) {
+            errors[index] = e;
+        }
+    }
+
+    private static List<Step> steps(List<ItemProcessor> processors) {
+        List<Step> steps = new ArrayList<>();
+        for (ItemProcessor processor : processors) {
+            Step last = steps.isEmpty() ? null : steps.get(steps.size() - 1);
+            if (last != null && last.workload() == processor.workload()) {
+                last.processors().add(processor);
+            } else {
+                steps.add(new Step(processor.workload(), new ArrayList<>(List.of(processor))));
+            }
+        }
+        return steps;
+    }
+
+    private record Step(ItemProcessor.Workload workload, List<ItemProcessor> processors) {
+    }
+
+    private static final class Slice extends RecursiveAction {
+
+        private final List<ItemProcessor> processors;
+        private final List<Item> items;
+        private final RuntimeException[] errors;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        Slice(List<ItemProcessor> processors, List<Item> items, RuntimeException[] errors, int from, int to, int threshold) {
+            this.processors = processors;
+            this.items = items;
+            this.errors = errors;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    apply(processors, items, errors, i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Slice(processors, items, errors, from, middle, threshold),
+                    new Slice(processors, items, errors, middle, to, threshold));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.siemens.internship.service;
+
+/**
+ * What a processing run did with one item.
+ *
+ * @param attempts database attempts it took, more than one if transient errors were retried
+ * @param error    the last error, only set for {@link Outcome#DEAD_LETTERED}
+ */
+public record ItemResult(Long itemId, Outcome outcome, int attempts, String error) {
+
+    public enum Outcome {
+        PROCESSED,
+        /** deleted, or processed elsewhere, after it was paged */
+        NOT_FOUND,
+        /** failed permanently or ran out of retries, recorded as a {@link com.siemens.internship.model.DeadLetterItem} */
+        DEAD_LETTERED
+    }
+
+    static ItemResult processed(Long itemId, int attempts) {
+        return new ItemResult(itemId, Outcome.PROCESSED, attempts, null);
+    }
+
+    static ItemResult notFound(Long itemId, int attempts) {
+        return new ItemResult(itemId, Outcome.NOT_FOUND, attempts, null);
+    }
+}
@@ -0,0 +1,534 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemText;
+import com.siemens.internship.repository.ItemRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over item name and description.
+ * <p>
+ * Both fields are split into lower-cased terms (runs of letters and digits), every term maps to the sorted ids of
+ * the items containing it. A query matches the items that contain all of its terms, a term ending in {@code *}
+ * stands for every term starting with it. Hits come in id order from the {@code after} cursor on: the id lists are
+ * walked together with galloping searches, so a page costs about {@code limit} steps per term, however many items
+ * match in total. A prefix may expand to at most {@code item.search.max-expansions} terms, broader ones are rejected.
+ * <p>
+ * Built from the table in the background once the application is ready, so a large table doesn't hold up startup;
+ * until the build is done {@link #search} throws {@link NotReadyException} (503). Kept current by this node's write
+ * paths, which call {@link #index}, {@link #refresh} or {@link #remove} after commit, also while it is being built.
+ * Like the item cache it is local to the node: writes made by another replica show up here after
+ * {@link #rebuild()} (a restart).
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex implements MeterBinder {
+
+    private static final long EXHAUSTED = Long.MAX_VALUE;
+    // rows put per write lock while building, so writes and the build take turns
+    private static final int BUILD_BATCH = 1000;
+
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxExpansions;
+    private final Duration buildRetryDelay;
+    private volatile boolean ready;
+    private volatile boolean closed;
+
+    // one writer at a time, searches in parallel; everything below is only touched under this lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    // ids removed while a build runs, its older read of them must not bring them back
+    private final Set<Long> removedWhileBuilding = new HashSet<>();
+    private boolean building;
+
+    public ItemSearchIndex(ItemRepository itemRepository, PlatformTransactionManager transactionManager,
+                           @Value("${item.search.max-expansions:1024}") int maxExpansions,
+                           @Value("${item.search.build-retry-delay:5s}") Duration buildRetryDelay) {
+        if (maxExpansions <= 0) {
+            throw new IllegalArgumentException("item.search.max-expansions must be positive, was " + maxExpansions);
+        }
+        this.itemRepository = itemRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxExpansions = maxExpansions;
+        this.buildRetryDelay = buildRetryDelay;
+    }
+
+    // the web server already accepts requests, /search answers 503 until the build is done
+    @EventListener(ApplicationReadyEvent.class)
+    void buildInBackground() {
+        Thread.ofPlatform().name("ItemSearchIndex-build").daemon().start(() -> {
+            long start = System.nanoTime();
+            while (!closed) {
+                try {
+                    if (!buildIfNotReady()) {
+                        return; // built by a rebuild() call in the meantime
+                    }
+                    log.info("Search index built with {} items in {} ms", size(),
+                            Duration.ofNanos(System.nanoTime() - start).toMillis());
+                    return;
+                } catch (RuntimeException e) {
+                    if (closed) {
+                        return;
+                    }
+                    log.error("Building the search index failed, retrying in {}", buildRetryDelay, e);
+                }
+                try {
+                    Thread.sleep(buildRetryDelay);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    void close() {
+        closed = true;
+    }
+
+    private synchronized boolean buildIfNotReady() {
+        if (ready) {
+            return false;
+        }
+        rebuild();
+        return true;
+    }
+
+    /**
+     * Replaces the index with the current content of the item table, meant for startup and for rows that were written
+     * around the application (SQL imports). Searches fail with {@link NotReadyException} until it is done, writes
+     * go on and are kept. Builds don't overlap, a second caller waits for the first.
+     */
+    public synchronized void rebuild() {
+        ready = false;
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            documents.clear();
+            building = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<ItemText> items = itemRepository.streamAllText()) {
+                    List<ItemText> batch = new ArrayList<>(BUILD_BATCH);
+                    items.forEach(text -> {
+                        batch.add(text);
+                        if (batch.size() == BUILD_BATCH) {
+                            putBuilt(batch);
+                            batch.clear();
+                        }
+                    });
+                    putBuilt(batch);
+                }
+            });
+        } finally {
+            lock.writeLock().lock();
+            try {
+                building = false;
+                removedWhileBuilding.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // the item as it was just committed
+    public void index(Item item) {
+        apply(new ItemText(item.getId(), item.getVersion(), item.getName(), item.getDescription()));
+    }
+
+    /**
+     * Re-reads the items from the database after a write that did not return them (patch, bulk chunks),
+     * ids that no longer exist are removed.
+     */
+    public void refresh(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new HashSet<>(ids);
+        for (ItemText text : itemRepository.findTextByIdIn(ids)) {
+            missing.remove(text.id());
+            apply(text);
+        }
+        missing.forEach(this::remove);
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Document document = documents.remove(id);
+            if (document != null) {
+                unlink(id, document);
+            }
+            if (building) {
+                removedWhileBuilding.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param query terms separated by whitespace, {@code chai*} for a prefix
+     * @param after only ids greater than this, null to start at the first hit
+     * @return up to {@code limit} matching ids in ascending order
+     * @throws InvalidQueryException if the query has no terms or a prefix matches too many of them
+     * @throws NotReadyException if the index is still being built
+     */
+    public List<Long> search(String query, Long after, int limit) {
+        List<String> exact = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            List<String> tokens = tokens(word);
+            if (tokens.isEmpty()) {
+                continue;
+            }
+            int last = tokens.size() - 1;
+            exact.addAll(tokens.subList(0, last));
+            (word.endsWith("*") ? prefixes : exact).add(tokens.get(last));
+        }
+        if (exact.isEmpty() && prefixes.isEmpty()) {
+            throw new InvalidQueryException("Query '" + query + "' has no terms, search for letters or digits");
+        }
+        if (after != null && after == Long.MAX_VALUE) {
+            return List.of();
+        }
+        if (!ready) {
+            throw new NotReadyException();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Cursor> cursors = new ArrayList<>();
+            for (String term : exact) {
+                Postings postings = terms.get(term);
+                if (postings == null) {
+                    return List.of();
+                }
+                cursors.add(postings.cursor());
+            }
+            for (String prefix : prefixes) {
+                Cursor cursor = prefixCursor(prefix);
+                if (cursor == null) {
+                    return List.of();
+                }
+                cursors.add(cursor);
+            }
+            // rarest term first, it decides how far the others have to jump
+            cursors.sort(Comparator.comparingLong(Cursor::cost));
+            return intersect(cursors, after == null ? Long.MIN_VALUE : after + 1, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // item.search.documents and item.search.terms
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("item.search.documents", this, ItemSearchIndex::size)
+                .description("Items in the search index")
+                .register(registry);
+        Gauge.builder("item.search.terms", this, ItemSearchIndex::termCount)
+                .description("Distinct terms in the search index")
+                .register(registry);
+    }
+
+    private int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(ItemText text) {
+        lock.writeLock().lock();
+        try {
+            put(text);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // rows read by a build, possibly older than what the write paths indexed or removed since
+    private void putBuilt(List<ItemText> texts) {
+        lock.writeLock().lock();
+        try {
+            for (ItemText text : texts) {
+                if (!removedWhileBuilding.contains(text.id())) {
+                    put(text);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // caller holds the write lock
+    private void put(ItemText text) {
+        Document old = documents.get(text.id());
+        if (old != null && old.version() != null && text.version() != null && text.version() < old.version()) {
+            return; // read before a write that is already indexed
+        }
+        if (old != null) {
+            unlink(text.id(), old);
+        }
+        Set<String> words = new TreeSet<>(tokens(text.name()));
+        words.addAll(tokens(text.description()));
+        Postings[] postings = new Postings[words.size()];
+        int i = 0;
+        for (String word : words) {
+            postings[i] = terms.computeIfAbsent(word, Postings::new);
+            postings[i++].add(text.id());
+        }
+        documents.put(text.id(), new Document(text.version(), postings));
+    }
+
+    private void unlink(Long id, Document document) {
+        for (Postings postings : document.postings()) {
+            postings.remove(id);
+            if (postings.size == 0) {
+                terms.remove(postings.term);
+            }
+        }
+    }
+
+    // null if no term starts with the prefix
+    private Cursor prefixCursor(String prefix) {
+        List<ArrayCursor> matches = new ArrayList<>();
+        for (Map.Entry<String, Postings> entry : terms.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (matches.size() == maxExpansions) {
+                throw new InvalidQueryException("Prefix '" + prefix + "*' matches more than " + maxExpansions
+                        + " terms, use a longer prefix");
+            }
+            matches.add(entry.getValue().cursor());
+        }
+        if (matches.isEmpty()) {
+            return null;
+        }
+        return matches.size() == 1 ? matches.get(0) : new UnionCursor(matches);
+    }
+
+    // leapfrog: every cursor jumps to the current candidate, the first one that lands behind it sets the next one
+    private static List<Long> intersect(List<Cursor> cursors, long from, int limit) {
+        List<Long> hits = new ArrayList<>(Math.min(limit, 1024));
+        long candidate = from;
+        search:
+        while (hits.size() < limit) {
+            for (Cursor cursor : cursors) {
+                long id = cursor.advance(candidate);
+                if (id == EXHAUSTED) {
+                    break search;
+                }
+                if (id != candidate) {
+                    candidate = id;
+                    continue search;
+                }
+            }
+            hits.add(candidate);
+            candidate++;
+        }
+        return hits;
+    }
+
+    /**
+     * Lower-cased runs of letters and digits, the same rule for indexed text and for queries.
+     */
+    static List<String> tokens(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // the terms of one item, to unlink it again on update and delete
+    private record Document(Long version, Postings[] postings) {
+    }
+
+    // sorted ids of the items containing a term; ids mostly grow, so inserting is usually an append
+    private static final class Postings {
+        private final String term;
+        private long[] ids = new long[1];
+        private int size;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void add(long id) {
+            int at = size;
+            if (size > 0 && ids[size - 1] >= id) {
+                at = Arrays.binarySearch(ids, 0, size, id);
+                if (at >= 0) {
+                    return;
+                }
+                at = -at - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                size--;
+            }
+        }
+
+        ArrayCursor cursor() {
+            return new ArrayCursor(ids, size);
+        }
+    }
+
+    private interface Cursor {
+        // first id >= target, EXHAUSTED if there is none; targets never decrease
+        long advance(long target);
+
+        long cost();
+    }
+
+    private static final class ArrayCursor implements Cursor {
+        private final long[] ids;
+        private final int size;
+        private int position;
+
+        ArrayCursor(long[] ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+
+        long current() {
+            return position < size ? ids[position] : EXHAUSTED;
+        }
+
+        // galloping search: doubles the step until it passes the target, then a binary search in the last step
+        @Override
+        public long advance(long target) {
+            if (position >= size || ids[position] >= target) {
+                return current();
+            }
+            int low = position;
+            int step = 1;
+            while (low + step < size && ids[low + step] < target) {
+                low += step;
+                step <<= 1;
+            }
+            int found = Arrays.binarySearch(ids, low + 1, Math.min(low + step, size), target);
+            position = found >= 0 ? found : -found - 1;
+            return current();
+        }
+
+        @Override
+        public long cost() {
+            return size;
+        }
+    }
+
+    // the ids of all terms of a prefix, merged in order
+    private static final class UnionCursor implements Cursor {
+        private final PriorityQueue<ArrayCursor> queue;
+        private final long cost;
+
+        UnionCursor(List<ArrayCursor> cursors) {
+            this.queue = new PriorityQueue<>(cursors.size(), Comparator.comparingLong(ArrayCursor::current));
+            this.queue.addAll(cursors);
+            this.cost = cursors.stream().mapToLong(ArrayCursor::cost).sum();
+        }
+
+        @Override
+        public long advance(long target) {
+            while (!queue.isEmpty() && queue.peek().current() < target) {
+                ArrayCursor cursor = queue.poll();
+                if (cursor.advance(target) != EXHAUSTED) {
+                    queue.add(cursor);
+                }
+            }
+            return queue.isEmpty() ? EXHAUSTED : queue.peek().current();
+        }
+
+        @Override
+        public long cost() {
+            return cost;
+        }
+    }
+
+    public static class InvalidQueryException extends IllegalArgumentException {
+        public InvalidQueryException(String message) {
+            super(message);
+        }
+    }
+
+    public static class NotReadyException extends IllegalStateException {
+        public NotReadyException() {
+            super("Search index is still being built, try again later");
+        }
+    }
+}
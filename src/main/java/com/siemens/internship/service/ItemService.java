@@ -1,56 +1,181 @@
 package com.siemens.internship.service;
 
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemPage;
+import com.siemens.internship.model.ItemPatch;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ItemSummary;
 import com.siemens.internship.repository.ItemRepository;
-import lombok.Getter;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ItemService {
 
     private final ItemRepository itemRepository;
-    private final Executor executor; //I used Executor for a lower coupling
+    private final PartitionedItemProcessor processor;
+    private final EntityManager entityManager;
+    private final ItemCache itemCache;
+    private final ItemChangeLog changeLog;
+    private final ItemSearchIndex searchIndex;
+    private final TransactionTemplate transactionTemplate;
 
     //private List<Item> processedItems = new ArrayList<>();
-    private final AtomicInteger processedCount = new AtomicInteger(0);
+    private final LongAdder processedCount = new LongAdder();
     //Old: private int processedCount = 0;  //Mention: A variable needs to be atomic in order to be thread safe.
+    //Mention: LongAdder instead of AtomicInteger, writers don't contend on a single CAS and reads are rare
 
     @Autowired
-    //added constructor for itemRepository and Executor dependency injection
-    //@Qualifier("itemProcessingTaskExecutor") tells Spring to use the personalized Bean from Main class
-    public ItemService(ItemRepository itemRepository, @Qualifier("itemTaskExecutor") Executor executor) {
+    //added constructor for itemRepository and PartitionedItemProcessor dependency injection
+    //the itemTaskExecutor Bean from Main class is still used, it runs the @Async method
+    public ItemService(ItemRepository itemRepository, PartitionedItemProcessor processor, EntityManager entityManager,
+                       ItemCache itemCache, ItemChangeLog changeLog, ItemSearchIndex searchIndex,
+                       PlatformTransactionManager transactionManager) {
         this.itemRepository = itemRepository;
-        this.executor = executor;
+        this.processor = processor;
+        this.entityManager = entityManager;
+        this.itemCache = itemCache;
+        this.changeLog = changeLog;
+        this.searchIndex = searchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public int getProcessedCount() {
-        return processedCount.get();
+        return processedCount.intValue();
     }
 
     public List<Item> findAll() {
         return itemRepository.findAll();
     }
 
+    /**
+     * Keyset page of item summaries with ids greater than {@code after} (all items if null).
+     */
+    public ItemPage findPage(Long after, int limit) {
+        return findPage(null, after, limit);
+    }
+
+    /**
+     * Same as {@link #findPage(Long, int)}, restricted to one status unless {@code status} is null.
+     */
+    public ItemPage findPage(ItemStatus status, Long after, int limit) {
+        Long from = after == null ? Long.MIN_VALUE : after;
+        List<ItemSummary> items = status == null
+                ? itemRepository.findByIdGreaterThanOrderByIdAsc(from, Limit.of(limit))
+                : itemRepository.findByStatusAndIdGreaterThanOrderByIdAsc(status, from, Limit.of(limit));
+        return ItemPage.of(items, limit);
+    }
+
+    /**
+     * Keyset page of the items whose name or description contains every term of {@code query}, see
+     * {@link ItemSearchIndex#search}. Ids come from the index, only the page itself is read from the database.
+     */
+    public ItemPage search(String query, Long after, int limit) {
+        List<Long> ids = searchIndex.search(query, after, limit);
+        if (ids.isEmpty()) {
+            return new ItemPage(List.of(), null);
+        }
+        //Mention: the cursor is the last hit of the index, an item deleted in between must not end the listing
+        Long nextAfter = ids.size() < limit ? null : ids.get(ids.size() - 1);
+        return new ItemPage(itemRepository.findByIdInOrderByIdAsc(ids), nextAfter);
+    }
+
+    /**
+     * Hands every item to {@code action} in id order without loading the table into memory.
+     * Each entity is detached once the action returned, so the persistence context stays empty
+     * however many rows are read.
+     */
+    @Transactional(readOnly = true)
+    public void forEachItem(Consumer<Item> action) {
+        try (Stream<Item> items = itemRepository.streamAll()) {
+            items.forEach(item -> {
+                action.accept(item);
+                entityManager.detach(item);
+            });
+        }
+    }
+
+    //reads go through the item cache, every write below invalidates the id once the repository committed
+    //Mention: writes also record the id in the outbox (same transaction) for the IncrementalItemProcessor
+    //Mention: and update the search index after commit, like the cache invalidation
     public Optional<Item> findById(Long id) {
-        return itemRepository.findById(id);
+        return itemCache.get(id);
     }
 
-    public boolean existsById(Long id) { return itemRepository.existsById(id); }
+    public boolean existsById(Long id) { return itemCache.get(id).isPresent(); }
+
+    //Mention: the base of a read-modify-write (PUT) comes from the database, not the cache. A cached copy can be
+    //Mention: stale (a write on another node only reaches this node's cache when the entry expires), and a stale
+    //Mention: version would make every save answer 409 until then. It is a copy, so save() merges it and checks the
+    //Mention: version it carries, a managed entity (open session in view) would ignore a version set by the client
+    public Optional<Item> findForUpdate(Long id) {
+        return itemRepository.findById(id).map(Item::copy);
+    }
 
     public Item save(Item item) {
-        return itemRepository.save(item);
+        Item saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                Item written = itemRepository.save(item);
+                changeLog.record(List.of(written.getId()));
+                return written;
+            });
+        } catch (ObjectOptimisticLockingFailureException e) {
+            //Mention: the client is told to reload, so the reload must not be served the copy that is out of date
+            if (item.getId() != null) {
+                itemCache.invalidate(item.getId());
+            }
+            throw e;
+        }
+        itemCache.invalidate(saved.getId());
+        searchIndex.index(saved);
+        return saved;
+    }
+
+    /**
+     * Writes the non-null fields of {@code patch} with a single UPDATE.
+     *
+     * @return false if there is no item with this id
+     * @throws ObjectOptimisticLockingFailureException if the patch carries a version and the item has changed since
+     */
+    public boolean patch(Long id, ItemPatch patch) {
+        int updated = transactionTemplate.execute(status -> {
+            int rows = itemRepository.patch(id, patch.name(), patch.description(), patch.status(), patch.email(),
+                    patch.version());
+            if (rows == 1) {
+                changeLog.record(List.of(id));
+            }
+            return rows;
+        });
+        itemCache.invalidate(id);
+        if (updated == 1) {
+            searchIndex.refresh(List.of(id)); //the patch may have changed name or description
+            return true;
+        }
+        //Mention: the extra lookup only runs on the failure path, to tell a stale version from a missing item
+        if (patch.version() != null && itemRepository.existsById(id)) {
+            throw new ObjectOptimisticLockingFailureException(Item.class, id);
+        }
+        return false;
     }
 
     public void deleteById(Long id) {
         itemRepository.deleteById(id);
+        itemCache.invalidate(id);
+        searchIndex.remove(id);
     }
 
 
@@ -74,66 +199,38 @@ public class ItemService {
      */
 
 
-    @Async
+    @Async("itemTaskExecutor")
     // Mention:the function needs to return CompletableFuture -> is a special type for asynchronous results
     // CompletableFuture is a promise for async functions that the caller will receive the data when it's ready.
     // We can't use a simple List as a return type, because @Async makes the function return instantly, before
     // the list can be populated.
-    public CompletableFuture<List<Item>> processItemsAsync(){
-
-        List<Long> itemIds = itemRepository.findAllIds();
-        if (itemIds == null || itemIds.isEmpty()) {
-            return null;
-        }
-
-        List<CompletableFuture<Item>> futureItems = new ArrayList<>();
-        for (Long id : itemIds) {
-            //Old: CompletableFuture.runAsync(() -> {
-            //Mention: changed to supplyAsync() to return results
-            CompletableFuture<Item> completableFutureItem = CompletableFuture.supplyAsync(() -> {
-                try {
-                    Thread.sleep(100);
-
-                    Item item = itemRepository.findById(id).orElse(null);
-                    if (item == null) {
-                        System.out.println(id + " not found");
-                        return null;
-                    }
-
-
-                    item.setStatus("PROCESSED");
-                    itemRepository.save(item); //first save, then increment
-                    processedCount.incrementAndGet();
-
-                    return item;
-
-                } catch (Exception e) {
-                    System.out.println("Error: " + e.getMessage());
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException(e);
-                }
-            }, executor);
-
-            futureItems.add(completableFutureItem);
-        }
-
-        CompletableFuture<Void> allFutureItems = CompletableFuture.allOf(
-                futureItems.toArray(new CompletableFuture[0])
-        );
-
-        return allFutureItems.thenApply(v ->
-                futureItems.stream()
-                        .map(futureItem -> {
-                            try {
-                                return futureItem.join();
-                            } catch (Exception e) {
-                                return null;
-                            }
-                        })
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toList()));
+    //Mention: the old version started one supplyAsync per id (findById + sleep + save for every item), which meant
+    //2N round trips, N futures in memory and rejected tasks once the itemTaskExecutor queue (20) was full.
+    //The work is now done chunk by chunk by the ItemProcessingPipeline (fetch -> process -> persist with bounded
+    //queues in between), so the executor only ever holds this single task.
+    //Mention: the transformation itself is pluggable (ItemProcessor beans). CPU-bound processors run on a
+    //fork/join pool sized to the cores and blocking ones on their own pool, none of it on the itemTaskExecutor.
+    //Mention: the old version caught every error, printed it and let join() turn it into a null in the list.
+    //Now every item comes back as an ItemResult (PROCESSED, NOT_FOUND or DEAD_LETTERED with the error), transient
+    //DB errors are retried, and a run that fails as a whole completes the future exceptionally (@Async does that
+    //for exceptions thrown by a CompletableFuture method) instead of returning a partial list.
+    //Mention: with several replicas the items are split between them: this node only processes the id partitions
+    //it leases (PartitionedItemProcessor), the summary counts those.
+    //Mention: it used to return an ItemResult for every item, a list as long as the table that was held until the
+    //caller let go of the future. Now it is a ProcessingSummary: the counts and the first failures only, the rest
+    //of the failures is in the dead letters.
+    public CompletableFuture<ProcessingSummary> processItemsAsync(){
+
+        List<ItemResult> failures = new ArrayList<>(); //added to by one pipeline persist thread at a time, read after run() returned
+        BatchResult result = processor.run(item -> {
+            if (item.outcome() == ItemResult.Outcome.DEAD_LETTERED && failures.size() < ProcessingSummary.MAX_FAILURES) {
+                failures.add(item);
+            }
+        });
+        processedCount.add(result.processed());
+
+        return CompletableFuture.completedFuture(new ProcessingSummary(result, List.copyOf(failures)));
     }
 
 
 }
-
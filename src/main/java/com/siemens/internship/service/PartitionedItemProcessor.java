@@ -0,0 +1,256 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ProcessingPartition;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.repository.ProcessingPartitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Splits processing between all nodes that share the database.
+ * <p>
+ * The id space is cut into {@link ProcessingPartition}s of {@code item.processing.partition.size} ids. A node
+ * claims one partition at a time ({@code FOR UPDATE SKIP LOCKED}, so concurrent claims never wait for each other),
+ * runs the {@link ItemProcessingPipeline} over its id range and marks it done. The more nodes run, the more
+ * partitions are processed at the same time. A partition without pending items is marked done right in the claim,
+ * without a lease or a pipeline run, and all runs of a node share one set of pipeline stage threads.
+ * <p>
+ * A claim is a lease: every write transaction of the pipeline first renews it, checking the lease token. A node
+ * that dies stops renewing, after {@code lease-duration} the partition can be claimed by another node, which gets
+ * a new token. Whatever the old owner still tries to write after that fails the token check and is rolled back,
+ * so every status transition is committed by exactly one node.
+ */
+@Slf4j
+@Component
+public class PartitionedItemProcessor {
+
+    private final ProcessingPartitionRepository partitionRepository;
+    private final ItemRepository itemRepository;
+    private final ItemProcessingPipeline pipeline;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final long partitionSize;
+    private final Duration leaseDuration;
+    private final Duration pollInterval;
+
+    public PartitionedItemProcessor(ProcessingPartitionRepository partitionRepository,
+                                    ItemRepository itemRepository,
+                                    ItemProcessingPipeline pipeline,
+                                    ProcessingNode node,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${item.processing.partition.size:10000}") long partitionSize,
+                                    @Value("${item.processing.partition.lease-duration:30s}") Duration leaseDuration,
+                                    @Value("${item.processing.partition.poll-interval:500ms}") Duration pollInterval) {
+        if (partitionSize <= 0) {
+            throw new IllegalArgumentException("item.processing.partition.size must be positive, was " + partitionSize);
+        }
+        this.partitionRepository = partitionRepository;
+        this.itemRepository = itemRepository;
+        this.pipeline = pipeline;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = node.getId();
+        this.partitionSize = partitionSize;
+        this.leaseDuration = leaseDuration;
+        this.pollInterval = pollInterval;
+    }
+
+    public BatchResult run(Consumer<ItemResult> listener) {
+        return run(listener, () -> false);
+    }
+
+    /**
+     * Processes the pending items together with the other nodes, until every partition had a pass that started
+     * after this run did. Partitions leased by other nodes are waited for (or taken over once their lease expired).
+     *
+     * @param listener receives the results of the items this node processed
+     * @param cancelled checked before every partition and by the pipeline, a cancelled partition is released
+     */
+    public BatchResult run(Consumer<ItemResult> listener, BooleanSupplier cancelled) {
+        return run(Instant.now(), listener, cancelled, partition -> { });
+    }
+
+    /**
+     * Same as {@link #run(Consumer, BooleanSupplier)} for a run that started at {@code since}. Partitions that had a
+     * pass since then are skipped, so passing the start of an interrupted run resumes it instead of starting over.
+     *
+     * @param completed called on the calling thread after each partition this node finished
+     */
+    public BatchResult run(Instant since, Consumer<ItemResult> listener, BooleanSupplier cancelled,
+                           Consumer<Range> completed) {
+        long start = System.nanoTime();
+        createMissingPartitions();
+
+        long processed = 0;
+        long notFound = 0;
+        long failed = 0;
+        int chunks = 0;
+        boolean stopped = false;
+        try (ItemProcessingPipeline.Stages stages = pipeline.stages()) {
+            while (true) {
+                if (cancelled.getAsBoolean()) {
+                    stopped = true;
+                    break;
+                }
+                Optional<Lease> claimed = claim(since);
+                if (claimed.isEmpty()) {
+                    if (partitionRepository.countUnfinished(since) == 0) {
+                        break;
+                    }
+                    sleep(); // the rest is leased by other nodes
+                    continue;
+                }
+
+                Lease lease = claimed.get();
+                if (lease.done()) {
+                    continue; // nothing pending, already marked done
+                }
+                BatchResult result;
+                try {
+                    result = pipeline.run(stages, lease.rangeStart() - 1, lease.rangeEnd(), () -> renew(lease),
+                            listener, cancelled);
+                } catch (LeaseLostException e) {
+                    log.warn("Lost the lease on partition {} to another node, it continues there", lease.partition());
+                    continue;
+                } catch (RuntimeException e) {
+                    release(lease);
+                    throw e;
+                }
+
+                processed += result.processed();
+                notFound += result.notFound();
+                failed += result.failed();
+                chunks += result.chunks();
+                if (result.cancelled()) {
+                    release(lease); // not finished, the next run starts it over
+                    stopped = true;
+                    break;
+                }
+                if (complete(lease)) {
+                    completed.accept(new Range(lease.rangeStart(), lease.rangeEnd()));
+                }
+            }
+        }
+
+        return new BatchResult(processed, notFound, failed, chunks, stopped, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    // partitions up to the highest item id, created by whichever node gets there first
+    private void createMissingPartitions() {
+        for (int attempt = 1; ; attempt++) {
+            Long maxItemId = itemRepository.findMaxId();
+            Integer lastPartition = partitionRepository.findMaxId();
+            int from = lastPartition == null ? 0 : lastPartition + 1;
+            int to = maxItemId == null ? 0 : Math.toIntExact(Math.max(maxItemId, 0) / partitionSize + 1);
+            if (from >= to) {
+                return;
+            }
+            List<ProcessingPartition> partitions = IntStream.range(from, to)
+                    .mapToObj(i -> new ProcessingPartition(i, i * partitionSize, (i + 1) * partitionSize))
+                    .toList();
+            try {
+                transactionTemplate.executeWithoutResult(tx -> partitionRepository.saveAll(partitions));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == 3) {
+                    throw e;
+                }
+                log.debug("Partitions {}..{} were created concurrently by another node", from, to - 1);
+            }
+        }
+    }
+
+    private Optional<Lease> claim(Instant since) {
+        return transactionTemplate.execute(tx -> {
+            Instant now = Instant.now();
+            return partitionRepository.lockClaimable(since, now).map(partition -> {
+                if (partition.getOwner() != null) {
+                    log.warn("Taking over partition {} from {}, its lease expired at {}",
+                            partition.getId(), partition.getOwner(), partition.getLeaseUntil());
+                }
+                partition.setLeaseToken(partition.getLeaseToken() + 1); // a late write of an expired owner fails
+                partition.setClaimedAt(now);
+                // one index lookup instead of a pipeline run (threads, paging queries) for a done or empty range
+                boolean done = !itemRepository.existsByStatusInAndIdGreaterThanAndIdLessThan(ItemStatus.pending(),
+                        partition.getRangeStart() - 1, partition.getRangeEnd());
+                if (done) {
+                    partition.setOwner(null);
+                    partition.setLeaseUntil(null);
+                    partition.setLastPassStartedAt(now);
+                } else {
+                    partition.setOwner(nodeId);
+                    partition.setLeaseUntil(now.plus(leaseDuration));
+                }
+                return new Lease(partition.getId(), partition.getRangeStart(), partition.getRangeEnd(),
+                        partition.getLeaseToken(), done);
+            });
+        });
+    }
+
+    // runs inside the pipeline's write transactions: the lease row stays locked until they commit
+    private void renew(Lease lease) {
+        if (partitionRepository.renew(lease.partition(), lease.token(), Instant.now().plus(leaseDuration)) == 0) {
+            throw new LeaseLostException(lease.partition());
+        }
+    }
+
+    private boolean complete(Lease lease) {
+        Integer updated = transactionTemplate.execute(tx -> partitionRepository.complete(lease.partition(), lease.token()));
+        if (updated == null || updated == 0) {
+            log.warn("Partition {} was taken over before it was marked done, the new owner processes it again",
+                    lease.partition());
+            return false;
+        }
+        return true;
+    }
+
+    private void release(Lease lease) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> partitionRepository.release(lease.partition(), lease.token()));
+        } catch (RuntimeException e) {
+            log.warn("Could not release partition {}, it is free again once the lease expires: {}",
+                    lease.partition(), e.toString());
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(pollInterval);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for partitions of other nodes", e);
+        }
+    }
+
+    // done: the partition had nothing pending and was completed by the claim itself
+    private record Lease(Integer partition, long rangeStart, long rangeEnd, long token, boolean done) {
+    }
+
+    /**
+     * Item ids {@code start <= id < end} of a completed partition.
+     */
+    public record Range(long start, long end) {
+    }
+
+    /**
+     * Another node took the partition over after this node's lease expired.
+     */
+    public static class LeaseLostException extends RuntimeException {
+
+        public LeaseLostException(Integer partition) {
+            super("Lease on processing partition " + partition + " was taken over by another node");
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.ProcessingRun;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One run of the {@link PartitionedItemProcessor} started through the job API.
+ * <p>
+ * Counters are written by the thread running the job and read by request threads, so they are atomics,
+ * the lifecycle fields are volatile and only change through the synchronized transition methods.
+ * <p>
+ * A job continues its {@link ProcessingRun} record: a job that resumes an interrupted run keeps its id, start time
+ * and the counters of its last checkpoint, the throughput only counts the items of this node since the resume.
+ */
+public class ProcessingJob {
+
+    public enum State { RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final String id;
+    private final long total;
+    private final Instant startedAt;
+    private final Instant resumedAt;
+    private final long startNanos = System.nanoTime();
+    private final long processedBefore;
+
+    private final AtomicLong processed;
+    private final AtomicLong notFound;
+    private final AtomicLong failed;
+
+    private volatile State state = State.RUNNING;
+    private volatile boolean cancelRequested;
+    private volatile Instant finishedAt;
+    private volatile long finishedNanos;
+    private volatile String error;
+
+    public ProcessingJob(long total) {
+        this(UUID.randomUUID().toString(), total, Instant.now(), null, 0, 0, 0);
+    }
+
+    // picks up an unfinished run where its last checkpoint left it
+    ProcessingJob(ProcessingRun run) {
+        this(run.getId(), run.getTotal(), run.getStartedAt(), Instant.now(), run.getProcessed(), run.getNotFound(),
+                run.getFailed());
+    }
+
+    private ProcessingJob(String id, long total, Instant startedAt, Instant resumedAt, long processed, long notFound,
+                          long failed) {
+        this.id = id;
+        this.total = total;
+        this.startedAt = startedAt;
+        this.resumedAt = resumedAt;
+        this.processedBefore = processed;
+        this.processed = new AtomicLong(processed);
+        this.notFound = new AtomicLong(notFound);
+        this.failed = new AtomicLong(failed);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        return state != State.RUNNING;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    long getProcessed() {
+        return processed.get();
+    }
+
+    long getNotFound() {
+        return notFound.get();
+    }
+
+    long getFailed() {
+        return failed.get();
+    }
+
+    String getError() {
+        return error;
+    }
+
+    void itemFinished(ItemResult result) {
+        switch (result.outcome()) {
+            case PROCESSED -> processed.incrementAndGet();
+            case NOT_FOUND -> notFound.incrementAndGet();
+            case DEAD_LETTERED -> failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Asks the job to stop before its next chunk.
+     *
+     * @return false if the job already finished
+     */
+    synchronized boolean requestCancel() {
+        if (isFinished()) {
+            return false;
+        }
+        cancelRequested = true;
+        return true;
+    }
+
+    synchronized void complete(BatchResult result) {
+        finish(result.cancelled() ? State.CANCELLED : State.COMPLETED, null);
+    }
+
+    synchronized void fail(Throwable cause) {
+        finish(State.FAILED, cause.toString());
+    }
+
+    private void finish(State finalState, String failure) {
+        if (isFinished()) {
+            return;
+        }
+        finishedNanos = System.nanoTime();
+        finishedAt = Instant.now();
+        error = failure;
+        state = finalState;
+    }
+
+    public ProcessingJobStatus status() {
+        long done = processed.get();
+        long missing = notFound.get();
+        long failures = failed.get();
+        long elapsedNanos = (isFinished() ? finishedNanos : System.nanoTime()) - startNanos;
+        double itemsPerSecond = elapsedNanos <= 0 ? 0 : (done - processedBefore) * 1_000_000_000.0 / elapsedNanos;
+
+        return new ProcessingJobStatus(id, state, total, done, failures,
+                Math.max(total - done - missing - failures, 0), itemsPerSecond,
+                startedAt, resumedAt, finishedAt, Duration.ofNanos(elapsedNanos).toMillis(), error);
+    }
+}
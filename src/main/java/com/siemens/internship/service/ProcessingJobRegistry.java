@@ -0,0 +1,85 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.ProcessingRun;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded in-memory store of processing jobs.
+ * <p>
+ * Jobs are kept in start order. When the registry is full the oldest finished job is dropped to make room;
+ * if every slot holds a running job, new jobs are refused instead of growing without limit.
+ */
+@Component
+public class ProcessingJobRegistry {
+
+    private final int capacity;
+    private final Map<String, ProcessingJob> jobs = new LinkedHashMap<>();
+
+    public ProcessingJobRegistry(@Value("${item.processing.jobs.capacity:100}") int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("item.processing.jobs.capacity must be positive, was " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * @throws JobLimitExceededException if the registry is full of running jobs
+     */
+    public synchronized ProcessingJob register(long total) {
+        return add(new ProcessingJob(total));
+    }
+
+    /**
+     * Registers the job that continues an interrupted run.
+     *
+     * @throws JobLimitExceededException if the registry is full of running jobs
+     */
+    public synchronized ProcessingJob register(ProcessingRun run) {
+        return add(new ProcessingJob(run));
+    }
+
+    private ProcessingJob add(ProcessingJob job) {
+        if (jobs.size() >= capacity && !evictOldestFinished()) {
+            throw new JobLimitExceededException(capacity);
+        }
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    public synchronized Optional<ProcessingJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public synchronized List<ProcessingJob> findAll() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    synchronized void remove(ProcessingJob job) {
+        jobs.remove(job.getId());
+    }
+
+    private boolean evictOldestFinished() {
+        Iterator<ProcessingJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class JobLimitExceededException extends RuntimeException {
+        public JobLimitExceededException(int capacity) {
+            super("All " + capacity + " processing job slots hold running jobs");
+        }
+    }
+}
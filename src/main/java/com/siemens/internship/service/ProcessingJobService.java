@@ -0,0 +1,220 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.DeadLetterItem;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ProcessingRun;
+import com.siemens.internship.repository.DeadLetterItemRepository;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.repository.ProcessingRunRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Starts {@link PartitionedItemProcessor} runs as background jobs and tracks them in the {@link ProcessingJobRegistry}.
+ * Callers get the job back immediately, nothing here ever waits for a run to finish.
+ * <p>
+ * Every job is also stored as a {@link ProcessingRun}. Its node leases the record and checkpoints it: after every
+ * partition it completed, and every {@code item.processing.jobs.checkpoint-interval} from the scheduler, which
+ * renews the lease too. A run stopped by a shutdown is released, one whose node died keeps its lease until it
+ * expires. With {@code item.processing.jobs.resume-on-startup} the scheduler resumes such runs, right after startup
+ * and whenever a lease expired. Resuming only repeats what the interrupted node had not committed yet: completed
+ * partitions are skipped and processed items are no longer pending.
+ */
+@Slf4j
+@Service
+public class ProcessingJobService {
+
+    private final ItemRepository itemRepository;
+    private final PartitionedItemProcessor processor;
+    private final DeadLetterItemRepository deadLetterRepository;
+    private final ProcessingRunRepository runRepository;
+    private final ProcessingJobRegistry registry;
+    private final Executor executor;
+    private final String nodeId;
+    private final Duration leaseDuration;
+    private final boolean resume;
+
+    public ProcessingJobService(ItemRepository itemRepository,
+                                PartitionedItemProcessor processor,
+                                DeadLetterItemRepository deadLetterRepository,
+                                ProcessingRunRepository runRepository,
+                                ProcessingJobRegistry registry,
+                                ProcessingNode node,
+                                @Qualifier("itemTaskExecutor") Executor executor,
+                                @Value("${item.processing.partition.lease-duration:30s}") Duration leaseDuration,
+                                @Value("${item.processing.jobs.checkpoint-interval:PT5S}") Duration checkpointInterval,
+                                @Value("${item.processing.jobs.resume-on-startup:true}") boolean resume) {
+        if (checkpointInterval.compareTo(leaseDuration) >= 0) {
+            throw new IllegalArgumentException("item.processing.jobs.checkpoint-interval (" + checkpointInterval
+                    + ") has to be shorter than the lease duration (" + leaseDuration + ")");
+        }
+        this.itemRepository = itemRepository;
+        this.processor = processor;
+        this.deadLetterRepository = deadLetterRepository;
+        this.runRepository = runRepository;
+        this.registry = registry;
+        this.executor = executor;
+        this.nodeId = node.getId();
+        this.leaseDuration = leaseDuration;
+        this.resume = resume;
+    }
+
+    /**
+     * @throws ProcessingJobRegistry.JobLimitExceededException if too many jobs are running
+     * @throws RejectedExecutionException                      if the itemTaskExecutor has no room for the job
+     */
+    public ProcessingJob start() {
+        ProcessingJob job = registry.register(itemRepository.countByStatusIn(ItemStatus.pending()));
+        try {
+            runRepository.save(new ProcessingRun(job.getId(), job.getTotal(), job.getStartedAt(), nodeId,
+                    Instant.now().plus(leaseDuration)));
+        } catch (RuntimeException e) {
+            registry.remove(job);
+            throw e;
+        }
+        try {
+            VirtualThreadTaskExecutor.executeOrReject(executor, () -> run(job)); // never waits for a permit
+        } catch (RejectedExecutionException e) {
+            registry.remove(job); // never started, don't keep it around as RUNNING
+            runRepository.deleteById(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<ProcessingJob> find(String id) {
+        return registry.find(id);
+    }
+
+    public List<ProcessingJob> findAll() {
+        return registry.findAll();
+    }
+
+    /**
+     * Items that runs gave up on, ordered by item id, starting after {@code after} (from the first if null).
+     */
+    public List<DeadLetterItem> findDeadLetters(Long after, int limit) {
+        return deadLetterRepository.findByItemIdGreaterThanOrderByItemIdAsc(after == null ? Long.MIN_VALUE : after,
+                Limit.of(limit));
+    }
+
+    /**
+     * @return false if the job had already finished
+     */
+    public boolean cancel(ProcessingJob job) {
+        return job.requestCancel();
+    }
+
+    // checkpoints (and so keeps the lease of) this node's running jobs, then looks for runs to resume
+    @Scheduled(fixedDelayString = "${item.processing.jobs.checkpoint-interval:PT5S}")
+    void checkpointAndResume() {
+        for (ProcessingJob job : registry.findAll()) {
+            if (!job.isFinished()) {
+                checkpoint(job, null);
+            }
+        }
+        if (resume) {
+            resumeInterrupted();
+        }
+    }
+
+    /**
+     * Resumes the runs that no node is driving anymore.
+     *
+     * @return the resumed jobs
+     */
+    List<ProcessingJob> resumeInterrupted() {
+        Instant now = Instant.now();
+        return runRepository.findResumable(nodeId, now).stream()
+                .filter(run -> registry.find(run.getId()).filter(job -> !job.isFinished()).isEmpty())
+                .filter(run -> runRepository.claim(run.getId(), nodeId, now, now.plus(leaseDuration)) == 1)
+                .map(this::resume)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    private Optional<ProcessingJob> resume(ProcessingRun run) {
+        ProcessingJob job;
+        try {
+            job = registry.register(run);
+        } catch (ProcessingJobRegistry.JobLimitExceededException e) {
+            runRepository.release(run.getId(), nodeId); // next round, or another node
+            return Optional.empty();
+        }
+        try {
+            VirtualThreadTaskExecutor.executeOrReject(executor, () -> run(job)); // never waits for a permit
+        } catch (RejectedExecutionException e) {
+            registry.remove(job);
+            runRepository.release(run.getId(), nodeId);
+            return Optional.empty();
+        }
+        log.info("Resuming processing run {} started at {}, {} items were processed before it was interrupted",
+                run.getId(), run.getStartedAt(), run.getProcessed());
+        return Optional.of(job);
+    }
+
+    private void run(ProcessingJob job) {
+        try {
+            BatchResult result = processor.run(job.getStartedAt(), job::itemFinished, job::isCancelRequested,
+                    partition -> checkpoint(job, partition));
+            job.complete(result);
+            // stopped by a shutdown, not by a client: released as RUNNING, so it is resumable right away
+            store(job, !result.cancelled() ? ProcessingRun.State.COMPLETED
+                    : job.isCancelRequested() ? ProcessingRun.State.CANCELLED
+                    : ProcessingRun.State.RUNNING);
+        } catch (RuntimeException e) {
+            log.error("Processing job {} failed", job.getId(), e);
+            job.fail(e);
+            store(job, ProcessingRun.State.FAILED);
+        }
+    }
+
+    // synchronized on the job: the run thread and the scheduler must not write older counters over newer ones
+    private void checkpoint(ProcessingJob job, PartitionedItemProcessor.Range completed) {
+        synchronized (job) {
+            Instant now = Instant.now();
+            try {
+                int updated = runRepository.checkpoint(job.getId(), nodeId, job.getProcessed(), job.getNotFound(),
+                        job.getFailed(), completed == null ? null : completed.start(),
+                        completed == null ? null : completed.end(), now, now.plus(leaseDuration));
+                if (updated == 0) {
+                    log.warn("Processing run {} was taken over by another node, stopping it here", job.getId());
+                    job.requestCancel();
+                }
+            } catch (RuntimeException e) {
+                // the next checkpoint catches up, until the lease expires the run stays with this node
+                log.warn("Could not checkpoint processing run {}: {}", job.getId(), e.toString());
+            }
+        }
+    }
+
+    // the final state, or RUNNING without an owner to release the run
+    private void store(ProcessingJob job, ProcessingRun.State state) {
+        synchronized (job) {
+            Instant now = Instant.now();
+            try {
+                runRepository.finish(job.getId(), nodeId, state, job.getProcessed(), job.getNotFound(), job.getFailed(),
+                        now, state == ProcessingRun.State.RUNNING ? null : now, truncate(job.getError()));
+            } catch (RuntimeException e) {
+                log.warn("Could not store the state of processing run {}, it is resumed once its lease expired: {}",
+                        job.getId(), e.toString());
+            }
+        }
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= ProcessingRun.MAX_ERROR_LENGTH
+                ? error : error.substring(0, ProcessingRun.MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,25 @@
+package com.siemens.internship.service;
+
+import java.time.Instant;
+
+/**
+ * Point in time view of a {@link ProcessingJob}, this is what the job API returns.
+ *
+ * @param failed    items the run gave up on, see {@link ProcessingJobService#findDeadLetters}
+ * @param remaining items counted at the start of the job that were neither processed, failed nor deleted yet
+ * @param resumedAt when this node resumed the interrupted run, null if it was started here; throughput and
+ *                  elapsed time count from then on
+ */
+public record ProcessingJobStatus(String id,
+                                  ProcessingJob.State state,
+                                  long total,
+                                  long processed,
+                                  long failed,
+                                  long remaining,
+                                  double itemsPerSecond,
+                                  Instant startedAt,
+                                  Instant resumedAt,
+                                  Instant finishedAt,
+                                  long elapsedMillis,
+                                  String error) {
+}
@@ -0,0 +1,24 @@
+package com.siemens.internship.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Identity of this instance among the replicas sharing the database, used as the owner of partition leases.
+ * Set {@code item.processing.node-id} to something stable (e.g. the pod name), otherwise every start gets a new one.
+ */
+@Component
+public class ProcessingNode {
+
+    private final String id;
+
+    public ProcessingNode(@Value("${item.processing.node-id:}") String id) {
+        this.id = id.isBlank() ? "node-" + UUID.randomUUID().toString().substring(0, 8) : id;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
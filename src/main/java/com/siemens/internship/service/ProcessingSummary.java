@@ -0,0 +1,22 @@
+package com.siemens.internship.service;
+
+import java.util.List;
+
+/**
+ * What {@link ItemService#processItemsAsync()} returns: the counts of the run and its first failures. The size
+ * doesn't depend on the table, items that failed beyond the first {@value #MAX_FAILURES} are only counted, all of
+ * them are in the dead letters ({@link ProcessingJobService#findDeadLetters}).
+ *
+ * @param failures the first dead-lettered items of the run, at most {@value #MAX_FAILURES}
+ */
+public record ProcessingSummary(BatchResult result, List<ItemResult> failures) {
+
+    public static final int MAX_FAILURES = 100;
+
+    /**
+     * Failed items that are counted in {@link BatchResult#failed()} but not listed.
+     */
+    public long omittedFailures() {
+        return result.failed() - failures.size();
+    }
+}
@@ -0,0 +1,97 @@
+package com.siemens.internship.service;
+
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a database action again after transient errors (lock timeouts, deadlocks, optimistic locking conflicts,
+ * no connection available), waiting an exponentially growing, jittered delay between the attempts.
+ * Any other error ends the action right away, retrying it would fail the same way.
+ */
+final class TransientRetry {
+
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(2);
+
+    private final int maxAttempts;
+    private final long backoffNanos;
+    private final Runnable onRetry;
+
+    TransientRetry(int maxAttempts, Duration backoff, Runnable onRetry) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("max attempts must be at least 1, was " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.backoffNanos = backoff.toNanos();
+        this.onRetry = onRetry;
+    }
+
+    /**
+     * @return the result of the first successful attempt and the number of attempts it took
+     * @throws AttemptsFailedException with the last error once the action failed for good
+     */
+    <T> Attempted<T> call(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return new Attempted<>(action.get(), attempt);
+            } catch (RuntimeException e) {
+                if (attempt == maxAttempts || !isTransient(e)) {
+                    throw new AttemptsFailedException(attempt, e);
+                }
+                onRetry.run();
+                if (!sleep(attempt)) {
+                    throw new AttemptsFailedException(attempt, e);
+                }
+            }
+        }
+    }
+
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // half of the delay is fixed and half random, so items that failed together don't all retry together
+    private boolean sleep(int attempt) {
+        long delay = Math.min(backoffNanos << Math.min(attempt - 1, 20), MAX_BACKOFF.toNanos());
+        long nanos = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // the run is shutting down, give up on this action
+            return false;
+        }
+    }
+
+    record Attempted<T>(T value, int attempts) {
+    }
+
+    static final class AttemptsFailedException extends RuntimeException {
+
+        private final int attempts;
+
+        AttemptsFailedException(int attempts, RuntimeException cause) {
+            super(cause.toString(), cause);
+            this.attempts = attempts;
+        }
+
+        int getAttempts() {
+            return attempts;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.siemens.internship.service;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code itemTaskExecutor} in virtual thread mode: one virtual thread per task, at most {@code permits} of them
+ * running at once (item tasks block on JDBC, more than there are connections would only queue up in Hikari).
+ * <p>
+ * {@link #execute} waits for a permit, so tasks beyond the limit are delayed, not rejected. Callers that must not wait,
+ * a request thread answering {@code POST /api/items/process} or the scheduler, use {@link #tryExecute} and get a
+ * {@link RejectedExecutionException} right away instead, like from the bounded queue of the platform thread pool.
+ * Not {@link SimpleAsyncTaskExecutor#setConcurrencyLimit}: its throttle offers only the waiting variant.
+ */
+public class VirtualThreadTaskExecutor implements Executor {
+
+    private final SimpleAsyncTaskExecutor threads;
+    private final Semaphore permits;
+    private final int limit;
+    private final LongAdder rejections;
+
+    public VirtualThreadTaskExecutor(String threadNamePrefix, int permits, LongAdder rejections) {
+        this.threads = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        this.threads.setVirtualThreads(true);
+        this.permits = new Semaphore(permits);
+        this.limit = permits;
+        this.rejections = rejections;
+    }
+
+    /**
+     * Submits without waiting if {@code executor} is one of these, plain {@link Executor#execute} otherwise (the
+     * platform pool never waits, it rejects once its queue is full).
+     *
+     * @throws RejectedExecutionException if there is no room for the task right now
+     */
+    public static void executeOrReject(Executor executor, Runnable task) {
+        if (executor instanceof VirtualThreadTaskExecutor virtual) {
+            virtual.tryExecute(task);
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * Runs the task once a permit is free.
+     *
+     * @throws RejectedExecutionException if the caller is interrupted while waiting
+     */
+    @Override
+    public void execute(Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejections.increment();
+            throw new RejectedExecutionException("Interrupted while waiting for an item task permit", e);
+        }
+        start(task);
+    }
+
+    /**
+     * Runs the task if a permit is free.
+     *
+     * @throws RejectedExecutionException if all permits are taken
+     */
+    public void tryExecute(Runnable task) {
+        if (!permits.tryAcquire()) {
+            rejections.increment();
+            throw new RejectedExecutionException("All " + limit + " item task permits are taken");
+        }
+        start(task);
+    }
+
+    // with a permit held, which the task gives back when it is done
+    private void start(Runnable task) {
+        try {
+            threads.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+-- Schema as Hibernate created it with ddl-auto=update, changes go into new V<n>__*.sql files from here on.
+-- Entities are checked against it on startup (ddl-auto=validate).
+
+-- pooled sequences, allocationSize = increment (Item, ItemChange)
+CREATE SEQUENCE item_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE item_change_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE item (
+    id          BIGINT NOT NULL,
+    version     BIGINT,
+    description VARCHAR(255),
+    email       VARCHAR(255) NOT NULL,
+    name        VARCHAR(255),
+    status      ENUM ('NEW', 'PROCESSED', 'UPDATED') NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_item_status_id ON item (status, id);
+
+-- outbox of the incremental processor
+CREATE TABLE item_change (
+    id         BIGINT NOT NULL,
+    item_id    BIGINT,
+    changed_at TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE dead_letter_item (
+    item_id   BIGINT NOT NULL,
+    stage     VARCHAR(255),
+    error     VARCHAR(1000),
+    attempts  INTEGER NOT NULL,
+    failed_at TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (item_id)
+);
+
+CREATE TABLE processing_checkpoint (
+    name       VARCHAR(255) NOT NULL,
+    position   BIGINT,
+    updated_at TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (name)
+);
+
+CREATE TABLE processing_partition (
+    id                   INTEGER NOT NULL,
+    range_start          BIGINT NOT NULL,
+    range_end            BIGINT NOT NULL,
+    owner                VARCHAR(255),
+    lease_token          BIGINT NOT NULL,
+    lease_until          TIMESTAMP(6) WITH TIME ZONE,
+    claimed_at           TIMESTAMP(6) WITH TIME ZONE,
+    last_pass_started_at TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (id)
+);
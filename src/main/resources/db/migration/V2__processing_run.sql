@@ -0,0 +1,19 @@
+-- durable record of every processing run started through the job API, see ProcessingJobService
+CREATE TABLE processing_run (
+    id               VARCHAR(36) NOT NULL,
+    state            ENUM ('RUNNING', 'COMPLETED', 'FAILED', 'CANCELLED') NOT NULL,
+    owner            VARCHAR(255),
+    lease_until      TIMESTAMP(6) WITH TIME ZONE,
+    total            BIGINT NOT NULL,
+    processed        BIGINT NOT NULL,
+    not_found        BIGINT NOT NULL,
+    failed           BIGINT NOT NULL,
+    last_range_start BIGINT,
+    last_range_end   BIGINT,
+    started_at       TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    checkpoint_at    TIMESTAMP(6) WITH TIME ZONE,
+    finished_at      TIMESTAMP(6) WITH TIME ZONE,
+    error            VARCHAR(1000),
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_processing_run_state ON processing_run (state);
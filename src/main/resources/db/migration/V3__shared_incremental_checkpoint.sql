@@ -0,0 +1,10 @@
+-- The incremental processor kept one high-water mark per node id, and node ids are random per start by default,
+-- so every restart left a row behind. All nodes now share one mark: the furthest one is kept (rows below it are
+-- still picked up by the wrap-around pass), the per-node rows are dropped.
+INSERT INTO processing_checkpoint (name, position, updated_at)
+SELECT 'incremental-item-processing', MAX(position), MAX(updated_at)
+FROM processing_checkpoint
+WHERE name LIKE 'incremental-item-processing:%'
+HAVING COUNT(*) > 0;
+
+DELETE FROM processing_checkpoint WHERE name LIKE 'incremental-item-processing:%';
@@ -0,0 +1,148 @@
+package com.siemens.internship.reactive;
+
+import com.siemens.internship.model.ItemPatch;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.service.ItemResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = ReactiveItemApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactiveItemControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveItemRepository itemRepository;
+
+    @AfterEach
+    void cleanUp() {
+        itemRepository.deleteAll().block();
+    }
+
+    @Test
+    void createsReadsUpdatesAndDeletesAnItem() {
+        ReactiveItem created = webTestClient.post().uri("/api/items")
+                .bodyValue(newItem("Item 1"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(ReactiveItem.class).returnResult().getResponseBody();
+        assertNotNull(created.getId());
+        assertEquals(ItemStatus.NEW, created.getStatus());
+        assertEquals(0L, created.getVersion());
+
+        webTestClient.get().uri("/api/items/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.name").isEqualTo("Item 1");
+
+        webTestClient.put().uri("/api/items/{id}", created.getId())
+                .bodyValue(new ReactiveItem(null, "Renamed", null, null, "item1@test.com", null))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Renamed")
+                .jsonPath("$.description").isEqualTo("Description")
+                .jsonPath("$.version").isEqualTo(1);
+
+        webTestClient.delete().uri("/api/items/{id}", created.getId()).exchange().expectStatus().isNoContent();
+        webTestClient.get().uri("/api/items/{id}", created.getId()).exchange().expectStatus().isNotFound();
+        webTestClient.delete().uri("/api/items/{id}", created.getId()).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void rejectsAnInvalidItem() {
+        webTestClient.post().uri("/api/items")
+                .bodyValue(new ReactiveItem(null, "Item", null, null, "not an email", null))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$[0]").isEqualTo("email Error");
+    }
+
+    @Test
+    void answersAStaleVersionWithConflict() {
+        ReactiveItem item = itemRepository.save(newItem("Item 1")).block();
+
+        webTestClient.patch().uri("/api/items/{id}", item.getId())
+                .bodyValue(new ItemPatch("Patched", null, null, null, item.getVersion()))
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.patch().uri("/api/items/{id}", item.getId())
+                .bodyValue(new ItemPatch("Again", null, null, null, item.getVersion()))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        webTestClient.patch().uri("/api/items/{id}", -1)
+                .bodyValue(new ItemPatch("Missing", null, null, null, null))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void streamsAllItemsAsJsonArrayOrNdjson() {
+        saveItems(3);
+
+        webTestClient.get().uri("/api/items").accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(3).jsonPath("$[0].name").isEqualTo("Item 0");
+
+        List<ReactiveItem> streamed = webTestClient.get().uri("/api/items").accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(ReactiveItem.class).getResponseBody().collectList().block();
+        assertEquals(3, streamed.size());
+    }
+
+    @Test
+    void pagesWithACursor() {
+        saveItems(3);
+
+        webTestClient.get().uri("/api/items?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(2)
+                .jsonPath("$.nextAfter").isNumber();
+        webTestClient.get().uri("/api/items?limit=0").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/api/items?status=PROCESSED")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.items.length()").isEqualTo(0);
+    }
+
+    @Test
+    void processesEveryPendingItemAndStreamsTheResults() {
+        saveItems(5);
+
+        List<ItemResult> results = webTestClient.post().uri("/api/items/process")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(ItemResult.class).getResponseBody().collectList().block();
+
+        assertEquals(5, results.size());
+        assertTrue(results.stream().allMatch(result -> result.outcome() == ItemResult.Outcome.PROCESSED));
+        assertEquals(5, itemRepository.findAll().filter(item -> item.getStatus() == ItemStatus.PROCESSED).count().block());
+    }
+
+    private void saveItems(int count) {
+        itemRepository.saveAll(IntStream.range(0, count).mapToObj(i -> newItem("Item " + i)).toList()).blockLast();
+    }
+
+    private static ReactiveItem newItem(String name) {
+        return new ReactiveItem(null, name, "Description", ItemStatus.NEW, "item@test.com", null);
+    }
+}
@@ -0,0 +1,72 @@
+package com.siemens.internship.reactive;
+
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.service.ItemResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = ReactiveItemApplication.class, properties = "item.reactive.chunk-size=4")
+@ActiveProfiles("reactive")
+class ReactiveItemServiceTest {
+
+    @Autowired
+    private ReactiveItemService itemService;
+
+    @Autowired
+    private ReactiveItemRepository itemRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @AfterEach
+    void cleanUp() {
+        itemRepository.deleteAll().block();
+    }
+
+    @Test
+    void emitsOneResultPerItemChunkByChunk() {
+        saveItems(10);
+
+        // 10 items in chunks of 4: the subscriber gets the first chunk without asking for the rest
+        StepVerifier.create(itemService.processItems(), 4)
+                .expectNextCount(4)
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(6)
+                .verifyComplete();
+
+        assertEquals(10, itemRepository.findAll().filter(item -> item.getStatus() == ItemStatus.PROCESSED
+                && item.getVersion() == 1).count().block());
+        StepVerifier.create(itemService.processItems()).verifyComplete(); // nothing pending anymore
+    }
+
+    @Test
+    void leavesProcessedItemsAlone() {
+        List<Long> ids = saveItems(3);
+        databaseClient.sql("UPDATE item SET status = 'PROCESSED' WHERE id = :id").bind("id", ids.get(0))
+                .fetch().rowsUpdated().block();
+
+        StepVerifier.create(itemService.processItems().map(ItemResult::itemId))
+                .expectNext(ids.get(1), ids.get(2))
+                .verifyComplete();
+
+        assertEquals(0L, itemRepository.findById(ids.get(0)).block().getVersion());
+    }
+
+    private List<Long> saveItems(int count) {
+        return itemRepository.saveAll(IntStream.range(0, count)
+                        .mapToObj(i -> new ReactiveItem(null, "Item " + i, null, ItemStatus.NEW, "item" + i + "@test.com", null))
+                        .toList())
+                .map(ReactiveItem::getId)
+                .collectList().block();
+    }
+}
@@ -0,0 +1,146 @@
+package com.siemens.internship.reactive;
+
+import com.siemens.internship.InternshipApplication;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Starts the servlet {@code InternshipApplication} and the {@link ReactiveItemApplication} side by side and drives
+ * {@code GET /api/items/{id}} on both with the same number of open connections. Prints requests per second, per
+ * core and p99 latency, plus how many server threads handled them ({@code http-nio-*} for Tomcat,
+ * {@code reactor-http-*} for Netty). Client and servers share the machine, so compare the lines with each other,
+ * not with production numbers.
+ * <p>
+ * Run with {@code mvn test -Preactive,benchmark}, tune with {@code -Dbenchmark.connections} and
+ * {@code -Dbenchmark.seconds}.
+ */
+@Tag("benchmark")
+class ServletVersusReactiveLoadTest {
+
+    private static final int ITEMS = 1_000;
+    private static final int CONNECTIONS = Integer.getInteger("benchmark.connections", 512);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("benchmark.seconds", 10));
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    private static ConfigurableApplicationContext servlet;
+    private static ConfigurableApplicationContext reactive;
+
+    // one client for both runs: requests are sent asynchronously, so a few selector threads keep all connections busy
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @BeforeAll
+    static void start() {
+        servlet = new SpringApplicationBuilder(InternshipApplication.class)
+                .properties("server.port=0", "item.processing.incremental.enabled=false")
+                .run();
+        reactive = new SpringApplicationBuilder(ReactiveItemApplication.class)
+                .profiles("reactive")
+                .properties("server.port=0")
+                .run();
+    }
+
+    @AfterAll
+    static void stop() {
+        if (servlet != null) {
+            servlet.close();
+        }
+        if (reactive != null) {
+            reactive.close();
+        }
+    }
+
+    @Test
+    void getByIdServlet() throws Exception {
+        List<Long> ids = servlet.getBean(ItemRepository.class).saveAll(IntStream.range(0, ITEMS)
+                        .mapToObj(i -> new Item(null, "Item " + i, "Description " + i, ItemStatus.NEW, "item" + i + "@test.com"))
+                        .toList())
+                .stream().map(Item::getId).toList();
+
+        run("servlet", servlet, ids, "http-nio");
+    }
+
+    @Test
+    void getByIdReactive() throws Exception {
+        List<Long> ids = reactive.getBean(ReactiveItemRepository.class).saveAll(IntStream.range(0, ITEMS)
+                        .mapToObj(i -> new ReactiveItem(null, "Item " + i, "Description " + i, ItemStatus.NEW, "item" + i + "@test.com", null))
+                        .toList())
+                .map(ReactiveItem::getId)
+                .collectList().block();
+
+        run("reactive", reactive, ids, "reactor-http");
+    }
+
+    private void run(String stack, ConfigurableApplicationContext context, List<Long> ids, String serverThreadPrefix)
+            throws Exception {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong errors = new AtomicLong();
+        Semaphore inFlight = new Semaphore(CONNECTIONS);
+        long deadline = System.nanoTime() + DURATION.toNanos();
+
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            long start = System.nanoTime();
+            Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+            client.sendAsync(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/items/" + id)).GET().build(),
+                            HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        if (failure != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - start);
+                        inFlight.release();
+                    });
+        }
+        // let the last requests finish, their latency counts too
+        inFlight.tryAcquire(CONNECTIONS, 30, TimeUnit.SECONDS);
+        long serverThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith(serverThreadPrefix))
+                .count();
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        double throughput = sorted.size() / (double) DURATION.toSeconds();
+        System.out.printf("[%s] GET /api/items/{id} connections=%d requests=%d errors=%d throughput=%.1f req/s "
+                        + "per core=%.1f req/s (%d cores) p99=%.2f ms server threads=%d%n",
+                stack, CONNECTIONS, sorted.size(), errors.get(), throughput, throughput / CORES, CORES,
+                percentile(sorted, 0.99), serverThreads);
+
+        assertEquals(0, errors.get(), "requests failed on the " + stack + " stack");
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+}
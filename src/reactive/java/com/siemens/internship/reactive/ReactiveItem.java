@@ -0,0 +1,37 @@
+package com.siemens.internship.reactive;
+
+import com.siemens.internship.model.ItemStatus;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * The {@link com.siemens.internship.model.Item} of the reactive API, same columns and same JSON, mapped by
+ * Spring Data R2DBC instead of JPA.
+ */
+@Table("item")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReactiveItem {
+    @Id
+    private Long id;
+    private String name;
+    private String description;
+    private ItemStatus status;
+
+    @Email(message = "Invalid email!")
+    @NotBlank(message = "Email cannot be blank!")
+    private String email;
+
+    // optimistic lock like the JPA entity: updates check it and increment it, a stale one fails with 409
+    @Version
+    private Long version;
+}
@@ -0,0 +1,34 @@
+package com.siemens.internship.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * The item API on WebFlux and R2DBC: requests are served by a few Netty event loop threads (about one per core)
+ * instead of one Tomcat thread per request, and nothing in the request path blocks.
+ * <p>
+ * Only built with {@code -Preactive}. It scans this package only and runs with the {@code reactive} profile
+ * (application-reactive.properties). The servlet {@code InternshipApplication} scans this package too, so every
+ * bean here is restricted to that profile. The profile also hides this class from the lookup of
+ * {@code @SpringBootTest}, so its tests name it in {@code classes}.
+ */
+@Profile("reactive")
+@SpringBootApplication
+public class ReactiveItemApplication {
+
+	public static void main(String[] args) {
+		SpringApplication application = new SpringApplication(ReactiveItemApplication.class);
+		application.setAdditionalProfiles("reactive");
+		application.run(args);
+	}
+
+	//Tomcat is on the classpath for the servlet application and Boot would prefer it for a reactive
+	//server too, this keeps the requests on Netty's event loop
+	@Bean
+	public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+		return new NettyReactiveWebServerFactory();
+	}
+}
@@ -0,0 +1,112 @@
+package com.siemens.internship.reactive;
+
+import com.siemens.internship.model.ItemPatch;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.service.ItemResult;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+//Same endpoints as the servlet ItemController, except the bulk and the job endpoints. Nothing here blocks:
+//the handlers only assemble publishers, the event loop thread is free again before the database answered.
+@Profile("reactive")
+@RestController
+@RequestMapping("/api/items")
+public class ReactiveItemController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    @Autowired
+    private ReactiveItemService itemService;
+
+    //The Flux is written element by element as a JSON array, items are requested from the database as the
+    //response can take them (backpressure from the socket), no list is collected.
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<ReactiveItem> getAllItems() {
+        return itemService.findAll();
+    }
+
+    //One JSON document per line
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ReactiveItem> streamAllItems() {
+        return itemService.findAll();
+    }
+
+    //Cursor pagination and status filter like the servlet API
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<?>> getItemPage(@RequestParam(required = false) ItemStatus status,
+                                               @RequestParam(required = false) Long after, @RequestParam int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.just(ResponseEntity.badRequest().body(List.of("limit must be between 1 and " + MAX_PAGE_SIZE)));
+        }
+        return itemService.findPage(status, after, limit).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(params = {"status", "!limit"})
+    public Mono<ResponseEntity<?>> getItemsByStatus(@RequestParam ItemStatus status, @RequestParam(required = false) Long after) {
+        return getItemPage(status, after, DEFAULT_PAGE_SIZE);
+    }
+
+    //invalid bodies end in handleInvalidBody, WebFlux has no BindingResult for @RequestBody
+    @PostMapping
+    public Mono<ResponseEntity<ReactiveItem>> createItem(@Valid @RequestBody ReactiveItem item) {
+        return itemService.create(item).map(created -> new ResponseEntity<>(created, HttpStatus.CREATED));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ReactiveItem>> getItemById(@PathVariable Long id) {
+        return itemService.findById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<ReactiveItem>> updateItem(@PathVariable Long id, @Valid @RequestBody ReactiveItem item) {
+        return itemService.update(id, item)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<Void>> patchItem(@PathVariable Long id, @Valid @RequestBody ItemPatch patch) {
+        return itemService.patch(id, patch)
+                .map(patched -> new ResponseEntity<Void>(HttpStatus.NO_CONTENT))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteItem(@PathVariable Long id) {
+        return itemService.deleteById(id)
+                .map(deleted -> new ResponseEntity<>(deleted ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND));
+    }
+
+    //No job here: the results are streamed as NDJSON while the run goes on. A client that reads slowly slows
+    //the run down, one that disconnects cancels it; whatever was not committed yet stays pending.
+    @PostMapping(value = "/process", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ItemResult> processItems() {
+        return itemService.processItems();
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<List<String>> handleInvalidBody(WebExchangeBindException e) {
+        return ResponseEntity.badRequest().body(e.getFieldErrors().stream()
+                .map(error -> error.getField() + " Error")
+                .toList());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleConcurrentUpdate(OptimisticLockingFailureException e) {
+        return new ResponseEntity<>("Item was changed by another request, reload it and retry", HttpStatus.CONFLICT);
+    }
+}
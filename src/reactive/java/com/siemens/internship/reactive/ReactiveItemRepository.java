@@ -0,0 +1,27 @@
+package com.siemens.internship.reactive;
+
+import com.siemens.internship.model.ItemStatus;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveItemRepository extends R2dbcRepository<ReactiveItem, Long> {
+
+    Flux<ReactiveItem> findAllByOrderById();
+
+    // keyset pages like the JPA ItemRepository
+    @Query("SELECT * FROM item WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<ReactiveItem> findPage(long after, int limit);
+
+    @Query("SELECT * FROM item WHERE status = :status AND id > :after ORDER BY id LIMIT :limit")
+    Flux<ReactiveItem> findPageByStatus(String status, long after, int limit);
+
+    Flux<ReactiveItem> findByStatusNotOrderById(ItemStatus status);
+
+    // one statement, the row count says whether the item existed
+    @Modifying
+    @Query("DELETE FROM item WHERE id = :id")
+    Mono<Integer> deleteItem(Long id);
+}
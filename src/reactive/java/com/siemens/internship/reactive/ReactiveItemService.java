@@ -0,0 +1,153 @@
+package com.siemens.internship.reactive;
+
+import com.siemens.internship.model.ItemPage;
+import com.siemens.internship.model.ItemPatch;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ItemSummary;
+import com.siemens.internship.service.ItemResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * The {@link com.siemens.internship.service.ItemService} operations without blocking: every method returns
+ * right away and the work happens as the returned publisher is subscribed to, on the R2DBC driver's threads.
+ */
+@Profile("reactive")
+@Service
+public class ReactiveItemService {
+
+    private final ReactiveItemRepository itemRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final int chunkSize;
+
+    public ReactiveItemService(ReactiveItemRepository itemRepository,
+                               TransactionalOperator transactionalOperator,
+                               @Value("${item.reactive.chunk-size:500}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("item.reactive.chunk-size must be positive, was " + chunkSize);
+        }
+        this.itemRepository = itemRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.chunkSize = chunkSize;
+    }
+
+    public Flux<ReactiveItem> findAll() {
+        return itemRepository.findAllByOrderById();
+    }
+
+    public Mono<ItemPage> findPage(ItemStatus status, Long after, int limit) {
+        long from = after == null ? Long.MIN_VALUE : after;
+        Flux<ReactiveItem> page = status == null
+                ? itemRepository.findPage(from, limit)
+                : itemRepository.findPageByStatus(status.name(), from, limit);
+        return page.map(item -> new ItemSummary(item.getId(), item.getName(), item.getStatus()))
+                .collectList()
+                .map(items -> ItemPage.of(items, limit));
+    }
+
+    public Mono<ReactiveItem> findById(Long id) {
+        return itemRepository.findById(id);
+    }
+
+    public Mono<ReactiveItem> create(ReactiveItem item) {
+        item.setId(null);
+        item.setVersion(null);
+        if (item.getStatus() == null) {
+            item.setStatus(ItemStatus.NEW);
+        }
+        return itemRepository.save(item);
+    }
+
+    // same rules as PUT in the servlet controller: null fields are kept, a given version must still match
+    public Mono<ReactiveItem> update(Long id, ReactiveItem changes) {
+        return itemRepository.findById(id).flatMap(item -> {
+            if (changes.getName() != null) {
+                item.setName(changes.getName());
+            }
+            if (changes.getDescription() != null) {
+                item.setDescription(changes.getDescription());
+            }
+            if (changes.getStatus() != null) {
+                item.setStatus(changes.getStatus());
+            }
+            if (changes.getVersion() != null) {
+                item.setVersion(changes.getVersion());
+            }
+            return itemRepository.save(item);
+        });
+    }
+
+    /**
+     * @return empty if there is no such item
+     */
+    public Mono<ReactiveItem> patch(Long id, ItemPatch patch) {
+        return itemRepository.findById(id).flatMap(item -> {
+            if (patch.version() != null && !patch.version().equals(item.getVersion())) {
+                return Mono.error(new OptimisticLockingFailureException(
+                        "Item " + id + " has version " + item.getVersion() + ", not " + patch.version()));
+            }
+            if (patch.name() != null) {
+                item.setName(patch.name());
+            }
+            if (patch.description() != null) {
+                item.setDescription(patch.description());
+            }
+            if (patch.status() != null) {
+                item.setStatus(patch.status());
+            }
+            if (patch.email() != null) {
+                item.setEmail(patch.email());
+            }
+            return itemRepository.save(item);
+        });
+    }
+
+    public Mono<Boolean> deleteById(Long id) {
+        return itemRepository.deleteItem(id).map(deleted -> deleted > 0);
+    }
+
+    /**
+     * Processes every pending item and emits one result per item as its chunk commits.
+     * <p>
+     * The pending rows are streamed, not paged: {@code limitRate} asks the driver for {@code chunk-size} rows at a
+     * time, and no more are requested until the chunk before them has been written. A slow database or a slow
+     * subscriber of the results (e.g. a client reading the NDJSON response) therefore holds the read back
+     * instead of buffering rows. A chunk is written in one transaction. If an item changed since it was read,
+     * the chunk fails its version check and its items are written one by one in their current state.
+     */
+    public Flux<ItemResult> processItems() {
+        return itemRepository.findByStatusNotOrderById(ItemStatus.PROCESSED)
+                .limitRate(chunkSize)
+                .buffer(chunkSize)
+                .concatMap(this::writeChunk, 1);
+    }
+
+    private Flux<ItemResult> writeChunk(List<ReactiveItem> items) {
+        items.forEach(item -> item.setStatus(ItemStatus.PROCESSED));
+        return transactionalOperator.transactional(itemRepository.saveAll(items).collectList())
+                .flatMapIterable(written -> written.stream()
+                        .map(item -> new ItemResult(item.getId(), ItemResult.Outcome.PROCESSED, 1, null))
+                        .toList())
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Flux.fromIterable(items)
+                        .concatMap(item -> writeItem(item.getId())));
+    }
+
+    // re-reads the row: changed items are processed in their current state, deleted or already processed ones skipped
+    private Mono<ItemResult> writeItem(Long id) {
+        return itemRepository.findById(id)
+                .filter(item -> ItemStatus.pending().contains(item.getStatus()))
+                .flatMap(item -> {
+                    item.setStatus(ItemStatus.PROCESSED);
+                    return itemRepository.save(item);
+                })
+                .map(item -> new ItemResult(id, ItemResult.Outcome.PROCESSED, 2, null))
+                .defaultIfEmpty(new ItemResult(id, ItemResult.Outcome.NOT_FOUND, 2, null));
+    }
+}
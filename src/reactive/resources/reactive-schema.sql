@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS item (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255),
+    description VARCHAR(255),
+    status      VARCHAR(16) NOT NULL,
+    email       VARCHAR(255),
+    version     BIGINT
+);
+CREATE INDEX IF NOT EXISTS idx_item_status_id ON item (status, id);
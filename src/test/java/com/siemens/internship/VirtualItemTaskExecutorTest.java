@@ -0,0 +1,56 @@
+package com.siemens.internship;
+
+import com.siemens.internship.service.BatchResult;
+import com.siemens.internship.service.PartitionedItemProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Virtual thread mode: a full itemTaskExecutor must answer 503 right away, not park the request thread
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:virtual-executor", "spring.threads.virtual.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=3", "item.admission.enabled=false",
+        "item.processing.incremental.enabled=false", "item.processing.jobs.resume-on-startup=false"})
+@AutoConfigureMockMvc
+class VirtualItemTaskExecutorTest {
+
+    private static final int POOL_SIZE = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PartitionedItemProcessor processor;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void releaseJobs() {
+        release.countDown();
+    }
+
+    @Test
+    void jobBeyondThePoolSizeIsRejectedWith503() throws Exception {
+        given(processor.run(any(), any(), any(), any())).willAnswer(invocation -> {
+            release.await(30, TimeUnit.SECONDS);
+            return new BatchResult(0, 0, 0, 0, false, Duration.ZERO);
+        });
+
+        for (int i = 0; i < POOL_SIZE; i++) {
+            mockMvc.perform(post("/api/items/process")).andExpect(status().isAccepted());
+        }
+        mockMvc.perform(post("/api/items/process")).andExpect(status().isServiceUnavailable());
+    }
+}
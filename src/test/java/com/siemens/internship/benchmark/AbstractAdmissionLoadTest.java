@@ -0,0 +1,76 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Cheap {@code GET /api/items/{id}} calls while other clients keep streaming the whole list, once with admission
+ * control and once without. Both groups are {@link ApiWorkload}s of their own, so the reads' p50..p99.9 and what
+ * happened to the list requests are printed (and written to {@code target/load}) separately. The subclasses only
+ * differ in {@code item.admission.enabled}.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}, tune with {@code -Dbenchmark.listClients}, {@code -Dbenchmark.readClients},
+ * {@code -Dbenchmark.readRate} (reads per second, open-loop; 0 = closed-loop) and {@code -Dbenchmark.seconds}.
+ */
+abstract class AbstractAdmissionLoadTest {
+
+    // more than the item cache holds, so reads also go to the database
+    private static final int ITEMS = 20_000;
+    private static final int LIST_CLIENTS = Integer.getInteger("benchmark.listClients", 32);
+    private static final int READ_CLIENTS = Integer.getInteger("benchmark.readClients", 16);
+    private static final int READ_RATE = Integer.getInteger("benchmark.readRate", 0);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("benchmark.seconds", 10));
+    // a client that honors Retry-After would wait longer
+    private static final Duration LIST_BACK_OFF = Duration.ofMillis(50);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    protected abstract String mode();
+
+    @BeforeEach
+    void seed() {
+        ApiWorkload.seed(jdbcTemplate, ITEMS);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        itemRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void readsWhileListsAreStreamed() throws Exception {
+        ExecutorService driver = Executors.newSingleThreadExecutor();
+        try (ApiWorkload lists = new ApiWorkload(mode() + "-lists", port, ITEMS);
+             ApiWorkload reads = new ApiWorkload(mode() + "-reads", port, ITEMS)) {
+            lists.backOff(LIST_BACK_OFF);
+            Future<?> listing = driver.submit(() -> {
+                lists.run(LIST_CLIENTS, DURATION, 0, ApiWorkload.Operation.LIST);
+                return null;
+            });
+            reads.run(READ_CLIENTS, DURATION, READ_RATE, ApiWorkload.Operation.READ);
+            listing.get();
+
+            reads.report();
+            lists.report();
+        } finally {
+            driver.shutdownNow();
+        }
+    }
+}
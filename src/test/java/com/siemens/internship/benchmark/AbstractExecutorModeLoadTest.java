@@ -0,0 +1,77 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drives {@code GET /api/items/{id}} and {@code POST /api/items/process} with concurrent {@link ApiWorkload} clients
+ * and prints throughput and p50..p99.9 latency. The subclasses only differ in {@code spring.threads.virtual.enabled},
+ * so their output lines (and the histograms in {@code target/load}) can be compared directly.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}, tune with {@code -Dbenchmark.clients}, {@code -Dbenchmark.seconds} and
+ * {@code -Dbenchmark.rate} (requests per second over all clients, open-loop; 0 = closed-loop).
+ */
+abstract class AbstractExecutorModeLoadTest {
+
+    private static final int ITEMS = 1_000;
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 64);
+    private static final int RATE = Integer.getInteger("benchmark.rate", 0);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("benchmark.seconds", 10));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    protected abstract String mode();
+
+    // errors always fail the run, this decides whether rejections (429/503) do too
+    protected boolean mayReject() {
+        return false;
+    }
+
+    @BeforeEach
+    void seed() {
+        ApiWorkload.seed(jdbcTemplate, ITEMS);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        itemRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void getById() throws Exception {
+        run(ApiWorkload.Operation.READ);
+    }
+
+    @Test
+    void process() throws Exception {
+        run(ApiWorkload.Operation.PROCESS);
+    }
+
+    private void run(ApiWorkload.Operation operation) throws Exception {
+        try (ApiWorkload workload = new ApiWorkload(mode() + "-" + operation.name().toLowerCase(), port, ITEMS)) {
+            workload.run(CLIENTS, DURATION, RATE, operation);
+            workload.report();
+
+            assertEquals(0, workload.errors(), "requests failed under " + mode() + " threads");
+            if (!mayReject()) {
+                assertEquals(0, workload.rejected(), "requests rejected under " + mode() + " threads");
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.siemens.internship.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"item.admission.enabled=false", "item.processing.incremental.enabled=false"})
+class AdmissionOffLoadTest extends AbstractAdmissionLoadTest {
+
+    @Override
+    protected String mode() {
+        return "admission-off";
+    }
+}
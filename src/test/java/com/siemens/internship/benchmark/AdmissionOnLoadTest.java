@@ -0,0 +1,16 @@
+package com.siemens.internship.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"item.admission.enabled=true", "item.admission.client-header=X-Client-Id",
+                "item.processing.incremental.enabled=false"})
+class AdmissionOnLoadTest extends AbstractAdmissionLoadTest {
+
+    @Override
+    protected String mode() {
+        return "admission-on";
+    }
+}
@@ -0,0 +1,77 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The whole application on a random port over a seeded H2, driven by concurrent clients with the mixed
+ * {@link ApiWorkload} (reads, pages, search, create/delete, PUT, PATCH and processing runs). A warm-up run is
+ * discarded, the measured one prints throughput and p50/p95/p99/p99.9 per endpoint and leaves the HdrHistogram
+ * output in {@code target/load}. Admission control stays on as configured, what it turns away is counted as
+ * rejected and not in the latencies.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}, tune with {@code -Dbenchmark.clients}, {@code -Dbenchmark.seconds},
+ * {@code -Dbenchmark.items} and {@code -Dbenchmark.rate} (requests per second over all clients, open-loop; 0 = each
+ * client sends as fast as it gets answers).
+ */
+@Tag("benchmark")
+// every client connects from localhost, the workload names them like a trusted proxy would (X-Client-Id)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.datasource.url=jdbc:h2:mem:load", "item.admission.client-header=X-Client-Id"})
+class ApiLoadTest {
+
+    private static final int ITEMS = Integer.getInteger("benchmark.items", 20_000);
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 32);
+    private static final int RATE = Integer.getInteger("benchmark.rate", 0);
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("benchmark.seconds", 20));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemSearchIndex searchIndex;
+
+    @BeforeEach
+    void seed() {
+        ApiWorkload.seed(jdbcTemplate, ITEMS);
+        searchIndex.rebuild();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        itemRepository.deleteAllInBatch();
+        searchIndex.rebuild();
+    }
+
+    @Test
+    void mixedWorkload() throws Exception {
+        try (ApiWorkload warmUp = new ApiWorkload("load-warm-up", port, ITEMS)) {
+            warmUp.run(CLIENTS, WARM_UP, RATE);
+        }
+
+        try (ApiWorkload workload = new ApiWorkload("load", port, ITEMS)) {
+            workload.run(CLIENTS, DURATION, RATE);
+            workload.report();
+            assertEquals(0, workload.errors(), "requests that failed for another reason than back-pressure");
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Long run of the {@link ApiLoadTest} workload that watches for leaks instead of latency. Every sample interval it
+ * takes the heap after a full GC, the live JVM threads and the {@code itemTaskExecutor} pool and prints them; the
+ * latency histograms of the interval go to {@code target/load/soak.hlog}.
+ * <p>
+ * After a warm-up (cache filled, JIT done) the steady part must not grow: the lowest heap after GC of its last third
+ * may be at most {@code soak.maxHeapGrowthMb} above that of its first third, and the most live threads at most a few
+ * above. The item executor may never have more threads than its max pool size, and once the load stopped and
+ * running jobs finished it must be idle.
+ * <p>
+ * Run with {@code mvn test -Psoak}, tune with {@code -Dsoak.minutes}, {@code -Dsoak.sampleSeconds},
+ * {@code -Dsoak.clients}, {@code -Dsoak.rate} and {@code -Dsoak.maxHeapGrowthMb}.
+ */
+@Tag("soak")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.datasource.url=jdbc:h2:mem:soak", "spring.threads.virtual.enabled=false",
+                "item.admission.client-header=X-Client-Id"}) // clients named like in ApiLoadTest
+class ApiSoakTest {
+
+    private static final int ITEMS = 20_000;
+    private static final int CLIENTS = Integer.getInteger("soak.clients", 16);
+    private static final int RATE = Integer.getInteger("soak.rate", 0);
+    private static final Duration DURATION = Duration.ofMinutes(Integer.getInteger("soak.minutes", 15));
+    private static final Duration SAMPLE_INTERVAL = Duration.ofSeconds(Integer.getInteger("soak.sampleSeconds", 30));
+    // a fifth of short runs, so -Dsoak.minutes=1 still has a steady part
+    private static final Duration WARM_UP = DURATION.dividedBy(5).compareTo(Duration.ofMinutes(2)) < 0
+            ? DURATION.dividedBy(5) : Duration.ofMinutes(2);
+    private static final long MAX_HEAP_GROWTH = Long.getLong("soak.maxHeapGrowthMb", 64) * 1024 * 1024;
+    // Tomcat and the HTTP client grow and shrink their pools a bit with the load
+    private static final int MAX_THREAD_GROWTH = 8;
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(2);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemSearchIndex searchIndex;
+
+    @Autowired
+    @Qualifier("itemTaskExecutor")
+    private Executor itemTaskExecutor;
+
+    private record Snapshot(long elapsedSeconds, long heapAfterGc, int liveThreads, int itemThreads,
+                            int poolSize, int active, int queued) {
+    }
+
+    @BeforeEach
+    void seed() {
+        ApiWorkload.seed(jdbcTemplate, ITEMS);
+        searchIndex.rebuild();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        itemRepository.deleteAllInBatch();
+        searchIndex.rebuild();
+    }
+
+    @Test
+    void noMemoryGrowthOrThreadLeak() throws Exception {
+        ThreadPoolTaskExecutor executor = assertInstanceOf(ThreadPoolTaskExecutor.class, itemTaskExecutor);
+        List<Snapshot> snapshots = new ArrayList<>();
+        long start = System.nanoTime();
+
+        ExecutorService driver = Executors.newSingleThreadExecutor();
+        try (ApiWorkload workload = new ApiWorkload("soak", port, ITEMS)) {
+            Future<?> run = driver.submit(() -> {
+                workload.run(CLIENTS, DURATION, RATE);
+                return null;
+            });
+            while (!run.isDone()) {
+                try {
+                    run.get(SAMPLE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    workload.sample();
+                    snapshots.add(snapshot(executor, start));
+                }
+            }
+            run.get();
+            workload.report();
+            assertEquals(0, workload.errors(), "requests that failed for another reason than back-pressure");
+        } finally {
+            driver.shutdownNow();
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while ((executor.getActiveCount() > 0 || executor.getQueueSize() > 0) && System.nanoTime() < drainDeadline) {
+            Thread.sleep(500);
+        }
+        Snapshot idle = snapshot(executor, start);
+
+        List<Snapshot> steady = snapshots.stream()
+                .filter(snapshot -> snapshot.elapsedSeconds() >= WARM_UP.toSeconds())
+                .toList();
+        assertTrue(steady.size() >= 3, "too few samples after the warm-up, run longer or sample more often");
+        List<Snapshot> first = steady.subList(0, steady.size() / 3);
+        List<Snapshot> last = steady.subList(steady.size() - steady.size() / 3, steady.size());
+
+        long heapGrowth = min(last, Snapshot::heapAfterGc) - min(first, Snapshot::heapAfterGc);
+        long threadGrowth = max(last, Snapshot::liveThreads) - max(first, Snapshot::liveThreads);
+        System.out.printf("[soak] heap after GC grew %.1f MB, live threads %+d over the steady part; "
+                        + "idle: item threads=%d active=%d queued=%d%n",
+                heapGrowth / 1024.0 / 1024.0, threadGrowth, idle.itemThreads(), idle.active(), idle.queued());
+
+        assertTrue(heapGrowth <= MAX_HEAP_GROWTH, "heap after GC grew by " + heapGrowth + " bytes");
+        assertTrue(threadGrowth <= MAX_THREAD_GROWTH, "live threads grew by " + threadGrowth);
+        assertTrue(max(snapshots, Snapshot::itemThreads) <= executor.getMaxPoolSize(),
+                "itemTaskExecutor ran more threads than its max pool size");
+        assertTrue(idle.itemThreads() <= executor.getMaxPoolSize());
+        assertEquals(0, idle.active(), "item tasks still running after the load stopped");
+        assertEquals(0, idle.queued(), "item tasks still queued after the load stopped");
+    }
+
+    private static Snapshot snapshot(ThreadPoolTaskExecutor executor, long start) {
+        System.gc();
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        int itemThreads = (int) Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith(executor.getThreadNamePrefix()))
+                .count();
+        Snapshot snapshot = new Snapshot(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), heap,
+                ManagementFactory.getThreadMXBean().getThreadCount(), itemThreads,
+                executor.getPoolSize(), executor.getActiveCount(), executor.getQueueSize());
+        System.out.printf("[soak] t=%ds heap after GC=%.1f MB live threads=%d item threads=%d (pool=%d active=%d queued=%d)%n",
+                snapshot.elapsedSeconds(), heap / 1024.0 / 1024.0, snapshot.liveThreads(), itemThreads,
+                snapshot.poolSize(), snapshot.active(), snapshot.queued());
+        return snapshot;
+    }
+
+    private static long min(List<Snapshot> snapshots, ToLongFunction<Snapshot> value) {
+        return snapshots.stream().mapToLong(value).min().orElse(0);
+    }
+
+    private static long max(List<Snapshot> snapshots, ToLongFunction<Snapshot> value) {
+        return snapshots.stream().mapToLong(value).max().orElse(0);
+    }
+}
@@ -0,0 +1,354 @@
+package com.siemens.internship.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * REST workload against the running application, shared by the load, soak, executor-mode and admission tests.
+ * <p>
+ * Every client loops over weighted {@link Operation}s with its own {@code X-Client-Id}, or over the operations a test
+ * passes to {@link #run(int, Duration, int, Operation...)}. Reads, updates and searches
+ * go to the seeded items, deletes only remove items the workload created, so the table size stays put however long
+ * it runs. Latencies go into one HdrHistogram {@link Recorder} per operation: {@link #sample()} takes the interval
+ * histograms, appends them to {@code <name>.hlog} and adds them to the totals that {@link #report()} prints and
+ * writes as {@code <name>-<operation>.hgrm} percentile distributions (both under {@code target/load}).
+ * <p>
+ * With a target rate the clients are open-loop: request k of a client is due at {@code start + k * interval} and its
+ * latency is counted from then, so a server that stalls shows up in the percentiles instead of only in a lower
+ * throughput (coordinated omission). Without a rate every client sends its next request when the previous returned.
+ */
+final class ApiWorkload implements AutoCloseable {
+
+    enum Operation {
+        READ("GET /api/items/{id}", 50),
+        PAGE("GET /api/items?limit=", 12),
+        SEARCH("GET /api/items/search", 6),
+        CREATE("POST /api/items", 8),
+        DELETE("DELETE /api/items/{id}", 8),
+        UPDATE("PUT /api/items/{id}", 7),
+        PATCH("PATCH /api/items/{id}", 8),
+        PROCESS("POST /api/items/process", 1),
+        // the whole table in one response, not part of the mixed workload
+        LIST("GET /api/items", 0);
+
+        private final String label;
+        private final int weight;
+
+        Operation(String label, int weight) {
+            this.label = label;
+            this.weight = weight;
+        }
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    // every operation as often as its weight, clients pick from it uniformly
+    private static final Operation[] MIXED = Arrays.stream(OPERATIONS)
+            .flatMap(operation -> Collections.nCopies(operation.weight, operation).stream())
+            .toArray(Operation[]::new);
+    private static final String[] COLOURS = {"red", "blue", "green", "black", "white", "oak", "steel"};
+    private static final String[] THINGS = {"chair", "table", "desk", "lamp", "shelf", "sofa", "stool", "bench", "cabinet", "bed", "rug"};
+    // up to a minute in ns, 3 significant digits; slower requests are clamped to the highest trackable value
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toNanos(1);
+    private static final Path OUTPUT = Path.of("target", "load");
+
+    private final String name;
+    private final int port;
+    private final int items;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Queue<Long> created = new ConcurrentLinkedQueue<>();
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> totals = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> rejected = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> conflicts = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final PrintStream log;
+    private final HistogramLogWriter logWriter;
+    private long measuredNanos;
+    private Duration backOff = Duration.ZERO;
+
+    ApiWorkload(String name, int port, int items) throws Exception {
+        this.name = name;
+        this.port = port;
+        this.items = items;
+        for (Operation operation : OPERATIONS) {
+            recorders.put(operation, new Recorder(HIGHEST_LATENCY, 3));
+            totals.put(operation, new Histogram(HIGHEST_LATENCY, 3));
+            rejected.put(operation, new LongAdder());
+            conflicts.put(operation, new LongAdder());
+            errors.put(operation, new LongAdder());
+        }
+        Files.createDirectories(OUTPUT);
+        log = new PrintStream(new FileOutputStream(OUTPUT.resolve(name + ".hlog").toFile()));
+        logWriter = new HistogramLogWriter(log);
+        logWriter.outputLogFormatVersion();
+        logWriter.outputStartTime(System.currentTimeMillis());
+        logWriter.setBaseTime(System.currentTimeMillis());
+        logWriter.outputLegend();
+    }
+
+    /**
+     * "Item <x> <colour> <thing>" rows with ids 1..items, the item sequence moved past them so creates don't collide.
+     */
+    static void seed(JdbcTemplate jdbcTemplate, int items) {
+        jdbcTemplate.update("INSERT INTO item (id, name, description, status, email, version) "
+                + "SELECT x, 'Item ' || x || ' ' "
+                + "|| ARRAY['red', 'blue', 'green', 'black', 'white', 'oak', 'steel'][MOD(x, 7) + 1] || ' ' "
+                + "|| ARRAY['chair', 'table', 'desk', 'lamp', 'shelf', 'sofa', 'stool', 'bench', 'cabinet', 'bed', 'rug'][MOD(x, 11) + 1], "
+                + "'Description ' || x, 'NEW', 'item' || x || '@test.com', 0 "
+                + "FROM SYSTEM_RANGE(1, ?)", items);
+        jdbcTemplate.execute("ALTER SEQUENCE item_seq RESTART WITH " + (items + 100));
+    }
+
+    /**
+     * Lets closed-loop clients wait this long after a 429/503 before their next request, like a client that honors
+     * {@code Retry-After} would (only shorter). Open-loop clients keep their schedule.
+     */
+    void backOff(Duration backOff) {
+        this.backOff = backOff;
+    }
+
+    /**
+     * Runs the clients on the mixed workload until the deadline.
+     *
+     * @param rate requests per second over all clients, 0 for closed-loop clients
+     */
+    void run(int clients, Duration duration, int rate) throws Exception {
+        run(clients, duration, rate, MIXED);
+    }
+
+    /**
+     * Runs the clients until the deadline, each request one of {@code operations} picked at random.
+     *
+     * @param rate requests per second over all clients, 0 for closed-loop clients
+     */
+    void run(int clients, Duration duration, int rate, Operation... operations) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(clients) / rate : 0;
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                String clientId = name + "-" + c;
+                // spread the open-loop clients over one interval instead of firing them all at once
+                long first = start + (interval * c) / clients;
+                workers.add(pool.submit(() -> {
+                    long due = first;
+                    while (System.nanoTime() < deadline) {
+                        if (interval > 0) {
+                            long wait = due - System.nanoTime();
+                            if (wait > 0) {
+                                TimeUnit.NANOSECONDS.sleep(wait);
+                            }
+                        }
+                        Operation operation = operations[ThreadLocalRandom.current().nextInt(operations.length)];
+                        long sent = interval > 0 ? due : System.nanoTime();
+                        if (!execute(operation, clientId, sent) && interval == 0 && !backOff.isZero()) {
+                            Thread.sleep(backOff.toMillis());
+                        }
+                        due += interval;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        measuredNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Moves what was recorded since the last call into the totals and the .hlog, one interval histogram per operation.
+     */
+    synchronized void sample() {
+        for (Operation operation : OPERATIONS) {
+            Histogram interval = recorders.get(operation).getIntervalHistogram();
+            interval.setTag(operation.name());
+            if (interval.getTotalCount() > 0) {
+                logWriter.outputIntervalHistogram(interval);
+            }
+            totals.get(operation).add(interval);
+        }
+    }
+
+    /**
+     * Prints throughput and p50/p95/p99/p99.9 per operation that was sent and writes each full distribution as .hgrm.
+     */
+    void report() throws FileNotFoundException {
+        sample();
+        double seconds = measuredNanos / 1e9;
+        long all = 0;
+        for (Operation operation : OPERATIONS) {
+            Histogram histogram = totals.get(operation);
+            if (histogram.getTotalCount() == 0 && rejected.get(operation).sum() == 0 && errors.get(operation).sum() == 0) {
+                continue;
+            }
+            all += histogram.getTotalCount();
+            System.out.printf("[%s] %-26s requests=%d (%.0f/s) conflicts=%d rejected=%d errors=%d "
+                            + "p50=%.2f p95=%.2f p99=%.2f p99.9=%.2f max=%.2f ms%n",
+                    name, operation.label, histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    conflicts.get(operation).sum(), rejected.get(operation).sum(), errors.get(operation).sum(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(95)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+            try (PrintStream out = new PrintStream(new FileOutputStream(
+                    OUTPUT.resolve(name + "-" + operation.name().toLowerCase() + ".hgrm").toFile()))) {
+                histogram.outputPercentileDistribution(out, 1_000_000.0);
+            }
+        }
+        System.out.printf("[%s] total requests=%d (%.0f/s) over %.0f s, distributions in %s%n",
+                name, all, all / seconds, seconds, OUTPUT.toAbsolutePath());
+    }
+
+    long errors() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    long rejected() {
+        return rejected.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    @Override
+    public void close() {
+        log.close();
+    }
+
+    // 2xx and 409 are recorded, 429/503 is admission or executor back-pressure and only counted. A 409 is a write
+    // that raced another one on the same item: a client, or a processing run or the incremental processor.
+    // Returns false for a rejected request
+    private boolean execute(Operation operation, String clientId, long sent) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int status;
+        try {
+            status = switch (operation) {
+                case READ -> send(get("/api/items/" + randomId(random), clientId)).statusCode();
+                case PAGE -> send(get("/api/items?limit=50&after=" + random.nextInt(items), clientId)).statusCode();
+                case SEARCH -> send(get("/api/items/search?limit=20&q=" + query(random), clientId)).statusCode();
+                case CREATE -> create(clientId, random);
+                case DELETE -> delete(clientId, random);
+                case UPDATE -> send(write("PUT", "/api/items/" + randomId(random), clientId,
+                        body(random))).statusCode();
+                case PATCH -> send(write("PATCH", "/api/items/" + randomId(random), clientId,
+                        "{\"description\":\"Patched " + random.nextInt() + "\"}")).statusCode();
+                case PROCESS -> send(write("POST", "/api/items/process", clientId, "")).statusCode();
+                case LIST -> send(get("/api/items", clientId)).statusCode();
+            };
+        } catch (Exception e) {
+            errors.get(operation).increment();
+            return true;
+        }
+        if (status == 429 || status == 503) {
+            rejected.get(operation).increment();
+            return false;
+        } else if (status / 100 == 2 || status == 409) {
+            if (status == 409) {
+                conflicts.get(operation).increment();
+            }
+            recorders.get(operation).recordValue(Math.min(System.nanoTime() - sent, HIGHEST_LATENCY));
+        } else {
+            errors.get(operation).increment();
+        }
+        return true;
+    }
+
+    private int create(String clientId, ThreadLocalRandom random) throws Exception {
+        HttpResponse<String> response = client.send(write("POST", "/api/items", clientId, body(random)),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 201) {
+            created.add(objectMapper.readTree(response.body()).get("id").asLong());
+        }
+        return response.statusCode();
+    }
+
+    // only items created by the workload, a delete with nothing to delete creates one instead
+    private int delete(String clientId, ThreadLocalRandom random) throws Exception {
+        Long id = created.poll();
+        if (id == null) {
+            return create(clientId, random);
+        }
+        return send(HttpRequest.newBuilder(uri("/api/items/" + id))
+                .header("X-Client-Id", clientId)
+                .DELETE().build()).statusCode();
+    }
+
+    private HttpResponse<Void> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private HttpRequest get(String path, String clientId) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("X-Client-Id", clientId)
+                .GET().build();
+    }
+
+    private HttpRequest write(String method, String path, String clientId, String body) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("X-Client-Id", clientId)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private long randomId(ThreadLocalRandom random) {
+        return random.nextLong(1, items + 1);
+    }
+
+    private static String body(ThreadLocalRandom random) {
+        int n = random.nextInt(1_000_000);
+        return "{\"name\":\"Load " + n + " " + COLOURS[n % COLOURS.length] + " " + THINGS[n % THINGS.length]
+                + "\",\"description\":\"Description " + n + "\",\"status\":\"NEW\",\"email\":\"load" + n + "@test.com\"}";
+    }
+
+    // a colour and a thing (1 in 77 items), every third query a prefix of a thing instead
+    private static String query(ThreadLocalRandom random) {
+        String thing = THINGS[random.nextInt(THINGS.length)];
+        return random.nextInt(3) == 0
+                ? thing.substring(0, 3) + "*"
+                : COLOURS[random.nextInt(COLOURS.length)] + "+" + thing;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,119 @@
+package com.siemens.internship.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siemens.internship.model.BulkResult;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Rows per second for ingesting items one {@code POST /api/items} at a time versus a single NDJSON
+ * {@code POST /api/items/bulk}, and for deleting them again in bulk. Run with {@code mvn test -Pbenchmark},
+ * tune with {@code -Dbenchmark.rows}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BulkIngestBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 20_000);
+    private static final int SINGLE_ROWS = Math.min(ROWS, 2_000);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @AfterEach
+    void cleanUp() {
+        itemRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void singleVersusBulk() throws Exception {
+        // warm up both paths before measuring
+        postSingle(200);
+        postBulk(2_000);
+        itemRepository.deleteAllInBatch();
+
+        long start = System.nanoTime();
+        postSingle(SINGLE_ROWS);
+        print("POST /api/items", SINGLE_ROWS, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        BulkResult created = postBulk(ROWS);
+        print("POST /api/items/bulk", ROWS, System.nanoTime() - start);
+        assertEquals(ROWS, created.succeeded());
+
+        StringBuilder ids = new StringBuilder();
+        created.ids().forEach(id -> ids.append(id).append('\n'));
+        start = System.nanoTime();
+        BulkResult deleted = send("DELETE", ids.toString());
+        print("DELETE /api/items/bulk", ROWS, System.nanoTime() - start);
+        assertEquals(ROWS, deleted.succeeded());
+    }
+
+    private void postSingle(int rows) throws Exception {
+        for (int i = 0; i < rows; i++) {
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri("/api/items"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(item(i))))
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+            assertEquals(201, response.statusCode());
+        }
+    }
+
+    private BulkResult postBulk(int rows) throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            body.append(objectMapper.writeValueAsString(item(i))).append('\n');
+        }
+        return send("POST", body.toString());
+    }
+
+    private BulkResult send(String method, String ndjson) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/api/items/bulk"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .method(method, HttpRequest.BodyPublishers.ofString(ndjson))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readValue(response.body(), BulkResult.class);
+    }
+
+    private static Item item(int i) {
+        return new Item(null, "Item " + i, "Description " + i, ItemStatus.NEW, "item" + i + "@test.com");
+    }
+
+    private static void print(String name, int rows, long nanos) {
+        System.out.printf("%s rows=%d elapsed=%.1f ms throughput=%.0f rows/s%n",
+                name, rows, nanos / 1_000_000.0, rows / (nanos / 1_000_000_000.0));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,96 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.model.ItemPage;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Latency of page 1 versus page 10,000 for the keyset listing ({@code ?after=&limit=}) and, for comparison,
+ * for the same page read with LIMIT/OFFSET. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class KeysetPaginationBenchmarkTest {
+
+    private static final int LIMIT = 20;
+    private static final int DEEP_PAGE = 10_000;
+    private static final int ROWS = LIMIT * (DEEP_PAGE + 10);
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        // ids 1..ROWS, set-based so seeding does not dominate the run
+        jdbcTemplate.update("INSERT INTO item (id, name, description, status, email, version) "
+                + "SELECT x, 'Item ' || x, 'Description ' || x, 'NEW', 'item' || x || '@test.com', 0 "
+                + "FROM SYSTEM_RANGE(1, ?)", ROWS);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        itemRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void firstVersusDeepPage() {
+        long deepAfter = (long) (DEEP_PAGE - 1) * LIMIT;
+
+        // the start position alternates by one row: H2 hands out the cached result of a query that is
+        // repeated with identical parameters, which would hide the cost of OFFSET
+        double keysetFirst = medianMicros(i -> itemService.findPage(i % 2 == 0 ? null : 1L, LIMIT));
+        double keysetDeep = medianMicros(i -> itemService.findPage(deepAfter + i % 2, LIMIT));
+        double keysetSqlDeep = medianMicros(i -> keysetPageSql(deepAfter + i % 2));
+        double offsetFirst = medianMicros(i -> offsetPageSql(i % 2));
+        double offsetDeep = medianMicros(i -> offsetPageSql(deepAfter + i % 2));
+
+        System.out.printf("rows=%d limit=%d | keyset (service) page 1: %.0f us, page %d: %.0f us "
+                        + "| keyset (sql) page %d: %.0f us | offset (sql) page 1: %.0f us, page %d: %.0f us%n",
+                ROWS, LIMIT, keysetFirst, DEEP_PAGE, keysetDeep, DEEP_PAGE, keysetSqlDeep,
+                offsetFirst, DEEP_PAGE, offsetDeep);
+
+        ItemPage deep = itemService.findPage(deepAfter, LIMIT);
+        assertEquals(deepAfter + 1, deep.items().get(0).id());
+    }
+
+    private Object keysetPageSql(long after) {
+        return jdbcTemplate.queryForList("SELECT id, name, status FROM item WHERE id > ? ORDER BY id LIMIT ?", after, LIMIT);
+    }
+
+    private Object offsetPageSql(long offset) {
+        return jdbcTemplate.queryForList("SELECT id, name, status FROM item ORDER BY id LIMIT ? OFFSET ?", LIMIT, offset);
+    }
+
+    private static double medianMicros(IntFunction<?> call) {
+        for (int i = 0; i < ITERATIONS / 4; i++) {
+            call.apply(i); // warm up
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            call.apply(i);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[ITERATIONS / 2] / 1_000.0;
+    }
+}
@@ -0,0 +1,76 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.InternshipApplication;
+import com.siemens.internship.service.BatchResult;
+import com.siemens.internship.service.PartitionedItemProcessor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Partitioned processing throughput with 1, 2 and 4 nodes, each an application context of its own on one shared
+ * file database (like MultiNodeProcessingTest). The nodes share this JVM's cores and H2's single file, so this shows
+ * how well partitions are spread and what the shared database costs, not what separate machines would gain.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}, the table size with {@code -Dbenchmark.rows} (default 200,000).
+ */
+@Tag("benchmark")
+class MultiNodeScalingBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+    private static final int[] NODES = {1, 2, 4};
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void throughputByNodeCount() {
+        for (int nodes : NODES) {
+            List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+            try {
+                Path database = directory.resolve("nodes-" + nodes);
+                for (int n = 0; n < nodes; n++) {
+                    contexts.add(start(database, "node-" + n));
+                }
+                contexts.get(0).getBean(JdbcTemplate.class).update(
+                        "INSERT INTO item (id, name, description, status, email, version) "
+                                + "SELECT x, 'Item ' || x, 'Description ' || x, 'NEW', 'item' || x || '@test.com', 0 "
+                                + "FROM SYSTEM_RANGE(1, ?)", ROWS);
+
+                long start = System.nanoTime();
+                List<CompletableFuture<BatchResult>> runs = contexts.stream()
+                        .map(context -> CompletableFuture.supplyAsync(() ->
+                                context.getBean(PartitionedItemProcessor.class).run(result -> { })))
+                        .toList();
+                List<Long> perNode = runs.stream().map(run -> run.join().processed()).toList();
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                assertEquals(ROWS, perNode.stream().mapToLong(Long::longValue).sum());
+                System.out.printf("[nodes=%d] rows=%d time=%.2f s throughput=%.0f items/s per node=%s%n",
+                        nodes, ROWS, seconds, ROWS / seconds, perNode);
+            } finally {
+                contexts.forEach(ConfigurableApplicationContext::close);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Path database, String nodeId) {
+        return new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:file:" + database.resolve("items") + ";AUTO_SERVER=TRUE",
+                        "--item.processing.node-id=" + nodeId,
+                        "--item.processing.incremental.enabled=false",
+                        "--item.processing.jobs.resume-on-startup=false");
+    }
+}
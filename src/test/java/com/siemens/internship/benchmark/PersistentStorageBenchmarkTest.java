@@ -0,0 +1,126 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.InternshipApplication;
+import com.siemens.internship.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * What a restart costs with the {@code persistent} profile compared to the in-memory database: startup time of
+ * an empty store (migrations run), startup time of a store that already holds the items, and {@code findById}
+ * latency right after the restart (H2 cache empty) and once the same rows were read again.
+ * The file store is measured with both values of {@code item.storage.file-system}: plain file I/O and memory-mapped.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}, the table size with {@code -Dbenchmark.rows} (default 1,000,000).
+ */
+@Tag("benchmark")
+class PersistentStorageBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final int READS = 10_000;
+
+    @TempDir
+    private Path directory;
+
+    // the first context of the JVM loads every class, that would be charged to whichever test runs first
+    @BeforeAll
+    static void warmUp() {
+        start("--spring.datasource.url=jdbc:h2:mem:storage-warm-up").close();
+    }
+
+    @Test
+    void inMemoryRestartHasToReloadEverything() {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = start("--spring.datasource.url=jdbc:h2:mem:storage-benchmark")) {
+            long started = System.nanoTime();
+            seed(context);
+            long seeded = System.nanoTime();
+            System.out.printf("[mem] rows=%d startup=%d ms reload=%d ms%n",
+                    ROWS, millis(started - start), millis(seeded - started));
+        }
+    }
+
+    @Test
+    void memoryMappedFile() {
+        coldVersusWarm("nioMapped", directory.resolve("mapped"));
+    }
+
+    @Test
+    void plainFile() {
+        coldVersusWarm("file", directory.resolve("file"));
+    }
+
+    private void coldVersusWarm(String fileSystem, Path storage) {
+        String[] args = {"--item.storage.file-system=" + fileSystem, "--item.storage.directory=" + storage};
+        long coldStart = System.nanoTime();
+        try (ConfigurableApplicationContext context = start(args)) {
+            long coldStarted = System.nanoTime();
+            seed(context);
+            System.out.printf("[%s] rows=%d cold startup (empty store, migrations)=%d ms seed=%d ms%n",
+                    fileSystem, ROWS, millis(coldStarted - coldStart), millis(System.nanoTime() - coldStarted));
+        }
+
+        long warmStart = System.nanoTime();
+        try (ConfigurableApplicationContext context = start(args)) {
+            long warmStartup = System.nanoTime() - warmStart;
+            ItemRepository itemRepository = context.getBean(ItemRepository.class);
+            assertEquals(ROWS, itemRepository.count());
+
+            // same ids twice: the first pass reads pages from the file, the second from H2's cache
+            double[] afterRestart = readMicros(itemRepository);
+            double[] cached = readMicros(itemRepository);
+            System.out.printf("[%s] rows=%d warm startup=%d ms | findById after restart p50=%.0f us p99=%.0f us "
+                            + "| cached p50=%.0f us p99=%.0f us%n",
+                    fileSystem, ROWS, millis(warmStartup), afterRestart[0], afterRestart[1], cached[0], cached[1]);
+        }
+    }
+
+    // arguments, not builder properties: those are defaults and would lose against the profile's settings
+    private static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("persistent")
+                .properties(
+                        "item.processing.incremental.enabled=false",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run(args);
+    }
+
+    private static void seed(ConfigurableApplicationContext context) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO item (id, name, description, status, email, version) "
+                + "SELECT x, 'Item ' || x, 'Description ' || x, 'NEW', 'item' || x || '@test.com', 0 "
+                + "FROM SYSTEM_RANGE(1, ?)", ROWS);
+        jdbcTemplate.execute("ALTER SEQUENCE item_seq RESTART WITH " + (ROWS + 1_000));
+    }
+
+    private static double[] readMicros(ItemRepository itemRepository) {
+        SplittableRandom random = new SplittableRandom(42);
+        long[] samples = new long[READS];
+        for (int i = 0; i < READS; i++) {
+            long id = random.nextLong(1, ROWS + 1);
+            long start = System.nanoTime();
+            itemRepository.findById(id).orElseThrow();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return new double[]{samples[READS / 2] / 1_000.0, samples[(int) (READS * 0.99)] / 1_000.0};
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,22 @@
+package com.siemens.internship.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"item.processing.jobs.capacity=100000", "item.admission.enabled=false", "spring.threads.virtual.enabled=false"})
+class PlatformThreadLoadTest extends AbstractExecutorModeLoadTest {
+
+    @Override
+    protected String mode() {
+        return "platform";
+    }
+
+    // 10 threads + a queue of 20: processing jobs beyond 30 in flight are rejected (HTTP 503),
+    // that is part of what this run is compared on
+    @Override
+    protected boolean mayReject() {
+        return true;
+    }
+}
@@ -0,0 +1,173 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.BatchResult;
+import com.siemens.internship.service.ItemBatchProcessor;
+import com.siemens.internship.service.ItemProcessingPipeline;
+import com.siemens.internship.service.ItemResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Items/sec of the chunked {@link ItemBatchProcessor} against the old one-future-per-id path and the staged
+ * {@link ItemProcessingPipeline}, and of the pipeline's write-behind against one save per item.
+ * <p>
+ * Not part of the normal build, run it with {@code mvn test -Pbenchmark}
+ * (item count: {@code -Dbenchmark.items=100000}).
+ * The per-id path runs without the old 100ms sleep and on an unbounded queue, otherwise it would only
+ * measure the sleep and be rejected by the itemTaskExecutor after 30 tasks.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class ProcessingThroughputBenchmarkTest {
+
+    private static final int ITEMS = Integer.getInteger("benchmark.items", 20_000);
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemBatchProcessor batchProcessor;
+
+    @Autowired
+    private ItemProcessingPipeline pipeline;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void seed() {
+        itemRepository.deleteAllInBatch();
+        List<Item> items = IntStream.range(0, ITEMS)
+                .mapToObj(i -> new Item(null, "Item " + i, "Description " + i, ItemStatus.NEW, "item" + i + "@test.com"))
+                .toList();
+        itemRepository.saveAll(items);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        itemRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void perIdVersusChunked() throws Exception {
+        long start = System.nanoTime();
+        int perId = processPerId();
+        double perIdRate = perId * 1_000_000_000.0 / (System.nanoTime() - start);
+
+        jdbcTemplate.update("UPDATE item SET status = 'NEW'");
+
+        BatchResult chunked = batchProcessor.process((items, notFound) -> { });
+
+        System.out.printf("items=%d per-id: %.0f items/s | chunked (chunk-size %d): %.0f items/s in %d chunks%n",
+                ITEMS, perIdRate, batchProcessor.getChunkSize(), chunked.itemsPerSecond(), chunked.chunks());
+
+        assertEquals(ITEMS, perId);
+        assertEquals(ITEMS, chunked.processed());
+    }
+
+    // the staged pipeline pays for the per-item results and the queue hand-offs, it has to stay in the
+    // same range as the plain chunked loop
+    @Test
+    void chunkedVersusPipeline() {
+        batchProcessor.process((items, notFound) -> { }); // warm up
+        jdbcTemplate.update("UPDATE item SET status = 'NEW'");
+
+        BatchResult chunked = batchProcessor.process((items, notFound) -> { });
+        jdbcTemplate.update("UPDATE item SET status = 'NEW'");
+
+        List<ItemResult> results = new ArrayList<>();
+        BatchResult staged = pipeline.run(results::add);
+
+        System.out.printf("items=%d chunked: %.0f items/s | pipeline: %.0f items/s (%d results, %d dead-lettered)%n",
+                ITEMS, chunked.itemsPerSecond(), staged.itemsPerSecond(), results.size(), staged.failed());
+
+        assertEquals(ITEMS, staged.processed());
+        assertEquals(ITEMS, results.size());
+        assertEquals(0, itemRepository.countByStatusIn(ItemStatus.pending()));
+    }
+
+    // the old per-item save (one transaction and flush per item) against the pipeline, whose write-behind buffer
+    // commits item.processing.pipeline.flush-size items at a time
+    @Test
+    void perItemSaveVersusWriteBehind() {
+        long start = System.nanoTime();
+        for (Long id : itemRepository.findAllIds()) {
+            Item item = itemRepository.findById(id).orElseThrow();
+            item.setStatus(ItemStatus.PROCESSED);
+            itemRepository.save(item);
+        }
+        double perItemRate = ITEMS * 1_000_000_000.0 / (System.nanoTime() - start);
+
+        jdbcTemplate.update("UPDATE item SET status = 'NEW'");
+        long commitsBefore = meterRegistry.get("item.processing.chunk").timer().count();
+        BatchResult writeBehind = pipeline.run(result -> { });
+        long commits = meterRegistry.get("item.processing.chunk").timer().count() - commitsBefore;
+
+        System.out.printf("items=%d per-item save: %.0f items/s in %d commits | write-behind: %.0f items/s in %d commits%n",
+                ITEMS, perItemRate, ITEMS, writeBehind.itemsPerSecond(), commits);
+
+        assertEquals(ITEMS, writeBehind.processed());
+        assertEquals(0, itemRepository.countByStatusIn(ItemStatus.pending()));
+    }
+
+    // a repeat run only reads the pending rows: with the table processed and a handful of new items it has
+    // to cost about as much as processing those items alone, not a walk over every id
+    @Test
+    void repeatRunOnlyTouchesNewItems() {
+        BatchResult first = batchProcessor.process((items, notFound) -> { });
+        itemRepository.saveAll(IntStream.range(0, 100)
+                .mapToObj(i -> new Item(null, "New " + i, null, ItemStatus.NEW, "new" + i + "@test.com"))
+                .toList());
+
+        BatchResult repeat = batchProcessor.process((items, notFound) -> { });
+        BatchResult idle = batchProcessor.process((items, notFound) -> { });
+
+        System.out.printf("items=%d first run: %d ms | repeat with 100 new: %.2f ms (%d chunks) | nothing pending: %.2f ms%n",
+                ITEMS, first.elapsed().toMillis(), repeat.elapsed().toNanos() / 1_000_000.0, repeat.chunks(),
+                idle.elapsed().toNanos() / 1_000_000.0);
+
+        assertEquals(ITEMS, first.processed());
+        assertEquals(100, repeat.processed());
+        assertEquals(0, idle.processed());
+    }
+
+    // the pre-batch implementation: one task per id, each with its own findById and save
+    private int processPerId() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(10);
+        try {
+            List<CompletableFuture<Item>> futures = new ArrayList<>();
+            for (Long id : itemRepository.findAllIds()) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    Item item = itemRepository.findById(id).orElseThrow();
+                    item.setStatus(ItemStatus.PROCESSED);
+                    return itemRepository.save(item);
+                }, pool));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+            return futures.size();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
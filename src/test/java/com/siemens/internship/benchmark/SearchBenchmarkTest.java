@@ -0,0 +1,138 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.model.ItemPage;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemSearchIndex;
+import com.siemens.internship.service.ItemService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Search latency on a large table: the in-memory index ({@link ItemSearchIndex#search} alone and the whole
+ * {@link ItemService#search} page including the database read) against a {@code LIKE} scan of the same page.
+ * Also prints how long the startup build takes and roughly how much heap the index holds.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}, the table size with {@code -Dbenchmark.rows} (default 1,000,000).
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:search-benchmark", "item.processing.incremental.enabled=false"})
+class SearchBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final int LIMIT = 100;
+    private static final int ITERATIONS = 1_000;
+    private static final int SCAN_ITERATIONS = 5;
+
+    @Autowired
+    private ItemSearchIndex searchIndex;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        // "Item <x> <colour> <thing>": every colour/thing pair is 1 in 77 rows, every number a single row
+        jdbcTemplate.update("INSERT INTO item (id, name, description, status, email, version) "
+                + "SELECT x, 'Item ' || x || ' ' "
+                + "|| ARRAY['red', 'blue', 'green', 'black', 'white', 'oak', 'steel'][MOD(x, 7) + 1] || ' ' "
+                + "|| ARRAY['chair', 'table', 'desk', 'lamp', 'shelf', 'sofa', 'stool', 'bench', 'cabinet', 'bed', 'rug'][MOD(x, 11) + 1], "
+                + "'Description ' || x, 'NEW', 'item' || x || '@test.com', 0 "
+                + "FROM SYSTEM_RANGE(1, ?)", ROWS);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        itemRepository.deleteAllInBatch();
+        searchIndex.rebuild();
+    }
+
+    @Test
+    void indexVersusScan() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        searchIndex.rebuild(); // the rows were inserted around the application
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        System.gc();
+        long heapMb = (runtime.totalMemory() - runtime.freeMemory() - heapBefore) / (1024 * 1024);
+        System.out.printf("rows=%d index build=%d ms heap ~%d MB%n", ROWS, buildMillis, heapMb);
+
+        long deepAfter = ROWS * 9L / 10;
+        print("term 'red chair' page 1", i -> searchIndex.search("red chair", null, LIMIT),
+                i -> itemService.search("red chair", null, LIMIT));
+        print("term 'red chair' deep page", i -> searchIndex.search("red chair", deepAfter + i % 2, LIMIT),
+                i -> itemService.search("red chair", deepAfter + i % 2, LIMIT));
+        print("term 'item' (every row)", i -> searchIndex.search("item", (long) i, LIMIT),
+                i -> itemService.search("item", (long) i, LIMIT));
+        print("single row '777777'", i -> searchIndex.search("777777", null, LIMIT),
+                i -> itemService.search("777777", null, LIMIT));
+        print("prefix 'ch*'", i -> searchIndex.search("ch*", null, LIMIT),
+                i -> itemService.search("ch*", null, LIMIT));
+        print("prefix '12345*' (11 terms)", i -> searchIndex.search("12345*", null, LIMIT),
+                i -> itemService.search("12345*", null, LIMIT));
+
+        // the same pages without an index: H2 has to scan the table until it found a page (or the end)
+        double scanFirst = medianMicros(SCAN_ITERATIONS, i -> jdbcTemplate.queryForList(
+                "SELECT id, name, status FROM item WHERE LOWER(name) LIKE '%red%' AND LOWER(name) LIKE '%chair%' "
+                        + "AND id > ? ORDER BY id LIMIT ?", i % 2, LIMIT));
+        double scanRare = medianMicros(SCAN_ITERATIONS, i -> jdbcTemplate.queryForList(
+                "SELECT id, name, status FROM item WHERE LOWER(name) LIKE ? OR LOWER(description) LIKE ? "
+                        + "ORDER BY id LIMIT ?", "%777777%", "%777777%", LIMIT));
+        System.out.printf("LIKE scan 'red chair' page 1: p50=%.0f us | LIKE scan '777777': p50=%.0f us%n",
+                scanFirst, scanRare);
+
+        ItemPage page = itemService.search("red chair", null, LIMIT);
+        assertEquals(LIMIT, page.items().size());
+        assertEquals(777777L, itemService.search("777777", null, LIMIT).items().get(0).id());
+    }
+
+    private static void print(String query, IntFunction<?> index, IntFunction<?> service) {
+        double[] indexOnly = percentilesMicros(index);
+        double[] withPage = percentilesMicros(service);
+        System.out.printf("%-28s index p50=%.1f us p99=%.1f us | with page read p50=%.0f us p99=%.0f us%n",
+                query, indexOnly[0], indexOnly[1], withPage[0], withPage[1]);
+    }
+
+    private static double[] percentilesMicros(IntFunction<?> call) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.apply(i); // warm up
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            call.apply(i);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return new double[]{samples[ITERATIONS / 2] / 1_000.0, samples[(int) (ITERATIONS * 0.99)] / 1_000.0};
+    }
+
+    private static double medianMicros(int iterations, IntFunction<?> call) {
+        call.apply(0); // warm up
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            call.apply(i);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[iterations / 2] / 1_000.0;
+    }
+}
@@ -0,0 +1,21 @@
+package com.siemens.internship.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"item.processing.jobs.capacity=100000", "item.admission.enabled=false", "spring.threads.virtual.enabled=true"})
+class VirtualThreadLoadTest extends AbstractExecutorModeLoadTest {
+
+    @Override
+    protected String mode() {
+        return "virtual";
+    }
+
+    // item tasks are limited to the Hikari pool size (10), jobs beyond that are rejected (HTTP 503)
+    @Override
+    protected boolean mayReject() {
+        return true;
+    }
+}
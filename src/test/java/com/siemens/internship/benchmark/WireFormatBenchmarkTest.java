@@ -0,0 +1,97 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bytes on the wire and response time of {@code GET /api/items} with 100k items, per format, field selection and
+ * Accept-Encoding. The client does not decompress, so the byte count is what crossed the network.
+ * Run with {@code mvn test -Pbenchmark}; serialization time alone is in the JMH ItemWireFormatBenchmark.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "item.processing.incremental.enabled=false")
+class WireFormatBenchmarkTest {
+
+    private static final int ROWS = 100_000;
+    private static final int ITERATIONS = 5;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO item (id, name, description, status, email, version) "
+                + "SELECT x, 'Item ' || x, 'Description ' || x, 'NEW', 'item' || x || '@test.com', 0 "
+                + "FROM SYSTEM_RANGE(1, ?)", ROWS);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        itemRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void bytesAndTimePerFormat() throws Exception {
+        for (String accept : new String[]{"application/json", "application/cbor", "application/x-jackson-smile"}) {
+            for (String fields : new String[]{"", "id,status"}) {
+                for (String encoding : new String[]{"identity", "gzip"}) {
+                    measure(accept, fields, encoding);
+                }
+            }
+        }
+    }
+
+    private void measure(String accept, String fields, String encoding) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/items?fields=" + fields))
+                .header("Accept", accept)
+                .header("Accept-Encoding", encoding)
+                .GET().build();
+        fetch(request); // warm up
+        long bytes = 0;
+        long[] millis = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            bytes = fetch(request);
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(millis);
+        System.out.printf("items=%d accept=%s fields=%s encoding=%s bytes=%d (%.1f per item) median=%d ms%n",
+                ROWS, accept, fields.isEmpty() ? "all" : fields, encoding, bytes, bytes / (double) ROWS,
+                millis[ITERATIONS / 2]);
+    }
+
+    private long fetch(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        try (InputStream body = response.body()) {
+            return body.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.siemens.internship.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionFilterTest {
+
+    @Test
+    void bucketAllowsABurstThenOneTokenPerInterval() {
+        long now = 0;
+        TokenBucket bucket = new TokenBucket(10, 3, now); // a token every 100 ms
+
+        assertEquals(0, bucket.tryTake(now));
+        assertEquals(0, bucket.tryTake(now));
+        assertEquals(0, bucket.tryTake(now));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.tryTake(now));
+
+        now += TimeUnit.MILLISECONDS.toNanos(100);
+        assertEquals(0, bucket.tryTake(now));
+        assertTrue(bucket.tryTake(now) > 0);
+
+        now += TimeUnit.SECONDS.toNanos(10); // a long pause refills up to the burst, not more
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryTake(now));
+        }
+        assertTrue(bucket.tryTake(now) > 0);
+    }
+
+    @Test
+    void limitGrowsWhileUsedAndFastAndShrinksOnSlowRequests() {
+        long target = TimeUnit.MILLISECONDS.toNanos(100);
+        long now = 0;
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 3, target, now);
+
+        long firstStart = ++now;
+        int first = limit.tryAcquire();
+        int second = limit.tryAcquire();
+        assertEquals(0, limit.tryAcquire(), "third request is over the limit of 2");
+
+        for (int i = 0; i < 4; i++) { // +1/limit per fast request at full use
+            now += target / 2;
+            limit.release(second, now - target / 2, now);
+            second = limit.tryAcquire();
+        }
+        assertEquals(3, limit.limit());
+        now += target / 2;
+        limit.release(second, now - target / 2, now);
+        assertEquals(3, limit.limit(), "capped at max-concurrency");
+
+        now += target * 2;
+        limit.release(first, firstStart, now);
+        assertEquals(2, limit.limit()); // 3 * 0.9
+        for (int i = 0; i < 30; i++) { // each one started after the previous decrease
+            long start = ++now;
+            int inFlight = limit.tryAcquire();
+            now += target * 2;
+            limit.release(inFlight, start, now);
+        }
+        assertEquals(1, limit.limit(), "never below one");
+        assertEquals(0, limit.inFlight());
+    }
+
+    @Test
+    void decreasesOncePerWindowOfSlowRequests() {
+        long target = TimeUnit.MILLISECONDS.toNanos(100);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 10, target, 0);
+
+        // ten requests admitted together, all slow: one congestion event, not ten
+        long start = 1;
+        int[] inFlight = new int[10];
+        for (int i = 0; i < inFlight.length; i++) {
+            inFlight[i] = limit.tryAcquire();
+        }
+        long end = start + target * 2;
+        for (int i = 0; i < inFlight.length; i++) {
+            limit.release(inFlight[i], start, end + i);
+        }
+        assertEquals(9, limit.limit(), "10 * 0.9 once, not 10 * 0.9^10");
+
+        // the next window started after the decrease and is slow again
+        start = end + inFlight.length;
+        int next = limit.tryAcquire();
+        limit.release(next, start, start + target * 2);
+        assertEquals(8, limit.limit()); // 9 * 0.9
+    }
+
+    @Test
+    void classifiesRequestsByEndpoint() {
+        assertEquals(AdmissionFilter.Endpoint.LIST, AdmissionFilter.classify("GET", "/api/items", false));
+        assertEquals(AdmissionFilter.Endpoint.PAGE, AdmissionFilter.classify("GET", "/api/items", true));
+        assertEquals(AdmissionFilter.Endpoint.WRITE, AdmissionFilter.classify("POST", "/api/items", false));
+        assertEquals(AdmissionFilter.Endpoint.READ, AdmissionFilter.classify("GET", "/api/items/7", false));
+        assertEquals(AdmissionFilter.Endpoint.WRITE, AdmissionFilter.classify("PATCH", "/api/items/7", false));
+        assertEquals(AdmissionFilter.Endpoint.BULK, AdmissionFilter.classify("PUT", "/api/items/bulk", false));
+        assertEquals(AdmissionFilter.Endpoint.PROCESS, AdmissionFilter.classify("POST", "/api/items/process", false));
+        assertEquals(AdmissionFilter.Endpoint.READ, AdmissionFilter.classify("GET", "/api/items/process", false));
+        assertEquals(AdmissionFilter.Endpoint.READ, AdmissionFilter.classify("GET", "/api/items/process/abc", false));
+    }
+
+    @Test
+    void rejectsOverTheClientRateWithRetryAfterAndKeepsClientsApart() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(properties(Map.of(
+                "item.admission.client.rate", "0.5",
+                "item.admission.client.burst", "1")));
+
+        assertEquals(200, perform(filter, "GET", "/api/items/1", "a").getStatus());
+        MockHttpServletResponse rejected = perform(filter, "GET", "/api/items/1", "a");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("2", rejected.getHeader("Retry-After"));
+        assertEquals(200, perform(filter, "GET", "/api/items/1", "b").getStatus());
+        assertEquals(200, perform(filter, "GET", "/actuator/health", "a").getStatus(), "only /api/items is limited");
+    }
+
+    @Test
+    void keysClientsOnTheRemoteAddressUnlessAClientHeaderIsConfigured() throws Exception {
+        Map<String, String> limits = Map.of("item.admission.client.rate", "0.5", "item.admission.client.burst", "1");
+        AdmissionFilter byAddress = new AdmissionFilter(properties(limits));
+
+        // a client picking a new id for every request still shares its address's bucket
+        assertEquals(200, status(byAddress, request("GET", "/api/items/1", "10.0.0.1", "id-1")));
+        assertEquals(429, status(byAddress, request("GET", "/api/items/1", "10.0.0.1", "id-2")));
+
+        Map<String, String> behindProxy = new HashMap<>(limits);
+        behindProxy.put("item.admission.client-header", "X-Client-Id");
+        AdmissionFilter byHeader = new AdmissionFilter(properties(behindProxy));
+
+        assertEquals(200, status(byHeader, request("GET", "/api/items/1", "10.0.0.1", "id-1")));
+        assertEquals(200, status(byHeader, request("GET", "/api/items/1", "10.0.0.1", "id-2")));
+        assertEquals(429, status(byHeader, request("GET", "/api/items/1", "10.0.0.1", "id-2")));
+        assertEquals(200, status(byHeader, request("GET", "/api/items/1", "10.0.0.1", null)), "no header: the address");
+    }
+
+    @Test
+    void givesTheClientTokenBackWhenTheEndpointRejects() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(properties(Map.of(
+                "item.admission.client.rate", "0.001",
+                "item.admission.client.burst", "2",
+                "item.admission.endpoints.list.rate", "0.001",
+                "item.admission.endpoints.list.burst", "1")));
+
+        assertEquals(200, perform(filter, "GET", "/api/items", "a").getStatus());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(429, perform(filter, "GET", "/api/items", "a").getStatus()); // the list's bucket
+        }
+        // the rejected list requests cost nothing, one of the two client tokens is left
+        assertEquals(200, perform(filter, "GET", "/api/items/1", "a").getStatus());
+        assertEquals(429, perform(filter, "GET", "/api/items/1", "a").getStatus());
+    }
+
+    @Test
+    void rejectsOverTheEndpointRateWithoutTouchingOtherEndpoints() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(properties(Map.of(
+                "item.admission.endpoints.list.rate", "1",
+                "item.admission.endpoints.list.burst", "1")));
+
+        assertEquals(200, perform(filter, "GET", "/api/items", "a").getStatus());
+        assertEquals(429, perform(filter, "GET", "/api/items", "b").getStatus());
+        assertEquals(200, perform(filter, "GET", "/api/items/1", "b").getStatus());
+    }
+
+    @Test
+    void pagesAreNotLimitedLikeTheStreamedList() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(properties(Map.of(
+                "item.admission.endpoints.list.rate", "1",
+                "item.admission.endpoints.list.burst", "1")));
+
+        assertEquals(200, perform(filter, "GET", "/api/items", "a").getStatus());
+        assertEquals(429, perform(filter, "GET", "/api/items", "a").getStatus());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, perform(filter, "GET", "/api/items?limit=50&after=" + i, "a").getStatus());
+            assertEquals(200, perform(filter, "GET", "/api/items?status=NEW", "a").getStatus());
+        }
+    }
+
+    @Test
+    void shedsRequestsBeyondTheConcurrencyLimit() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(properties(Map.of(
+                "item.admission.endpoints.bulk.concurrency", "1",
+                "item.admission.endpoints.bulk.max-concurrency", "1")));
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+
+        // the second request arrives while the first is still in the chain
+        MockHttpServletResponse outer = new MockHttpServletResponse();
+        filter.doFilter(request("POST", "/api/items/bulk", "a"), outer,
+                new MockFilterChain(new HttpServlet() {
+                }, (request, response, chain) -> nested[0] = perform(filter, "POST", "/api/items/bulk", "b")));
+
+        assertEquals(200, outer.getStatus());
+        assertEquals(503, nested[0].getStatus());
+        assertEquals("1", nested[0].getHeader("Retry-After"));
+        assertEquals(200, perform(filter, "POST", "/api/items/bulk", "b").getStatus(), "released after the first one");
+    }
+
+    @Test
+    void bindsEndpointLimitsFromProperties() {
+        AdmissionProperties properties = properties(Map.of(
+                "item.admission.endpoints.read.latency-target", "50ms",
+                "item.admission.endpoints.read.max-concurrency", "200"));
+
+        AdmissionProperties.Endpoint read = properties.getEndpoints().get(AdmissionFilter.Endpoint.READ);
+        assertEquals(Duration.ofMillis(50), read.getLatencyTarget());
+        assertEquals(200, read.getMaxConcurrency());
+        assertEquals(16, read.getConcurrency());
+    }
+
+    private static AdmissionProperties properties(Map<String, String> values) {
+        return new Binder(new MapConfigurationPropertySource(values))
+                .bindOrCreate("item.admission", AdmissionProperties.class);
+    }
+
+    private static MockHttpServletResponse perform(AdmissionFilter filter, String method, String uri, String client)
+            throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(method, uri, client), response, new MockFilterChain());
+        return response;
+    }
+
+    private static int status(AdmissionFilter filter, MockHttpServletRequest request)
+            throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    // one client per remote address
+    private static MockHttpServletRequest request(String method, String uri, String client) {
+        return request(method, uri, client, null);
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String address, String clientId) {
+        int query = uri.indexOf('?');
+        MockHttpServletRequest request = new MockHttpServletRequest(method, query < 0 ? uri : uri.substring(0, query));
+        if (query >= 0) {
+            for (String parameter : uri.substring(query + 1).split("&")) {
+                String[] pair = parameter.split("=", 2);
+                request.addParameter(pair[0], pair[1]);
+            }
+        }
+        request.setRemoteAddr(address);
+        if (clientId != null) {
+            request.addHeader("X-Client-Id", clientId);
+        }
+        return request;
+    }
+}
@@ -1,28 +1,53 @@
 package com.siemens.internship.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.siemens.internship.model.BulkResult;
+import com.siemens.internship.model.DeadLetterItem;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ItemPage;
+import com.siemens.internship.model.ItemPatch;
+import com.siemens.internship.model.ItemSummary;
+import com.siemens.internship.service.ItemBulkService;
+import com.siemens.internship.service.ItemSearchIndex;
 import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ProcessingJob;
+import com.siemens.internship.service.ProcessingJobRegistry;
+import com.siemens.internship.service.ProcessingJobService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.BDDMockito;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ItemController.class)
+@Import(ItemWireFormats.class)
 class ItemControllerTest {
 
     @Autowired
@@ -31,6 +56,12 @@ class ItemControllerTest {
     @MockBean
     private ItemService itemService;
 
+    @MockBean
+    private ProcessingJobService processingJobService;
+
+    @MockBean
+    private ItemBulkService itemBulkService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -39,18 +70,200 @@ class ItemControllerTest {
 
     @BeforeEach
     void setUp() {
-        item1 = new Item(1L, "Item 1", "Description 1", "NEW", "item1@test.com");
-        item2 = new Item(2L, "Item 2", "Description 2", "OLD", "item2@test.com");
+        item1 = new Item(1L, "Item 1", "Description 1", ItemStatus.NEW, "item1@test.com");
+        item2 = new Item(2L, "Item 2", "Description 2", ItemStatus.UPDATED, "item2@test.com");
     }
 
     @Test
     void shouldReturnAllItems() throws Exception {
-        BDDMockito.given(itemService.findAll()).willReturn(Arrays.asList(item1, item2));
+        givenStoredItems(item1, item2);
 
         mockMvc.perform(get("/api/items"))
                 .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.length()", is(2)))
                 .andExpect(jsonPath("$[0].name", is("Item 1")));
+
+        Mockito.verify(itemService, Mockito.never()).findAll();
+    }
+
+    @Test
+    void shouldReturnEmptyArrayWhenThereAreNoItems() throws Exception {
+        givenStoredItems();
+
+        mockMvc.perform(get("/api/items"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+    }
+
+    @Test
+    void shouldStreamAllItemsAsNdjson() throws Exception {
+        givenStoredItems(item1, item2);
+
+        String body = mockMvc.perform(get("/api/items").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(body.endsWith("}\n"));
+        assertTrue(lines[1].startsWith("{"));
+        assertEquals("Item 1", objectMapper.readValue(lines[0], Item.class).getName());
+        assertEquals("Item 2", objectMapper.readValue(lines[1], Item.class).getName());
+    }
+
+    @Test
+    void shouldWriteOnlyTheSelectedFields() throws Exception {
+        givenStoredItems(item1, item2);
+
+        mockMvc.perform(get("/api/items").param("fields", "id, status"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":1,\"status\":\"NEW\"},{\"id\":2,\"status\":\"UPDATED\"}]", true));
+
+        String line = mockMvc.perform(get("/api/items").param("fields", "name").accept(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n")[0];
+        assertEquals("{\"name\":\"Item 1\"}", line);
+    }
+
+    @Test
+    void shouldRejectUnknownFields() throws Exception {
+        mockMvc.perform(get("/api/items").param("fields", "id,price"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0]", containsString("[price]")));
+
+        Mockito.verify(itemService, Mockito.never()).forEachItem(any());
+    }
+
+    @Test
+    void shouldEncodeTheListAsCborOrSmile() throws Exception {
+        givenStoredItems(item1, item2);
+
+        byte[] cbor = mockMvc.perform(get("/api/items").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode items = new CBORMapper().readTree(cbor);
+        assertEquals(2, items.size());
+        assertEquals("Item 2", items.get(1).get("name").asText());
+
+        byte[] smile = mockMvc.perform(get("/api/items").param("fields", "id").accept(ItemWireFormats.SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ItemWireFormats.SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals("[{\"id\":1},{\"id\":2}]", new SmileMapper().readTree(smile).toString());
+    }
+
+    @Test
+    void shouldEncodeTheListInTheFormatTheClientPrefersByQuality() throws Exception {
+        givenStoredItems(item1, item2);
+
+        mockMvc.perform(get("/api/items").header("Accept", "application/cbor;q=0.1, application/json"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[1].name", is("Item 2")));
+        mockMvc.perform(get("/api/items").header("Accept", "application/json;q=0.5, application/x-jackson-smile;q=0.9"))
+                .andExpect(content().contentType(ItemWireFormats.SMILE));
+        mockMvc.perform(get("/api/items").header("Accept", "application/cbor;q=0.5, */*"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/items").header("Accept", "application/cbor, */*"))
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+        mockMvc.perform(get("/api/items").header("Accept", "application/cbor;q=0, application/json;q=0.2"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void shouldReturnKeysetPage() throws Exception {
+        ItemPage page = new ItemPage(List.of(new ItemSummary(3L, "Item 3", ItemStatus.NEW), new ItemSummary(4L, "Item 4", ItemStatus.NEW)), 4L);
+        BDDMockito.given(itemService.findPage(null, 2L, 2)).willReturn(page);
+
+        mockMvc.perform(get("/api/items").param("after", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()", is(2)))
+                .andExpect(jsonPath("$.items[0].id", is(3)))
+                .andExpect(jsonPath("$.items[0].email").doesNotExist())
+                .andExpect(jsonPath("$.nextAfter", is(4)));
+    }
+
+    @Test
+    void shouldReturnFirstPageWithoutCursor() throws Exception {
+        BDDMockito.given(itemService.findPage(null, null, 10)).willReturn(new ItemPage(List.of(), null));
+
+        mockMvc.perform(get("/api/items").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()", is(0)))
+                .andExpect(jsonPath("$.nextAfter").value(nullValue()));
+    }
+
+    @Test
+    void shouldFilterPageByStatus() throws Exception {
+        ItemPage page = new ItemPage(List.of(new ItemSummary(3L, "Item 3", ItemStatus.PROCESSED)), null);
+        BDDMockito.given(itemService.findPage(ItemStatus.PROCESSED, null, 50)).willReturn(page);
+        BDDMockito.given(itemService.findPage(ItemStatus.PROCESSED, null, 100)).willReturn(page);
+
+        mockMvc.perform(get("/api/items").param("status", "PROCESSED").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].status", is("PROCESSED")));
+        // without a limit the status filter returns the first page of the default size
+        mockMvc.perform(get("/api/items").param("status", "PROCESSED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()", is(1)));
+    }
+
+    @Test
+    void shouldRejectUnknownStatus() throws Exception {
+        mockMvc.perform(get("/api/items").param("status", "BOGUS"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectPageLimitOutOfRange() throws Exception {
+        mockMvc.perform(get("/api/items").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/items").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldSearchItemsPageByPage() throws Exception {
+        ItemPage page = new ItemPage(List.of(new ItemSummary(7L, "Red chair", ItemStatus.NEW)), 7L);
+        BDDMockito.given(itemService.search("red chai*", 3L, 1)).willReturn(page);
+
+        mockMvc.perform(get("/api/items/search").param("q", "red chai*").param("after", "3").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name", is("Red chair")))
+                .andExpect(jsonPath("$.nextAfter", is(7)));
+    }
+
+    @Test
+    void shouldRejectInvalidSearch() throws Exception {
+        BDDMockito.given(itemService.search("a*", null, 100))
+                .willThrow(new ItemSearchIndex.InvalidQueryException("Prefix 'a*' matches more than 1024 terms"));
+
+        mockMvc.perform(get("/api/items/search").param("q", "a*"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0]", is("Prefix 'a*' matches more than 1024 terms")));
+        mockMvc.perform(get("/api/items/search").param("q", "chair").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/items/search"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldAnswer503WhileTheSearchIndexIsBuilt() throws Exception {
+        BDDMockito.given(itemService.search("chair", null, 100)).willThrow(new ItemSearchIndex.NotReadyException());
+
+        mockMvc.perform(get("/api/items/search").param("q", "chair"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenStoredItems(Item... items) {
+        BDDMockito.willAnswer(invocation -> {
+            Consumer<Item> action = invocation.getArgument(0);
+            Arrays.stream(items).forEach(action);
+            return null;
+        }).given(itemService).forEachItem(any(Consumer.class));
     }
 
     @Test
@@ -72,8 +285,8 @@ class ItemControllerTest {
 
     @Test
     void shouldCreateItemWhenValid() throws Exception {
-        Item input = new Item(null, "New Item", "Some desc", "NEW", "valid@email.com");
-        Item saved = new Item(3L, "New Item", "Some desc", "NEW", "valid@email.com");
+        Item input = new Item(null, "New Item", "Some desc", ItemStatus.NEW, "valid@email.com");
+        Item saved = new Item(3L, "New Item", "Some desc", ItemStatus.NEW, "valid@email.com");
 
         BDDMockito.given(itemService.save(any(Item.class))).willReturn(saved);
 
@@ -87,7 +300,7 @@ class ItemControllerTest {
 
     @Test
     void shouldRejectInvalidEmailOnCreate() throws Exception {
-        Item invalid = new Item(null, "Invalid", "Desc", "NEW", "bad-email");
+        Item invalid = new Item(null, "Invalid", "Desc", ItemStatus.NEW, "bad-email");
 
         mockMvc.perform(post("/api/items")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -98,10 +311,10 @@ class ItemControllerTest {
 
     @Test
     void shouldUpdateItemFieldsWhenFound() throws Exception {
-        Item updates = new Item(null, "Updated", null, "UPDATED", "updated@email.com");
-        Item updatedItem = new Item(1L, "Updated", "Description 1", "UPDATED", "updated@email.com");
+        Item updates = new Item(null, "Updated", null, ItemStatus.UPDATED, "updated@email.com");
+        Item updatedItem = new Item(1L, "Updated", "Description 1", ItemStatus.UPDATED, "updated@email.com");
 
-        BDDMockito.given(itemService.findById(1L)).willReturn(Optional.of(item1));
+        BDDMockito.given(itemService.findForUpdate(1L)).willReturn(Optional.of(item1));
         BDDMockito.given(itemService.save(any(Item.class))).willReturn(updatedItem);
 
         mockMvc.perform(put("/api/items/1")
@@ -114,7 +327,7 @@ class ItemControllerTest {
 
     @Test
     void shouldReturnNotFoundWhenUpdatingNonExistingItem() throws Exception {
-        BDDMockito.given(itemService.findById(99L)).willReturn(Optional.empty());
+        BDDMockito.given(itemService.findForUpdate(99L)).willReturn(Optional.empty());
 
         mockMvc.perform(put("/api/items/99")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -122,6 +335,62 @@ class ItemControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void shouldReturnConflictWhenUpdatingStaleVersion() throws Exception {
+        Item updates = new Item(null, "Updated", null, null, "updated@email.com", 1L);
+        BDDMockito.given(itemService.findForUpdate(1L)).willReturn(Optional.of(item1));
+        BDDMockito.given(itemService.save(any(Item.class))).willThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L));
+
+        mockMvc.perform(put("/api/items/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updates)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void shouldPatchItemWithoutReadingIt() throws Exception {
+        BDDMockito.given(itemService.patch(1L, new ItemPatch(null, null, ItemStatus.PROCESSED, null, null))).willReturn(true);
+
+        mockMvc.perform(patch("/api/items/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"PROCESSED\"}"))
+                .andExpect(status().isNoContent());
+
+        Mockito.verify(itemService, Mockito.never()).findById(any());
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenPatchingNonExistingItem() throws Exception {
+        BDDMockito.given(itemService.patch(eq(99L), any(ItemPatch.class))).willReturn(false);
+
+        mockMvc.perform(patch("/api/items/99")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"x\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldRejectInvalidEmailOnPatch() throws Exception {
+        mockMvc.perform(patch("/api/items/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0]", containsString("email")));
+
+        Mockito.verify(itemService, Mockito.never()).patch(any(), any());
+    }
+
+    @Test
+    void shouldReturnConflictWhenPatchingStaleVersion() throws Exception {
+        BDDMockito.given(itemService.patch(eq(1L), any(ItemPatch.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L));
+
+        mockMvc.perform(patch("/api/items/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"x\",\"version\":0}"))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void shouldDeleteItemWhenExists() throws Exception {
         BDDMockito.given(itemService.existsById(1L)).willReturn(true);
@@ -139,16 +408,155 @@ class ItemControllerTest {
     }
 
     @Test
-    void shouldReturnProcessedItems() throws Exception {
-        item1.setStatus("PROCESSED");
-        item2.setStatus("PROCESSED");
+    void shouldBulkCreateItemsFromJsonArray() throws Exception {
+        List<Item> received = new ArrayList<>();
+        BDDMockito.given(itemBulkService.create(any())).willAnswer(invocation -> {
+            Iterator<Item> items = invocation.getArgument(0);
+            items.forEachRemaining(received::add);
+            return new BulkResult(2, 0, List.of(1L, 2L), List.of());
+        });
+
+        mockMvc.perform(post("/api/items/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(item1, item2))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded", is(2)))
+                .andExpect(jsonPath("$.ids", contains(1, 2)));
+
+        assertEquals(List.of("Item 1", "Item 2"), received.stream().map(Item::getName).toList());
+    }
+
+    @Test
+    void shouldBulkUpdateItemsFromNdjson() throws Exception {
+        List<Item> received = new ArrayList<>();
+        BDDMockito.given(itemBulkService.update(any())).willAnswer(invocation -> {
+            Iterator<Item> items = invocation.getArgument(0);
+            items.forEachRemaining(received::add);
+            return new BulkResult(1, 1, List.of(1L), List.of(new BulkResult.Error(1, 2L, List.of("item not found"))));
+        });
+        String body = objectMapper.writeValueAsString(item1) + "\n" + objectMapper.writeValueAsString(item2) + "\n";
+
+        mockMvc.perform(put("/api/items/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.errors[0].index", is(1)))
+                .andExpect(jsonPath("$.errors[0].messages[0]", is("item not found")));
 
-        BDDMockito.given(itemService.processItemsAsync())
-                .willReturn(CompletableFuture.completedFuture(Arrays.asList(item1, item2)));
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    void shouldBulkDeleteIds() throws Exception {
+        List<Long> received = new ArrayList<>();
+        BDDMockito.given(itemBulkService.delete(any())).willAnswer(invocation -> {
+            Iterator<Long> ids = invocation.getArgument(0);
+            ids.forEachRemaining(received::add);
+            return new BulkResult(3, 0, List.of(1L, 2L, 3L), List.of());
+        });
+
+        mockMvc.perform(delete("/api/items/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2, 3]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded", is(3)));
+
+        assertEquals(List.of(1L, 2L, 3L), received);
+    }
+
+    @Test
+    void shouldStartProcessingJobWithoutWaiting() throws Exception {
+        ProcessingJob job = new ProcessingJob(2);
+        BDDMockito.given(processingJobService.start()).willReturn(job);
+
+        mockMvc.perform(post("/api/items/process"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/items/process/" + job.getId()))
+                .andExpect(jsonPath("$.id", is(job.getId())))
+                .andExpect(jsonPath("$.state", is("RUNNING")))
+                .andExpect(jsonPath("$.remaining", is(2)));
+
+        Mockito.verifyNoInteractions(itemService);
+    }
+
+    @Test
+    void shouldReturnProcessingJobProgress() throws Exception {
+        ProcessingJob job = new ProcessingJob(2);
+        BDDMockito.given(processingJobService.find(job.getId())).willReturn(Optional.of(job));
+
+        mockMvc.perform(get("/api/items/process/" + job.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.processed", is(0)));
+    }
+
+    @Test
+    void shouldListProcessingJobs() throws Exception {
+        BDDMockito.given(processingJobService.findAll()).willReturn(List.of(new ProcessingJob(1), new ProcessingJob(2)));
 
         mockMvc.perform(get("/api/items/process"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()", is(2)))
-                .andExpect(jsonPath("$[0].status", is("PROCESSED")));
+                .andExpect(jsonPath("$.length()", is(2)));
+    }
+
+    @Test
+    void shouldListDeadLetters() throws Exception {
+        BDDMockito.given(processingJobService.findDeadLetters(5L, 2)).willReturn(List.of(
+                new DeadLetterItem(7L, "persist", "value too long", 1, Instant.now())));
+
+        mockMvc.perform(get("/api/items/process/dead-letters").param("after", "5").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].itemId", is(7)))
+                .andExpect(jsonPath("$[0].stage", is("persist")))
+                .andExpect(jsonPath("$[0].error", is("value too long")));
+        mockMvc.perform(get("/api/items/process/dead-letters").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownJob() throws Exception {
+        BDDMockito.given(processingJobService.find("missing")).willReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/items/process/missing"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/items/process/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldCancelRunningJob() throws Exception {
+        ProcessingJob job = new ProcessingJob(2);
+        BDDMockito.given(processingJobService.find(job.getId())).willReturn(Optional.of(job));
+        BDDMockito.given(processingJobService.cancel(job)).willReturn(true);
+
+        mockMvc.perform(delete("/api/items/process/" + job.getId()))
+                .andExpect(status().isAccepted());
+    }
+
+    @Test
+    void shouldReturnConflictWhenCancellingFinishedJob() throws Exception {
+        ProcessingJob job = new ProcessingJob(2);
+        BDDMockito.given(processingJobService.find(job.getId())).willReturn(Optional.of(job));
+        BDDMockito.given(processingJobService.cancel(job)).willReturn(false);
+
+        mockMvc.perform(delete("/api/items/process/" + job.getId()))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void shouldReturnTooManyRequestsWhenJobLimitReached() throws Exception {
+        BDDMockito.given(processingJobService.start()).willThrow(new ProcessingJobRegistry.JobLimitExceededException(100));
+
+        mockMvc.perform(post("/api/items/process"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void shouldReturnServiceUnavailableWhenExecutorIsFull() throws Exception {
+        BDDMockito.given(processingJobService.start()).willThrow(new RejectedExecutionException("full"));
+
+        mockMvc.perform(post("/api/items/process"))
+                .andExpect(status().isServiceUnavailable());
     }
 }
@@ -0,0 +1,77 @@
+package com.siemens.internship.controller;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// PUT against a real database while the item cache holds an older copy, as it does on a replica that didn't see
+// the last write (here: a write that bypasses the cache)
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:item-update", "item.admission.enabled=false",
+        "item.processing.incremental.enabled=false", "item.processing.jobs.resume-on-startup=false"})
+@AutoConfigureMockMvc
+class ItemUpdateTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        itemRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void putMergesOntoTheStoredItemNotTheCachedCopy() throws Exception {
+        Long id = cachedItemChangedBehindTheCache();
+
+        mockMvc.perform(put("/api/items/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Renamed\",\"email\":\"item@test.com\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Renamed")))
+                .andExpect(jsonPath("$.description", is("Changed elsewhere")))
+                .andExpect(jsonPath("$.version", is(2)));
+    }
+
+    @Test
+    void staleVersionAnswers409AndTheReloadIsCurrent() throws Exception {
+        Long id = cachedItemChangedBehindTheCache();
+
+        mockMvc.perform(put("/api/items/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Renamed\",\"email\":\"item@test.com\",\"version\":0}"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/api/items/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description", is("Changed elsewhere")))
+                .andExpect(jsonPath("$.version", is(1)));
+    }
+
+    // version 0 in the cache, version 1 in the database
+    private Long cachedItemChangedBehindTheCache() throws Exception {
+        Long id = itemRepository.save(new Item(null, "Item", "Description", ItemStatus.NEW, "item@test.com")).getId();
+        mockMvc.perform(get("/api/items/" + id)).andExpect(jsonPath("$.version", is(0)));
+        jdbcTemplate.update("UPDATE item SET description = 'Changed elsewhere', version = version + 1 WHERE id = ?", id);
+        return id;
+    }
+}
@@ -0,0 +1,65 @@
+package com.siemens.internship.model;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemRequestTest {
+
+    private static final List<String> VALID = List.of("item@test.com", "first.last+tag@sub.example.org", "a@localhost",
+            "o'hara@example.com", "user@xn--bcher-kva.example", "jörg@bücher.de", "x@a-b.c1");
+    private static final List<String> INVALID = List.of("", " ", "not an email", "bad-email", "@test.com", "item@",
+            "item@@test.com", ".item@test.com", "item.@test.com", "it..em@test.com", "item@test..com", "item@.test.com",
+            "item@test.com.", "item@-test.com", "item@test-.com", "item @test.com", "item@te st.com");
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void acceptsWhatTheEntityAccepts() {
+        for (String email : VALID) {
+            assertEquals(List.of(), request("Item", email).errors(), email);
+            assertEquals(0, validator.validate(request("Item", email).toItem()).size(), email);
+        }
+    }
+
+    @Test
+    void rejectsWhatTheEntityRejects() {
+        for (String email : INVALID) {
+            assertEquals(List.of("email Error"), request("Item", email).errors(), email);
+        }
+        assertEquals(List.of("email Error"), request("Item", null).errors());
+        for (String email : List.of("", " ", "not an email", "bad-email", "@test.com", "item@", "item@@test.com")) {
+            assertFalse(validator.validate(request("Item", email).toItem()).isEmpty(), email);
+        }
+    }
+
+    @Test
+    void rejectsValuesLongerThanTheirColumn() {
+        String tooLong = "x".repeat(ItemRequest.MAX_LENGTH + 1);
+
+        assertEquals(List.of("name Error", "description Error"),
+                new ItemRequest(tooLong, tooLong, null, "item@test.com").errors());
+        assertEquals(List.of("email Error"), request("Item", "a@" + "b".repeat(60) + "." + "c".repeat(200)).errors());
+        assertEquals(List.of("email Error"), request("Item", "a".repeat(65) + "@test.com").errors());
+    }
+
+    @Test
+    void mapsToANewEntity() {
+        Item item = new ItemRequest("Item", "Description", ItemStatus.UPDATED, "item@test.com").toItem();
+
+        assertNull(item.getId());
+        assertNull(item.getVersion());
+        assertEquals("Item", item.getName());
+        assertEquals("Description", item.getDescription());
+        assertEquals(ItemStatus.UPDATED, item.getStatus());
+        assertEquals("item@test.com", item.getEmail());
+    }
+
+    private static ItemRequest request(String name, String email) {
+        return new ItemRequest(name, null, null, email);
+    }
+}
@@ -0,0 +1,20 @@
+package com.siemens.internship.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemStatusTest {
+
+    @Test
+    void pendingIsEverythingButProcessedAndCannotBeChanged() {
+        Set<ItemStatus> pending = ItemStatus.pending();
+
+        assertEquals(Set.of(ItemStatus.NEW, ItemStatus.UPDATED), pending);
+        assertThrows(UnsupportedOperationException.class, () -> pending.add(ItemStatus.PROCESSED));
+        assertThrows(UnsupportedOperationException.class, () -> pending.remove(ItemStatus.NEW));
+        assertEquals(Set.of(ItemStatus.NEW, ItemStatus.UPDATED), ItemStatus.pending());
+    }
+}
@@ -0,0 +1,113 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ItemSummary;
+import com.siemens.internship.model.ItemText;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ItemRepositoryTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        ids = itemRepository.saveAll(IntStream.range(0, 5)
+                        .mapToObj(i -> new Item(null, "Item " + i, "Description " + i, ItemStatus.NEW, "item" + i + "@test.com"))
+                        .toList())
+                .stream().map(Item::getId).sorted().toList();
+    }
+
+    @Test
+    void keysetPagesFollowEachOther() {
+        List<ItemSummary> first = itemRepository.findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, Limit.of(2));
+        List<ItemSummary> second = itemRepository.findByIdGreaterThanOrderByIdAsc(first.get(1).id(), Limit.of(2));
+        List<ItemSummary> last = itemRepository.findByIdGreaterThanOrderByIdAsc(second.get(1).id(), Limit.of(2));
+
+        assertEquals(ids.subList(0, 2), first.stream().map(ItemSummary::id).toList());
+        assertEquals(ids.subList(2, 4), second.stream().map(ItemSummary::id).toList());
+        assertEquals(ids.subList(4, 5), last.stream().map(ItemSummary::id).toList());
+        assertEquals("Item 0", first.get(0).name());
+        assertEquals(ItemStatus.NEW, first.get(0).status());
+    }
+
+    @Test
+    void findIdsAfterPagesInIdOrder() {
+        assertEquals(ids.subList(0, 3), itemRepository.findIdsAfter(Long.MIN_VALUE, PageRequest.of(0, 3)));
+        assertEquals(ids.subList(3, 5), itemRepository.findIdsAfter(ids.get(2), PageRequest.of(0, 3)));
+    }
+
+    @Test
+    void findsIdsAndCountsByStatus() {
+        itemRepository.patch(ids.get(1), null, null, ItemStatus.PROCESSED, null, null);
+        itemRepository.patch(ids.get(3), null, null, ItemStatus.PROCESSED, null, null);
+
+        assertEquals(List.of(ids.get(0), ids.get(2)),
+                itemRepository.findIdsByStatus(ItemStatus.NEW, Long.MIN_VALUE, PageRequest.of(0, 2)));
+        assertEquals(List.of(ids.get(4)), itemRepository.findIdsByStatus(ItemStatus.NEW, ids.get(2), PageRequest.of(0, 2)));
+        assertEquals(2, itemRepository.countByStatus(ItemStatus.PROCESSED));
+        assertEquals(3, itemRepository.countByStatusIn(ItemStatus.pending()));
+        assertEquals(List.of(ids.get(3)), itemRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                ItemStatus.PROCESSED, ids.get(1), Limit.of(10)).stream().map(ItemSummary::id).toList());
+    }
+
+    @Test
+    void readsTheSearchTextOfItems() {
+        List<ItemText> texts = itemRepository.findTextByIdIn(List.of(ids.get(1), ids.get(3), -1L));
+        assertEquals(List.of(ids.get(1), ids.get(3)), texts.stream().map(ItemText::id).sorted().toList());
+
+        try (Stream<ItemText> all = itemRepository.streamAllText()) {
+            ItemText first = all.findFirst().orElseThrow();
+            assertEquals(new ItemText(ids.get(0), 0L, "Item 0", "Description 0"), first);
+        }
+        assertEquals(List.of(ids.get(2), ids.get(4)), itemRepository.findByIdInOrderByIdAsc(List.of(ids.get(4), ids.get(2)))
+                .stream().map(ItemSummary::id).toList());
+    }
+
+    @Test
+    void newItemsWithoutStatusStartAsNew() {
+        Item saved = itemRepository.save(new Item(null, "No status", null, null, "none@test.com"));
+
+        assertEquals(ItemStatus.NEW, saved.getStatus());
+    }
+
+    @Test
+    void patchWritesOnlyGivenFieldsAndBumpsVersion() {
+        Long id = ids.get(0);
+        Long version = itemRepository.findById(id).orElseThrow().getVersion();
+
+        assertEquals(1, itemRepository.patch(id, "Patched", null, null, null, null));
+
+        Item patched = itemRepository.findById(id).orElseThrow();
+        assertEquals("Patched", patched.getName());
+        assertEquals("Description 0", patched.getDescription());
+        assertEquals("item0@test.com", patched.getEmail());
+        assertEquals(version + 1, patched.getVersion());
+    }
+
+    @Test
+    void patchWithStaleVersionUpdatesNothing() {
+        Long id = ids.get(0);
+        Long version = itemRepository.findById(id).orElseThrow().getVersion();
+        itemRepository.patch(id, null, null, ItemStatus.PROCESSED, null, version);
+
+        assertEquals(0, itemRepository.patch(id, "Stale", null, null, null, version));
+        assertEquals(0, itemRepository.patch(-1L, "Missing", null, null, null, null));
+        assertEquals("Item 0", itemRepository.findById(id).orElseThrow().getName());
+    }
+}
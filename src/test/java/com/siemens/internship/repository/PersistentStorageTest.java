@@ -0,0 +1,44 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.InternshipApplication;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentStorageTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void itemsSurviveARestartAndMigrationsRunOnce() {
+        Long id;
+        try (ConfigurableApplicationContext context = start()) {
+            id = context.getBean(ItemRepository.class)
+                    .save(new Item(null, "Item 1", null, ItemStatus.NEW, "item1@test.com")).getId();
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            Item item = context.getBean(ItemRepository.class).findById(id).orElseThrow();
+            assertEquals("Item 1", item.getName());
+            assertEquals(1, context.getBean(JdbcTemplate.class).queryForObject(
+                    "SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"version\" = '1'", Integer.class));
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("persistent")
+                .run("--item.storage.directory=" + directory, "--item.processing.incremental.enabled=false");
+    }
+}
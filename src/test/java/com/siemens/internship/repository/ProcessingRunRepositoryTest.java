@@ -0,0 +1,89 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.ProcessingRun;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ProcessingRunRepositoryTest {
+
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    @Autowired
+    private ProcessingRunRepository runRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void onlyUnownedExpiredOrOwnRunsAreResumable() {
+        save("released", null, null);
+        save("expired", "node-b", NOW.minusSeconds(1));
+        save("own", "node-a", NOW.plus(LEASE));
+        save("leased", "node-b", NOW.plus(LEASE));
+        ProcessingRun completed = new ProcessingRun("completed", 10, NOW, null, null);
+        completed.setState(ProcessingRun.State.COMPLETED);
+        runRepository.saveAndFlush(completed);
+
+        assertEquals(Set.of("released", "expired", "own"), runRepository.findResumable("node-a", NOW).stream()
+                .map(ProcessingRun::getId).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void aRunIsClaimedByOneNodeOnly() {
+        save("run", "node-c", NOW.minusSeconds(1));
+
+        assertEquals(1, runRepository.claim("run", "node-a", NOW, NOW.plus(LEASE)));
+        assertEquals(0, runRepository.claim("run", "node-b", NOW, NOW.plus(LEASE)));
+        assertEquals("node-a", reload("run").getOwner());
+    }
+
+    @Test
+    void checkpointKeepsTheLastRangeAndIsRejectedForAnotherOwner() {
+        save("run", "node-a", NOW.plus(LEASE));
+
+        assertEquals(1, runRepository.checkpoint("run", "node-a", 5, 1, 0, 1L, 100L, NOW, NOW.plus(LEASE)));
+        assertEquals(1, runRepository.checkpoint("run", "node-a", 7, 1, 1, null, null, NOW, NOW.plus(LEASE)));
+        assertEquals(0, runRepository.checkpoint("run", "node-b", 9, 1, 1, null, null, NOW, NOW.plus(LEASE)));
+
+        ProcessingRun run = reload("run");
+        assertEquals(7, run.getProcessed());
+        assertEquals(1, run.getFailed());
+        assertEquals(1L, run.getLastRangeStart());
+        assertEquals(100L, run.getLastRangeEnd());
+    }
+
+    @Test
+    void finishedRunIsNoLongerResumable() {
+        save("run", "node-a", NOW.plus(LEASE));
+
+        assertEquals(1, runRepository.finish("run", "node-a", ProcessingRun.State.COMPLETED, 10, 0, 0, NOW, NOW, null));
+
+        ProcessingRun run = reload("run");
+        assertEquals(ProcessingRun.State.COMPLETED, run.getState());
+        assertNull(run.getOwner());
+        assertEquals(NOW, run.getFinishedAt());
+        assertTrue(runRepository.findResumable("node-a", NOW).isEmpty());
+        assertEquals(0, runRepository.release("run", "node-a"));
+    }
+
+    private void save(String id, String owner, Instant leaseUntil) {
+        runRepository.saveAndFlush(new ProcessingRun(id, 10, NOW.minusSeconds(60), owner, leaseUntil));
+    }
+
+    private ProcessingRun reload(String id) {
+        entityManager.clear();
+        return runRepository.findById(id).orElseThrow();
+    }
+}
\ No newline at end of file
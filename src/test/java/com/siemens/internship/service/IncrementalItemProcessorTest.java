@@ -0,0 +1,195 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.BulkResult;
+import com.siemens.internship.model.DeadLetterItem;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemChange;
+import com.siemens.internship.model.ItemPatch;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ProcessingCheckpoint;
+import com.siemens.internship.repository.DeadLetterItemRepository;
+import com.siemens.internship.repository.ItemChangeRepository;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.repository.ProcessingCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the schedule is pushed out of the way, the tests call drain() themselves; own database, the schedule of
+// other cached test contexts on the shared one would drain the outbox under the tests
+@SpringBootTest(properties = {"item.processing.incremental.interval=PT1H", "spring.datasource.url=jdbc:h2:mem:incremental"})
+class IncrementalItemProcessorTest {
+
+    @Autowired
+    private IncrementalItemProcessor incrementalProcessor;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemBulkService itemBulkService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemChangeRepository changeRepository;
+
+    @Autowired
+    private ProcessingCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private DeadLetterItemRepository deadLetterRepository;
+
+    @Autowired
+    private ItemSearchIndex searchIndex;
+
+    // reject or rename the items of the dead letter and search index tests, the other tests never name one like that
+    @TestConfiguration
+    static class TestProcessorConfig {
+
+        @Bean
+        ItemProcessor rejectingProcessor() {
+            return item -> {
+                if (item.getName().startsWith("rejected")) {
+                    throw new IllegalArgumentException("rejected by the test");
+                }
+            };
+        }
+
+        @Bean
+        ItemProcessor renamingProcessor() {
+            return item -> item.setName(item.getName().replace("draft", "final"));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        changeRepository.deleteAllInBatch();
+        checkpointRepository.deleteAllInBatch();
+        deadLetterRepository.deleteAllInBatch();
+        itemRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void processesOnlyWrittenItems() {
+        // written behind the outbox, e.g. existing data: not picked up incrementally
+        Item untouched = itemRepository.save(newItem("untouched"));
+        Item created = itemService.save(newItem("created"));
+        BulkResult bulk = itemBulkService.create(List.of(newItem("bulk 1"), newItem("bulk 2")).iterator());
+
+        BatchResult result = incrementalProcessor.drain();
+
+        assertEquals(3, result.processed());
+        assertEquals(ItemStatus.PROCESSED, status(created.getId()));
+        bulk.ids().forEach(id -> assertEquals(ItemStatus.PROCESSED, status(id)));
+        assertEquals(ItemStatus.NEW, status(untouched.getId()));
+        assertEquals(0, changeRepository.count());
+        assertTrue(checkpointRepository.findById(IncrementalItemProcessor.CHECKPOINT).orElseThrow().getPosition() > 0);
+        assertEquals(1, checkpointRepository.count(), "one mark shared by all nodes, none per node id");
+
+        assertEquals(0, incrementalProcessor.drain().chunks());
+    }
+
+    @Test
+    void processesAnItemWrittenSeveralTimesOnce() {
+        Item item = itemService.save(newItem("item"));
+        itemService.patch(item.getId(), new ItemPatch("renamed", null, null, null, null));
+        itemService.patch(item.getId(), new ItemPatch(null, "described", null, null, null));
+
+        BatchResult result = incrementalProcessor.drain();
+
+        assertEquals(1, result.processed());
+        assertEquals(0, changeRepository.count());
+    }
+
+    @Test
+    void picksUpChangesBelowTheHighWaterMark() {
+        Item item = itemService.save(newItem("late commit"));
+        // as if a later transaction had already been consumed when this one committed
+        long mark = changeRepository.findAll().get(0).getId() + 1_000;
+        checkpointRepository.save(new ProcessingCheckpoint(IncrementalItemProcessor.CHECKPOINT, mark, Instant.now()));
+
+        BatchResult result = incrementalProcessor.drain();
+
+        assertEquals(1, result.processed());
+        assertEquals(ItemStatus.PROCESSED, status(item.getId()));
+        assertEquals(mark, checkpointRepository.findById(IncrementalItemProcessor.CHECKPOINT).orElseThrow().getPosition());
+    }
+
+    @Test
+    void markOnlyMovesForward() {
+        Item item = itemService.save(newItem("item"));
+        long consumed = changeRepository.findAll().get(0).getId();
+        incrementalProcessor.drain();
+        assertEquals(consumed, checkpointRepository.findById(IncrementalItemProcessor.CHECKPOINT).orElseThrow().getPosition());
+
+        // another node already got further
+        checkpointRepository.save(new ProcessingCheckpoint(IncrementalItemProcessor.CHECKPOINT, consumed + 1_000, Instant.now()));
+        itemService.patch(item.getId(), new ItemPatch("renamed", null, null, null, null));
+        incrementalProcessor.drain();
+
+        assertEquals(consumed + 1_000, checkpointRepository.findById(IncrementalItemProcessor.CHECKPOINT).orElseThrow().getPosition());
+        assertEquals(0, changeRepository.count());
+    }
+
+    @Test
+    void retriesAFailedChunkItemByItemAndDeadLettersTheRejectedItem() {
+        Item before = itemService.save(newItem("before"));
+        Item rejected = itemService.save(newItem("rejected"));
+        Item after = itemService.save(newItem("after"));
+
+        BatchResult result = incrementalProcessor.drain();
+
+        assertEquals(2, result.processed());
+        assertEquals(1, result.failed());
+        assertEquals(ItemStatus.PROCESSED, status(before.getId()));
+        assertEquals(ItemStatus.PROCESSED, status(after.getId()));
+        assertEquals(ItemStatus.NEW, status(rejected.getId()));
+        DeadLetterItem deadLetter = deadLetterRepository.findById(rejected.getId()).orElseThrow();
+        assertEquals("process", deadLetter.getStage());
+        assertTrue(deadLetter.getError().contains("rejected by the test"));
+        // consumed, so the next runs don't fail on it again
+        assertEquals(0, changeRepository.count());
+        assertEquals(0, incrementalProcessor.drain().chunks());
+    }
+
+    @Test
+    void searchIndexHasWhatTheProcessorsWrote() {
+        searchIndex.rebuild(); // don't wait for the background build
+        Item item = itemService.save(newItem("draft chair"));
+
+        incrementalProcessor.drain();
+
+        assertEquals(List.of(item.getId()), searchIndex.search("final chair", null, 10));
+        assertEquals(List.of(), searchIndex.search("draft", null, 10));
+    }
+
+    @Test
+    void countsChangesOfDeletedItemsAsNotFound() {
+        Item item = itemService.save(newItem("deleted"));
+        itemService.deleteById(item.getId());
+
+        BatchResult result = incrementalProcessor.drain();
+
+        assertEquals(0, result.processed());
+        assertEquals(1, result.notFound());
+        assertEquals(List.<ItemChange>of(), changeRepository.findAll());
+    }
+
+    private ItemStatus status(Long id) {
+        return itemRepository.findById(id).orElseThrow().getStatus();
+    }
+
+    private static Item newItem(String name) {
+        return new Item(null, name, null, ItemStatus.NEW, name.replace(' ', '.') + "@test.com");
+    }
+}
@@ -0,0 +1,190 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemBatchProcessorTest {
+
+    @Mock
+    private ItemRepository itemRepositoryMock;
+
+    @Mock
+    private ItemCache itemCacheMock;
+
+    @Mock
+    private ItemSearchIndex searchIndexMock;
+
+    @Mock
+    private PlatformTransactionManager transactionManagerMock;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ItemProcessors processors = new ItemProcessors(List.of(), meterRegistry, 1, 1);
+
+    private ItemBatchProcessor batchProcessor;
+
+    private Item item1, item2, item3;
+
+    @BeforeEach
+    void setUp() {
+        batchProcessor = new ItemBatchProcessor(itemRepositoryMock, itemCacheMock, searchIndexMock, processors,
+                new ItemProcessingMetrics(meterRegistry), transactionManagerMock, 2);
+
+        item1 = new Item(1L, "Item 1", "Description 1", ItemStatus.NEW, "item1@test.com");
+        item2 = new Item(2L, "Item 2", "Description 2", ItemStatus.NEW, "item2@test.com");
+        item3 = new Item(3L, "Item 3", "Description 3", ItemStatus.NEW, "item3@test.com");
+    }
+
+    @AfterEach
+    void shutdownProcessors() {
+        processors.shutdown();
+    }
+
+    @Test
+    void processesEveryChunkInItsOwnTransaction() {
+        given(itemRepositoryMock.findIdsByStatus(ItemStatus.NEW, Long.MIN_VALUE, PageRequest.of(0, 2))).willReturn(List.of(1L, 2L));
+        given(itemRepositoryMock.findIdsByStatus(ItemStatus.NEW, 2L, PageRequest.of(0, 2))).willReturn(List.of(3L));
+        given(itemRepositoryMock.findAllById(List.of(1L, 2L))).willReturn(List.of(item1, item2));
+        given(itemRepositoryMock.findAllById(List.of(3L))).willReturn(List.of(item3));
+        given(itemRepositoryMock.saveAll(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+
+        List<List<Item>> chunks = new ArrayList<>();
+        BatchResult result = batchProcessor.process((items, notFound) -> chunks.add(items));
+
+        assertEquals(3, result.processed());
+        assertEquals(0, result.notFound());
+        assertEquals(2, result.chunks());
+        assertEquals(List.of(List.of(item1, item2), List.of(item3)), chunks);
+        assertTrue(chunks.stream().flatMap(List::stream).allMatch(item -> item.getStatus() == ItemStatus.PROCESSED));
+
+        verify(transactionManagerMock, times(2)).getTransaction(any());
+        verify(transactionManagerMock, times(2)).commit(any());
+        verify(itemCacheMock).invalidateAll(List.of(1L, 2L));
+        verify(itemCacheMock).invalidateAll(List.of(3L));
+        verify(searchIndexMock).refresh(List.of(1L, 2L)); // processors may have changed name and description
+        verify(searchIndexMock).refresh(List.of(3L));
+        // the last NEW page was partial, so there is no extra query for an empty page; UPDATED had nothing
+        verify(itemRepositoryMock, times(2)).findIdsByStatus(eq(ItemStatus.NEW), any(), any());
+        verify(itemRepositoryMock).findIdsByStatus(eq(ItemStatus.UPDATED), any(), any());
+        verify(itemRepositoryMock, never()).findIdsByStatus(eq(ItemStatus.PROCESSED), any(), any());
+        verify(itemRepositoryMock, never()).findById(any());
+        verify(itemRepositoryMock, never()).save(any());
+
+        assertEquals(3, itemCount("processed"));
+        assertEquals(2, meterRegistry.get("item.processing.chunk").timer().count());
+        assertEquals(1, meterRegistry.get("item.processing.run").tag("outcome", "completed").timer().count());
+    }
+
+    @Test
+    void countsItemsDeletedBetweenPagingAndLoading() {
+        given(itemRepositoryMock.findIdsByStatus(ItemStatus.NEW, Long.MIN_VALUE, PageRequest.of(0, 2))).willReturn(List.of(1L, 2L));
+        given(itemRepositoryMock.findIdsByStatus(ItemStatus.NEW, 2L, PageRequest.of(0, 2))).willReturn(List.of());
+        given(itemRepositoryMock.findAllById(List.of(1L, 2L))).willReturn(List.of(item1));
+        given(itemRepositoryMock.saveAll(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+
+        BatchResult result = batchProcessor.process((items, notFound) -> assertEquals(1, notFound));
+
+        assertEquals(1, result.processed());
+        assertEquals(1, result.notFound());
+        assertEquals(1, result.chunks());
+        assertEquals(1, itemCount("not_found"));
+    }
+
+    @Test
+    void emptyTableDoesNotOpenTransactions() {
+        given(itemRepositoryMock.findIdsByStatus(ItemStatus.NEW, Long.MIN_VALUE, PageRequest.of(0, 2))).willReturn(List.of());
+
+        BatchResult result = batchProcessor.process((items, notFound) -> fail("no chunk expected"));
+
+        assertEquals(0, result.processed());
+        assertEquals(0, result.chunks());
+        verifyNoInteractions(transactionManagerMock);
+    }
+
+    @Test
+    void failedChunkIsReportedAndTheRunContinues() {
+        given(itemRepositoryMock.findIdsByStatus(ItemStatus.NEW, Long.MIN_VALUE, PageRequest.of(0, 2))).willReturn(List.of(1L, 2L));
+        given(itemRepositoryMock.findIdsByStatus(ItemStatus.NEW, 2L, PageRequest.of(0, 2))).willReturn(List.of(3L));
+        given(itemRepositoryMock.findAllById(List.of(1L, 2L))).willThrow(new IllegalStateException("db down"));
+        given(itemRepositoryMock.findAllById(List.of(3L))).willReturn(List.of(item3));
+        given(itemRepositoryMock.saveAll(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+
+        List<Long> failedIds = new ArrayList<>();
+        BatchResult result = batchProcessor.process(new ItemBatchProcessor.ChunkListener() {
+            @Override
+            public void onChunk(List<Item> processed, int notFound) {
+            }
+
+            @Override
+            public void onChunkFailed(List<Long> ids, RuntimeException cause) {
+                failedIds.addAll(ids);
+            }
+        });
+
+        assertEquals(1, result.processed());
+        assertEquals(2, result.failed());
+        assertEquals(List.of(1L, 2L), failedIds);
+        verify(transactionManagerMock).rollback(any());
+        verify(itemCacheMock, never()).invalidateAll(List.of(1L, 2L)); // rolled back, the cache is still right
+        assertEquals(2, itemCount("failed"));
+        assertEquals(1, itemCount("processed"));
+    }
+
+    @Test
+    void stopsBeforeTheNextChunkWhenCancelled() {
+        given(itemRepositoryMock.findIdsByStatus(ItemStatus.NEW, Long.MIN_VALUE, PageRequest.of(0, 2))).willReturn(List.of(1L, 2L));
+        given(itemRepositoryMock.findAllById(List.of(1L, 2L))).willReturn(List.of(item1, item2));
+        given(itemRepositoryMock.saveAll(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        BatchResult result = batchProcessor.process((items, notFound) -> cancelled.set(true), cancelled::get);
+
+        assertTrue(result.cancelled());
+        assertEquals(2, result.processed());
+        assertEquals(1, result.chunks());
+        assertEquals(1, meterRegistry.get("item.processing.run").tag("outcome", "cancelled").timer().count());
+        verify(itemRepositoryMock, times(1)).findIdsByStatus(any(), any(), any());
+    }
+
+    @Test
+    void failingIdQueryIsRecordedAsErrorRun() {
+        given(itemRepositoryMock.findIdsByStatus(any(), any(), any())).willThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> batchProcessor.process((items, notFound) -> { }));
+
+        assertEquals(1, meterRegistry.get("item.processing.run").tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    void rejectsNonPositiveChunkSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ItemBatchProcessor(itemRepositoryMock, itemCacheMock, searchIndexMock, processors,
+                        new ItemProcessingMetrics(meterRegistry), transactionManagerMock, 0));
+    }
+
+    private double itemCount(String result) {
+        return meterRegistry.get("item.processing.items").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,245 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.BulkResult;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemRequest;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemBulkServiceTest {
+
+    @Mock
+    private ItemRepository itemRepositoryMock;
+
+    @Mock
+    private ItemCache itemCacheMock;
+
+    @Mock
+    private ItemChangeLog changeLogMock;
+
+    @Mock
+    private ItemSearchIndex searchIndexMock;
+
+    @Mock
+    private PlatformTransactionManager transactionManagerMock;
+
+    private ValidatorFactory validatorFactory;
+
+    private ItemBulkService bulkService;
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        bulkService = new ItemBulkService(itemRepositoryMock, itemCacheMock, changeLogMock, searchIndexMock,
+                validatorFactory.getValidator(),
+                transactionManagerMock, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void createsValidItemsInChunksAndReportsInvalidOnes() {
+        AtomicLong sequence = new AtomicLong();
+        List<Integer> chunkSizes = new ArrayList<>();
+        given(itemRepositoryMock.saveAll(anyList())).willAnswer(invocation -> {
+            List<Item> items = invocation.getArgument(0);
+            chunkSizes.add(items.size());
+            items.forEach(item -> item.setId(sequence.incrementAndGet()));
+            return items;
+        });
+
+        BulkResult result = bulkService.create(List.of(
+                newItem("a", "a@test.com"),
+                newItem("b", "not-an-email"),
+                newItem("c", "c@test.com"),
+                new Item(7L, "d", null, ItemStatus.NEW, "d@test.com"),
+                newItem("e", "e@test.com")).iterator());
+
+        assertEquals(3, result.succeeded());
+        assertEquals(2, result.failed());
+        assertEquals(List.of(1L, 2L, 3L), result.ids());
+        assertEquals(List.of(2, 1), chunkSizes);
+        assertEquals(1, result.errors().get(0).index());
+        assertTrue(result.errors().get(0).messages().get(0).startsWith("email: "));
+        assertEquals(3, result.errors().get(1).index());
+        assertEquals(List.of("id must not be set on create"), result.errors().get(1).messages());
+        verify(transactionManagerMock, times(2)).commit(any());
+        verify(changeLogMock).record(List.of(1L, 2L));
+        verify(changeLogMock).record(List.of(3L));
+    }
+
+    @Test
+    void writesAFailedChunkAgainElementByElementAndReportsOnlyTheRejectedOne() {
+        AtomicLong sequence = new AtomicLong();
+        given(itemRepositoryMock.saveAll(anyList())).willAnswer(invocation -> {
+            List<Item> items = invocation.getArgument(0);
+            if (items.stream().anyMatch(item -> item.getName().equals("b"))) {
+                throw new DataIntegrityViolationException("could not execute statement [Value too long for column NAME]");
+            }
+            items.forEach(item -> item.setId(sequence.incrementAndGet()));
+            return items;
+        });
+
+        BulkResult result = bulkService.create(List.of(
+                newItem("a", "a@test.com"), newItem("b", "b@test.com"), newItem("c", "c@test.com")).iterator());
+
+        assertEquals(2, result.succeeded());
+        assertEquals(1, result.failed());
+        assertEquals(List.of(1L, 2L), result.ids());
+        assertEquals(1, result.errors().get(0).index());
+        assertEquals(List.of("write failed"), result.errors().get(0).messages());
+        verify(transactionManagerMock, times(2)).rollback(any());
+        verify(changeLogMock).record(List.of(1L));
+        verify(changeLogMock).record(List.of(2L));
+    }
+
+    @Test
+    void rejectsValuesLongerThanTheirColumnBeforeWriting() {
+        List<Integer> chunkSizes = new ArrayList<>();
+        given(itemRepositoryMock.saveAll(anyList())).willAnswer(invocation -> {
+            List<Item> items = invocation.getArgument(0);
+            chunkSizes.add(items.size());
+            items.forEach(item -> item.setId((long) item.getName().length()));
+            return items;
+        });
+        String overlong = "x".repeat(ItemRequest.MAX_LENGTH + 1);
+
+        BulkResult result = bulkService.create(List.of(
+                newItem("a", "a@test.com"),
+                newItem(overlong, "b@test.com"),
+                newItem("cc", "c@test.com"),
+                new Item(null, "d", overlong, ItemStatus.NEW, "d@test.com")).iterator());
+
+        assertEquals(2, result.succeeded());
+        assertEquals(List.of(2), chunkSizes);
+        assertEquals(List.of(1, 3), result.errors().stream().map(BulkResult.Error::index).toList());
+        assertEquals(List.of("name: must be at most 255 characters"), result.errors().get(0).messages());
+        assertEquals(List.of("description: must be at most 255 characters"), result.errors().get(1).messages());
+        verify(transactionManagerMock, never()).rollback(any());
+    }
+
+    @Test
+    void updatesOnlyNonNullFieldsAndReportsMissingItems() {
+        Item stored = new Item(1L, "Item 1", "Description 1", ItemStatus.NEW, "item1@test.com");
+        given(itemRepositoryMock.findAllById(List.of(1L, 2L))).willReturn(List.of(stored));
+
+        BulkResult result = bulkService.update(List.of(
+                new Item(1L, "Renamed", null, null, "renamed@test.com"),
+                new Item(2L, "Missing", null, null, "missing@test.com")).iterator());
+
+        assertEquals(1, result.succeeded());
+        assertEquals("Renamed", stored.getName());
+        assertEquals("Description 1", stored.getDescription());
+        assertEquals("renamed@test.com", stored.getEmail());
+        assertEquals(List.of("item not found"), result.errors().get(0).messages());
+        assertEquals(2L, result.errors().get(0).id());
+        verify(itemCacheMock).invalidateAll(argThat(ids -> List.copyOf(ids).equals(List.of(1L))));
+        verify(searchIndexMock).refresh(List.of(1L));
+        verify(changeLogMock).record(List.of(1L));
+    }
+
+    @Test
+    void rejectsUpdateWithStaleVersion() {
+        Item stored = new Item(1L, "Item 1", "Description 1", ItemStatus.NEW, "item1@test.com", 4L);
+        given(itemRepositoryMock.findAllById(List.of(1L))).willReturn(List.of(stored));
+
+        BulkResult result = bulkService.update(List.of(new Item(1L, "Renamed", null, null, "item1@test.com", 3L)).iterator());
+
+        assertEquals(0, result.succeeded());
+        assertEquals("Item 1", stored.getName());
+        assertTrue(result.errors().get(0).messages().get(0).startsWith("version conflict"));
+    }
+
+    @Test
+    void rejectsUpdateWithoutId() {
+        BulkResult result = bulkService.update(List.of(new Item(null, "x", null, null, "x@test.com")).iterator());
+
+        assertEquals(0, result.succeeded());
+        assertEquals(List.of("id is required on update"), result.errors().get(0).messages());
+        verifyNoInteractions(itemRepositoryMock);
+    }
+
+    @Test
+    void deletesExistingIdsInOneStatementPerChunk() {
+        given(itemRepositoryMock.findExistingIds(List.of(1L, 2L))).willReturn(List.of(1L));
+        given(itemRepositoryMock.findExistingIds(List.of(3L))).willReturn(List.of(3L));
+
+        BulkResult result = bulkService.delete(List.of(1L, 2L, 3L).iterator());
+
+        assertEquals(2, result.succeeded());
+        assertEquals(List.of(1L, 3L), result.ids());
+        assertEquals(1, result.errors().get(0).index());
+        verify(itemRepositoryMock).deleteAllByIdInBatch(Set.of(1L));
+        verify(itemRepositoryMock).deleteAllByIdInBatch(Set.of(3L));
+    }
+
+    @Test
+    void stopsAtUnreadableElementButKeepsWhatWasReadBefore() {
+        given(itemRepositoryMock.findExistingIds(List.of(1L))).willReturn(List.of(1L));
+        Iterator<Long> ids = new Iterator<>() {
+            private int read;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Long next() {
+                if (read++ == 0) {
+                    return 1L;
+                }
+                throw new IllegalStateException("Unexpected character");
+            }
+        };
+
+        BulkResult result = bulkService.delete(ids);
+
+        assertEquals(1, result.succeeded());
+        assertEquals(1, result.failed());
+        assertEquals(1, result.errors().get(0).index());
+        assertTrue(result.errors().get(0).messages().get(0).contains("Unexpected character"));
+    }
+
+    @Test
+    void capsTheNumberOfReportedErrors() {
+        List<Item> invalid = new ArrayList<>();
+        for (int i = 0; i < ItemBulkService.MAX_REPORTED_ERRORS + 5; i++) {
+            invalid.add(newItem("x", "broken"));
+        }
+
+        BulkResult result = bulkService.create(invalid.iterator());
+
+        assertEquals(ItemBulkService.MAX_REPORTED_ERRORS + 5, result.failed());
+        assertEquals(ItemBulkService.MAX_REPORTED_ERRORS, result.errors().size());
+    }
+
+    private static Item newItem(String name, String email) {
+        return new Item(null, name, null, ItemStatus.NEW, email);
+    }
+}
@@ -0,0 +1,145 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemCacheTest {
+
+    @Mock
+    private ItemRepository itemRepositoryMock;
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private ItemCache itemCache;
+
+    private Item item1, item2;
+
+    @BeforeEach
+    void setUp() {
+        itemCache = new ItemCache(itemRepositoryMock, 2, Duration.ofMinutes(5), nanos::get, Runnable::run);
+
+        item1 = new Item(1L, "Item 1", "Description 1", ItemStatus.NEW, "item1@test.com");
+        item2 = new Item(2L, "Item 2", "Description 2", ItemStatus.NEW, "item2@test.com");
+    }
+
+    @Test
+    void secondReadIsServedFromTheCache() {
+        given(itemRepositoryMock.findById(1L)).willReturn(Optional.of(item1));
+
+        assertEquals("Item 1", itemCache.get(1L).orElseThrow().getName());
+        assertEquals("Item 1", itemCache.get(1L).orElseThrow().getName());
+
+        verify(itemRepositoryMock, times(1)).findById(1L);
+        assertEquals(1, itemCache.stats().hitCount());
+        assertEquals(1, itemCache.stats().missCount());
+    }
+
+    @Test
+    void missingIdsAreCachedUntilInvalidated() {
+        given(itemRepositoryMock.findById(1L)).willReturn(Optional.empty(), Optional.of(item1));
+
+        assertTrue(itemCache.get(1L).isEmpty());
+        assertTrue(itemCache.get(1L).isEmpty());
+
+        itemCache.invalidate(1L); // e.g. the item was created
+        assertTrue(itemCache.get(1L).isPresent());
+        verify(itemRepositoryMock, times(2)).findById(1L);
+    }
+
+    @Test
+    void callersGetTheirOwnCopy() {
+        given(itemRepositoryMock.findById(1L)).willReturn(Optional.of(item1));
+
+        itemCache.get(1L).orElseThrow().setStatus(ItemStatus.PROCESSED);
+
+        assertEquals(ItemStatus.NEW, itemCache.get(1L).orElseThrow().getStatus());
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() {
+        given(itemRepositoryMock.findById(1L)).willReturn(Optional.of(item1));
+
+        itemCache.get(1L);
+        nanos.addAndGet(Duration.ofMinutes(5).plusSeconds(1).toNanos());
+        itemCache.get(1L);
+
+        verify(itemRepositoryMock, times(2)).findById(1L);
+    }
+
+    @Test
+    void sizeIsBounded() {
+        given(itemRepositoryMock.findById(anyLong()))
+                .willAnswer(invocation -> Optional.of(new Item(invocation.getArgument(0), "Item", null, ItemStatus.NEW, "a@b.com")));
+
+        for (long id = 1; id <= 10; id++) {
+            itemCache.get(id);
+        }
+
+        assertTrue(itemCache.size() <= 2);
+        assertTrue(itemCache.stats().evictionCount() >= 8);
+    }
+
+    @Test
+    void invalidateAllDropsTheGivenIds() {
+        given(itemRepositoryMock.findById(1L)).willReturn(Optional.of(item1));
+        given(itemRepositoryMock.findById(2L)).willReturn(Optional.of(item2));
+        itemCache.get(1L);
+        itemCache.get(2L);
+
+        itemCache.invalidateAll(List.of(1L, 2L));
+        itemCache.get(1L);
+        itemCache.get(2L);
+
+        verify(itemRepositoryMock, times(2)).findById(1L);
+        verify(itemRepositoryMock, times(2)).findById(2L);
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        given(itemRepositoryMock.findById(1L)).willAnswer(invocation -> {
+            loading.countDown();
+            Thread.sleep(200); // slow query, the other readers arrive while it runs
+            return Optional.of(item1);
+        });
+
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<Item>>> results = new ArrayList<>();
+            results.add(readers.submit(() -> itemCache.get(1L)));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                results.add(readers.submit(() -> itemCache.get(1L)));
+            }
+            for (Future<Optional<Item>> result : results) {
+                assertEquals("Item 1", result.get(5, TimeUnit.SECONDS).orElseThrow().getName());
+            }
+        } finally {
+            readers.shutdown();
+        }
+
+        verify(itemRepositoryMock, times(1)).findById(1L);
+    }
+}
@@ -0,0 +1,371 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.DeadLetterItem;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.DeadLetterItemRepository;
+import com.siemens.internship.repository.ItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@Timeout(20) // a stage that never ends would otherwise hang the build
+class ItemProcessingPipelineTest {
+
+    @Mock
+    private ItemRepository itemRepositoryMock;
+
+    @Mock
+    private DeadLetterItemRepository deadLetterRepositoryMock;
+
+    @Mock
+    private JdbcTemplate jdbcTemplateMock;
+
+    @Mock
+    private ItemCache itemCacheMock;
+
+    @Mock
+    private ItemSearchIndex searchIndexMock;
+
+    @Mock
+    private PlatformTransactionManager transactionManagerMock;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<ItemResult> results = new CopyOnWriteArrayList<>();
+
+    private ItemProcessors processors = new ItemProcessors(List.of(), meterRegistry, 2, 2);
+
+    @AfterEach
+    void shutdownProcessors() {
+        processors.shutdown();
+    }
+
+    @Test
+    void writesEveryChunkAsOneBatchAndReportsEveryItem() {
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.NEW, Long.MIN_VALUE, Long.MAX_VALUE, PageRequest.of(0, 2))).willReturn(List.of(1L, 2L));
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.NEW, 2L, Long.MAX_VALUE, PageRequest.of(0, 2))).willReturn(List.of(3L));
+        given(itemRepositoryMock.findAllById(List.of(1L, 2L))).willReturn(List.of(item(1L))); // 2 was deleted
+        given(itemRepositoryMock.findAllById(List.of(3L))).willReturn(List.of(item(3L)));
+        given(jdbcTemplateMock.batchUpdate(eq(ItemProcessingPipeline.UPDATE_PROCESSED), anyList())).willAnswer(invocation -> rowsUpdated(invocation.getArgument(1)));
+
+        BatchResult result = pipeline(2, 2, 2).run(results::add);
+
+        assertEquals(2, result.processed());
+        assertEquals(1, result.notFound());
+        assertEquals(0, result.failed());
+        assertEquals(2, result.chunks());
+        assertEquals(List.of(1L, 2L, 3L), results.stream().map(ItemResult::itemId).sorted().toList());
+        assertEquals(ItemResult.Outcome.NOT_FOUND, outcome(2L));
+        assertEquals(ItemResult.Outcome.PROCESSED, outcome(3L));
+
+        verify(jdbcTemplateMock).batchUpdate(eq(ItemProcessingPipeline.UPDATE_PROCESSED), argThat((List<Object[]> rows) ->
+                rows.size() == 1 && Arrays.equals(rows.get(0), new Object[]{"Item 1", null, "item1@test.com", "PROCESSED", 1L, 0L})));
+        verify(transactionManagerMock, times(2)).commit(any());
+        verify(itemCacheMock).invalidateAll(List.of(1L));
+        verify(itemCacheMock).invalidateAll(List.of(3L));
+        verify(searchIndexMock).refresh(List.of(1L)); // processors may have changed name and description
+        verify(searchIndexMock).refresh(List.of(3L));
+        verify(itemRepositoryMock, never()).findIdsByStatusBetween(eq(ItemStatus.PROCESSED), any(), any(), any());
+        verify(deadLetterRepositoryMock, never()).saveAll(any());
+    }
+
+    @Test
+    void retriesTransientErrors() {
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.NEW, Long.MIN_VALUE, Long.MAX_VALUE, PageRequest.of(0, 2))).willReturn(List.of(1L));
+        given(itemRepositoryMock.findAllById(List.of(1L)))
+                .willThrow(new QueryTimeoutException("timeout"))
+                .willReturn(List.of(item(1L)));
+        given(jdbcTemplateMock.batchUpdate(eq(ItemProcessingPipeline.UPDATE_PROCESSED), anyList()))
+                .willThrow(new CannotAcquireLockException("lock timeout"))
+                .willThrow(new CannotAcquireLockException("lock timeout"))
+                .willReturn(new int[]{1});
+
+        BatchResult result = pipeline(2, 1, 1).run(results::add);
+
+        assertEquals(1, result.processed());
+        assertEquals(List.of(new ItemResult(1L, ItemResult.Outcome.PROCESSED, 3, null)), results);
+        assertEquals(3, meterRegistry.get("item.processing.retries").counter().count());
+        verify(transactionManagerMock, times(2)).rollback(any());
+    }
+
+    @Test
+    void writesItemsOneByOneWhenTheirChunkFailsAndDeadLettersTheOnesThatStillFail() {
+        given(deadLetterRepositoryMock.count()).willReturn(1L); // dead letters of processed items get removed
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.NEW, Long.MIN_VALUE, Long.MAX_VALUE, PageRequest.of(0, 2))).willReturn(List.of(1L, 2L));
+        given(itemRepositoryMock.findAllById(List.of(1L, 2L))).willReturn(List.of(item(1L), item(2L)));
+        given(jdbcTemplateMock.batchUpdate(eq(ItemProcessingPipeline.UPDATE_PROCESSED), anyList()))
+                .willThrow(new DataIntegrityViolationException("value too long"));
+        Item current = item(1L);
+        given(itemRepositoryMock.findById(1L)).willReturn(Optional.of(current));
+        given(itemRepositoryMock.findById(2L)).willThrow(new DataIntegrityViolationException("value too long"));
+
+        BatchResult result = pipeline(2, 1, 1).run(results::add);
+
+        assertEquals(1, result.processed());
+        assertEquals(1, result.failed());
+        assertEquals(ItemStatus.PROCESSED, current.getStatus());
+        assertEquals(ItemResult.Outcome.PROCESSED, outcome(1L));
+        ItemResult failed = results.stream().filter(r -> r.itemId() == 2L).findFirst().orElseThrow();
+        assertEquals(ItemResult.Outcome.DEAD_LETTERED, failed.outcome());
+        assertEquals(1, failed.attempts(), "not a transient error, retrying it would fail the same way");
+        assertTrue(failed.error().contains("value too long"));
+
+        verify(deadLetterRepositoryMock).saveAll(argThat((Collection<DeadLetterItem> records) ->
+                records.size() == 1 && records.iterator().next().getItemId() == 2L
+                        && records.iterator().next().getStage().equals("persist")));
+        verify(deadLetterRepositoryMock).deleteAllByIdInBatch(List.of(1L));
+        assertEquals(1, meterRegistry.get("item.processing.items").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void itemChangedSinceItWasFetchedIsProcessedInItsCurrentState() {
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.NEW, Long.MIN_VALUE, Long.MAX_VALUE, PageRequest.of(0, 2))).willReturn(List.of(1L, 2L));
+        given(itemRepositoryMock.findAllById(List.of(1L, 2L))).willReturn(List.of(item(1L), item(2L)));
+        given(jdbcTemplateMock.batchUpdate(eq(ItemProcessingPipeline.UPDATE_PROCESSED), anyList())).willReturn(new int[]{1, 0});
+        Item current = new Item(2L, "Renamed", null, ItemStatus.UPDATED, "item2@test.com", 1L);
+        given(itemRepositoryMock.findById(2L)).willReturn(Optional.of(current));
+
+        BatchResult result = pipeline(2, 1, 1).run(results::add);
+
+        assertEquals(2, result.processed());
+        assertEquals(ItemStatus.PROCESSED, current.getStatus());
+        verify(itemRepositoryMock, never()).findById(1L);
+        verify(itemCacheMock).invalidateAll(List.of(1L, 2L));
+    }
+
+    @Test
+    void processesOnlyTheGivenIdRangeAndStopsWhenTheWriteGuardRefuses() {
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.NEW, 9L, 20L, PageRequest.of(0, 2))).willReturn(List.of(10L));
+        given(itemRepositoryMock.findAllById(List.of(10L))).willReturn(List.of(item(10L)));
+        Runnable guard = () -> {
+            throw new PartitionedItemProcessor.LeaseLostException(1);
+        };
+
+        assertThrows(PartitionedItemProcessor.LeaseLostException.class,
+                () -> pipeline(2, 1, 1).run(9L, 20L, guard, results::add, () -> false));
+
+        // nothing written, nothing dead-lettered: the items stay pending for the node that holds the lease
+        verifyNoInteractions(jdbcTemplateMock);
+        verify(deadLetterRepositoryMock, never()).saveAll(any());
+        verify(itemRepositoryMock, never()).findById(any());
+        verify(transactionManagerMock).rollback(any());
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    void skipsItemsThatWereProcessedElsewhereInTheMeantime() {
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.NEW, Long.MIN_VALUE, Long.MAX_VALUE, PageRequest.of(0, 2))).willReturn(List.of(1L));
+        given(itemRepositoryMock.findAllById(List.of(1L))).willReturn(List.of(item(1L)));
+        given(jdbcTemplateMock.batchUpdate(eq(ItemProcessingPipeline.UPDATE_PROCESSED), anyList())).willReturn(new int[]{0});
+        given(itemRepositoryMock.findById(1L)).willReturn(Optional.of(
+                new Item(1L, "Item 1", null, ItemStatus.PROCESSED, "item1@test.com", 1L)));
+
+        BatchResult result = pipeline(2, 1, 1).run(results::add);
+
+        assertEquals(0, result.processed());
+        assertEquals(List.of(ItemResult.notFound(1L, 1)), results);
+        verify(itemCacheMock, never()).invalidateAll(any());
+    }
+
+    @Test
+    void failsTheRunWhenTheIdsCannotBePaged() {
+        given(itemRepositoryMock.findIdsByStatusBetween(eq(ItemStatus.NEW), any(), any(), any()))
+                .willThrow(new InvalidDataAccessResourceUsageException("bad SQL"));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> pipeline(2, 2, 1).run(results::add));
+
+        assertTrue(e.getMessage().contains("bad SQL"));
+        assertTrue(results.isEmpty());
+        assertEquals(1, meterRegistry.get("item.processing.run").tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    void fetchingWaitsForASlowPersistStage() throws Exception {
+        int chunks = 30;
+        AtomicInteger loaded = new AtomicInteger();
+        given(itemRepositoryMock.findIdsByStatusBetween(eq(ItemStatus.NEW), any(), any(), any())).willAnswer(invocation -> {
+            long after = invocation.getArgument(1);
+            return after < chunks ? List.of(Math.max(after, 0) + 1) : List.of();
+        });
+        given(itemRepositoryMock.findAllById(anyList())).willAnswer(invocation -> {
+            loaded.incrementAndGet();
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(ItemProcessingPipelineTest::item).toList();
+        });
+        CountDownLatch persisting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(jdbcTemplateMock.batchUpdate(eq(ItemProcessingPipeline.UPDATE_PROCESSED), anyList())).willAnswer(invocation -> {
+            persisting.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return rowsUpdated(invocation.getArgument(1));
+        });
+
+        // one chunk being written, one waiting for it, one in the worker, one queued and one held by the fetcher
+        ItemProcessingPipeline pipeline = pipeline(1, 1, 1);
+        CompletableFuture<BatchResult> run = CompletableFuture.supplyAsync(() -> pipeline.run(results::add));
+        assertTrue(persisting.await(10, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        assertTrue(loaded.get() <= 5, "fetched " + loaded.get() + " chunks ahead of a blocked writer");
+
+        release.countDown();
+        BatchResult result = run.get(10, TimeUnit.SECONDS);
+
+        assertEquals(chunks, result.processed());
+        assertEquals(chunks, results.size());
+    }
+
+    @Test
+    void writesWhatTheProcessorsChangedAndDeadLettersItemsTheyRejected() {
+        processors.shutdown();
+        processors = new ItemProcessors(List.of(
+                item -> item.setEmail(item.getEmail().toUpperCase()),
+                item -> {
+                    if (item.getId() == 2L) {
+                        throw new IllegalArgumentException("invalid item");
+                    }
+                }), meterRegistry, 2, 2);
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.NEW, Long.MIN_VALUE, Long.MAX_VALUE, PageRequest.of(0, 2))).willReturn(List.of(1L, 2L));
+        given(itemRepositoryMock.findAllById(List.of(1L, 2L))).willReturn(List.of(item(1L), item(2L)));
+        given(jdbcTemplateMock.batchUpdate(eq(ItemProcessingPipeline.UPDATE_PROCESSED), anyList())).willAnswer(invocation -> rowsUpdated(invocation.getArgument(1)));
+
+        BatchResult result = pipeline(2, 1, 2).run(results::add);
+
+        assertEquals(1, result.processed());
+        assertEquals(1, result.failed());
+        assertEquals(ItemResult.Outcome.DEAD_LETTERED, outcome(2L));
+        verify(jdbcTemplateMock).batchUpdate(eq(ItemProcessingPipeline.UPDATE_PROCESSED), argThat((List<Object[]> rows) ->
+                rows.size() == 1 && Arrays.equals(rows.get(0), new Object[]{"Item 1", null, "ITEM1@TEST.COM", "PROCESSED", 1L, 0L})));
+        verify(deadLetterRepositoryMock).saveAll(argThat((Collection<DeadLetterItem> letters) -> letters.size() == 1
+                && letters.iterator().next().getStage().equals("process")));
+    }
+
+    @Test
+    void buffersChunksIntoOneWriteAndWritesAnItemFetchedTwiceOnce() {
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.NEW, Long.MIN_VALUE, Long.MAX_VALUE, PageRequest.of(0, 2))).willReturn(List.of(1L, 2L));
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.NEW, 2L, Long.MAX_VALUE, PageRequest.of(0, 2))).willReturn(List.of(3L));
+        // 2 was updated after it was fetched and is fetched again with the UPDATED items
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.UPDATED, Long.MIN_VALUE, Long.MAX_VALUE, PageRequest.of(0, 2))).willReturn(List.of(2L));
+        given(itemRepositoryMock.findAllById(List.of(1L, 2L))).willReturn(List.of(item(1L), item(2L)));
+        given(itemRepositoryMock.findAllById(List.of(3L))).willReturn(List.of(item(3L)));
+        given(itemRepositoryMock.findAllById(List.of(2L))).willReturn(List.of(new Item(2L, "Renamed", null, ItemStatus.UPDATED, "item2@test.com", 1L)));
+        given(jdbcTemplateMock.batchUpdate(eq(ItemProcessingPipeline.UPDATE_PROCESSED), anyList())).willAnswer(invocation -> rowsUpdated(invocation.getArgument(1)));
+
+        BatchResult result = pipeline(2, 10, Duration.ofSeconds(10)).run(results::add);
+
+        assertEquals(3, result.processed());
+        assertEquals(3, result.chunks());
+        assertEquals(List.of(1L, 2L, 3L), results.stream().map(ItemResult::itemId).sorted().toList());
+        verify(jdbcTemplateMock).batchUpdate(eq(ItemProcessingPipeline.UPDATE_PROCESSED), argThat((List<Object[]> rows) ->
+                rows.size() == 3 && Arrays.equals(rows.get(1), new Object[]{"Renamed", null, "item2@test.com", "PROCESSED", 2L, 1L})));
+        verify(transactionManagerMock, times(1)).commit(any());
+    }
+
+    @Test
+    void flushesABufferThatWaitedTheFlushInterval() {
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.NEW, Long.MIN_VALUE, Long.MAX_VALUE, PageRequest.of(0, 1))).willReturn(List.of(1L));
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.NEW, 1L, Long.MAX_VALUE, PageRequest.of(0, 1))).willReturn(List.of(2L));
+        given(itemRepositoryMock.findAllById(List.of(1L))).willReturn(List.of(item(1L)));
+        given(itemRepositoryMock.findAllById(List.of(2L))).willAnswer(invocation -> {
+            // item 1 is far from filling the buffer, only the interval gets it written
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (results.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return List.of(item(2L));
+        });
+        given(jdbcTemplateMock.batchUpdate(eq(ItemProcessingPipeline.UPDATE_PROCESSED), anyList())).willAnswer(invocation -> rowsUpdated(invocation.getArgument(1)));
+
+        BatchResult result = pipeline(1, 100, Duration.ofMillis(50)).run(results::add);
+
+        assertEquals(2, result.processed());
+        assertEquals(List.of(1L, 2L), results.stream().map(ItemResult::itemId).toList());
+        verify(transactionManagerMock, times(2)).commit(any());
+    }
+
+    @Test
+    void stopLetsRunningRunsFlushWhatTheyFetched() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(itemRepositoryMock.findIdsByStatusBetween(ItemStatus.NEW, Long.MIN_VALUE, Long.MAX_VALUE, PageRequest.of(0, 1))).willReturn(List.of(1L));
+        given(itemRepositoryMock.findAllById(List.of(1L))).willAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return List.of(item(1L));
+        });
+        given(jdbcTemplateMock.batchUpdate(eq(ItemProcessingPipeline.UPDATE_PROCESSED), anyList())).willAnswer(invocation -> rowsUpdated(invocation.getArgument(1)));
+        ItemProcessingPipeline pipeline = pipeline(1, 100, Duration.ofSeconds(10));
+        pipeline.start();
+
+        CompletableFuture<BatchResult> run = CompletableFuture.supplyAsync(() -> pipeline.run(results::add));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        CountDownLatch stopped = new CountDownLatch(1);
+        pipeline.stop(stopped::countDown);
+        assertFalse(stopped.await(200, TimeUnit.MILLISECONDS), "stopped while a run was still going");
+
+        release.countDown();
+        BatchResult result = run.get(10, TimeUnit.SECONDS);
+
+        assertTrue(stopped.await(10, TimeUnit.SECONDS));
+        assertFalse(pipeline.isRunning());
+        assertTrue(result.cancelled());
+        assertEquals(1, result.processed());
+        verify(itemRepositoryMock, never()).findIdsByStatusBetween(ItemStatus.NEW, 1L, Long.MAX_VALUE, PageRequest.of(0, 1));
+    }
+
+    private ItemProcessingPipeline pipeline(int chunkSize, int flushSize, Duration flushInterval) {
+        return new ItemProcessingPipeline(itemRepositoryMock, deadLetterRepositoryMock, jdbcTemplateMock, itemCacheMock,
+                searchIndexMock, processors, new ItemProcessingMetrics(meterRegistry), transactionManagerMock, chunkSize,
+                1, 2, 3, Duration.ofMillis(1), flushSize, flushInterval);
+    }
+
+    private ItemProcessingPipeline pipeline(int chunkSize, int workers, int queueCapacity) {
+        return new ItemProcessingPipeline(itemRepositoryMock, deadLetterRepositoryMock, jdbcTemplateMock, itemCacheMock,
+                searchIndexMock, processors, new ItemProcessingMetrics(meterRegistry), transactionManagerMock, chunkSize,
+                workers, queueCapacity, 3, Duration.ofMillis(1), chunkSize, Duration.ofSeconds(10)); // one chunk per flush
+    }
+
+    private ItemResult.Outcome outcome(Long id) {
+        return results.stream().filter(r -> r.itemId().equals(id)).findFirst().orElseThrow().outcome();
+    }
+
+    private static int[] rowsUpdated(List<Object[]> rows) {
+        int[] counts = new int[rows.size()];
+        Arrays.fill(counts, 1);
+        return counts;
+    }
+
+    private static Item item(Long id) {
+        return new Item(id, "Item " + id, null, ItemStatus.NEW, "item" + id + "@test.com", 0L);
+    }
+}
@@ -0,0 +1,113 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(20)
+class ItemProcessorsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ItemProcessors processors;
+
+    @AfterEach
+    void shutdown() {
+        processors.shutdown();
+    }
+
+    @Test
+    void runsEachProcessorOnThePoolOfItsWorkload() {
+        Set<String> cpuThreads = ConcurrentHashMap.newKeySet();
+        Set<String> blockingThreads = ConcurrentHashMap.newKeySet();
+        processors = new ItemProcessors(List.of(
+                item -> cpuThreads.add(Thread.currentThread().getName()),
+                blocking(item -> blockingThreads.add(Thread.currentThread().getName()))), meterRegistry, 2, 4);
+
+        List<Item> items = items(200);
+        Map<Long, RuntimeException> failures = processors.process(items);
+
+        assertTrue(failures.isEmpty());
+        assertTrue(items.stream().allMatch(item -> item.getStatus() == ItemStatus.PROCESSED));
+        assertFalse(cpuThreads.isEmpty());
+        assertTrue(cpuThreads.stream().allMatch(name -> name.startsWith("ItemCpu-")), cpuThreads::toString);
+        assertFalse(blockingThreads.isEmpty());
+        assertTrue(blockingThreads.stream().allMatch(name -> name.startsWith("ItemBlocking-")), blockingThreads::toString);
+        assertNotNull(meterRegistry.find("executor.active").tag("name", "itemCpuPool").gauge());
+        assertNotNull(meterRegistry.find("executor.active").tag("name", "itemBlockingPool").gauge());
+    }
+
+    @Test
+    void appliesProcessorsInOrderAndSkipsLaterOnesForFailedItems() {
+        processors = new ItemProcessors(List.of(
+                item -> item.setName(item.getName().trim()),
+                item -> {
+                    if (item.getName().isEmpty()) {
+                        throw new IllegalArgumentException("name is blank");
+                    }
+                },
+                blocking(item -> item.setDescription("enriched " + item.getName()))), meterRegistry, 2, 2);
+
+        Item valid = new Item(1L, "  Item 1 ", null, ItemStatus.NEW, "item1@test.com");
+        Item blank = new Item(2L, "   ", null, ItemStatus.NEW, "item2@test.com");
+        Map<Long, RuntimeException> failures = processors.process(List.of(valid, blank));
+
+        assertEquals(Set.of(2L), failures.keySet());
+        assertEquals("name is blank", failures.get(2L).getMessage());
+        assertEquals(ItemStatus.PROCESSED, valid.getStatus());
+        assertEquals("enriched Item 1", valid.getDescription());
+        assertEquals(ItemStatus.NEW, blank.getStatus());
+        assertNull(blank.getDescription());
+    }
+
+    @Test
+    void throwsTheFailureOfASingleItem() {
+        processors = new ItemProcessors(List.of(item -> {
+            throw new IllegalStateException("broken");
+        }), meterRegistry, 1, 1);
+        Item item = new Item(1L, "Item 1", null, ItemStatus.NEW, "item1@test.com");
+
+        assertThrows(IllegalStateException.class, () -> processors.process(item));
+        assertEquals(ItemStatus.NEW, item.getStatus());
+    }
+
+    @Test
+    void onlyMarksItemsProcessedWithoutProcessors() {
+        processors = new ItemProcessors(List.of(), meterRegistry, 1, 1);
+        List<Item> items = items(3);
+
+        assertTrue(processors.process(items).isEmpty());
+        assertTrue(items.stream().allMatch(item -> item.getStatus() == ItemStatus.PROCESSED));
+    }
+
+    private static ItemProcessor blocking(ItemProcessor processor) {
+        return new ItemProcessor() {
+            @Override
+            public void process(Item item) {
+                processor.process(item);
+            }
+
+            @Override
+            public Workload workload() {
+                return Workload.BLOCKING;
+            }
+        };
+    }
+
+    private static List<Item> items(int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(id -> new Item(id, "Item " + id, null, ItemStatus.NEW, "item" + id + "@test.com"))
+                .toList();
+    }
+}
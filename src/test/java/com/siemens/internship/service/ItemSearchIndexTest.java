@@ -0,0 +1,180 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ItemText;
+import com.siemens.internship.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+
+    @Mock
+    private ItemRepository itemRepositoryMock;
+
+    @Mock
+    private PlatformTransactionManager transactionManagerMock;
+
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ItemSearchIndex(itemRepositoryMock, transactionManagerMock, 3, Duration.ofSeconds(5));
+        index.rebuild(); // empty table
+        index.index(item(1L, "Red chair", "Wooden, with armrests"));
+        index.index(item(2L, "Blue chair", "Plastic"));
+        index.index(item(3L, "Red table", "Wooden"));
+        index.index(item(4L, "Chairman's desk", "RED-painted oak"));
+    }
+
+    @Test
+    void tokensAreLowerCasedRunsOfLettersAndDigits() {
+        assertEquals(List.of("red", "painted", "oak", "42"), ItemSearchIndex.tokens("RED-painted  oak, #42"));
+        assertEquals(List.of(), ItemSearchIndex.tokens(null));
+    }
+
+    @Test
+    void everyTermHasToMatch() {
+        assertEquals(List.of(1L, 3L, 4L), index.search("red", null, 10));
+        assertEquals(List.of(1L, 3L), index.search("Red wooden", null, 10));
+        assertEquals(List.of(1L), index.search("wooden chair", null, 10));
+        assertEquals(List.of(), index.search("red sofa", null, 10));
+    }
+
+    @Test
+    void prefixMatchesEveryTermStartingWithIt() {
+        assertEquals(List.of(1L, 2L, 4L), index.search("chair*", null, 10));
+        assertEquals(List.of(4L), index.search("chair* red des*", null, 10));
+        assertEquals(List.of(), index.search("sofa*", null, 10));
+    }
+
+    @Test
+    void pagesContinueAfterTheCursor() {
+        assertEquals(List.of(1L, 3L), index.search("red", null, 2));
+        assertEquals(List.of(4L), index.search("red", 3L, 2));
+        assertEquals(List.of(), index.search("red", 4L, 2));
+    }
+
+    @Test
+    void updateReplacesTheTermsOfAnItem() {
+        Item renamed = item(1L, "Green stool", null);
+        renamed.setVersion(1L);
+        index.index(renamed);
+
+        assertEquals(List.of(3L, 4L), index.search("red", null, 10));
+        assertEquals(List.of(1L), index.search("stool", null, 10));
+        assertEquals(List.of(), index.search("armrests", null, 10));
+    }
+
+    @Test
+    void olderVersionDoesNotReplaceANewerOne() {
+        Item current = item(2L, "Blue sofa", null);
+        current.setVersion(3L);
+        index.index(current);
+
+        index.index(item(2L, "Blue chair", null)); // version 0, read before the write above
+        assertEquals(List.of(2L), index.search("sofa", null, 10));
+    }
+
+    @Test
+    void removedItemsAreNotFound() {
+        index.remove(1L);
+        index.remove(99L);
+
+        assertEquals(List.of(3L, 4L), index.search("red", null, 10));
+        assertEquals(List.of(), index.search("armrests", null, 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void refreshReadsWrittenItemsAndDropsDeletedOnes() {
+        given(itemRepositoryMock.findTextByIdIn(List.of(2L, 3L)))
+                .willReturn(List.of(new ItemText(2L, 1L, "Blue sofa", null)));
+
+        index.refresh(List.of(2L, 3L));
+
+        assertEquals(List.of(2L), index.search("sofa", null, 10));
+        assertEquals(List.of(1L, 4L), index.search("red", null, 10));
+    }
+
+    @Test
+    void rebuildLoadsTheWholeTable() {
+        given(itemRepositoryMock.streamAllText()).willReturn(LongStream.rangeClosed(1, 1000)
+                .mapToObj(id -> new ItemText(id, 0L, "Item " + id, id % 10 == 0 ? "tenth" : "other")));
+
+        index.rebuild();
+
+        assertEquals(1000, index.size());
+        assertEquals(List.of(), index.search("chair", null, 10));
+        assertEquals(List.of(500L, 510L, 520L), index.search("tenth item", 499L, 3));
+        assertEquals(List.of(777L), index.search("777 item", null, 10));
+    }
+
+    @Test
+    void searchFailsUntilTheFirstBuildIsDone() {
+        ItemSearchIndex unbuilt = new ItemSearchIndex(itemRepositoryMock, transactionManagerMock, 3, Duration.ofSeconds(5));
+        unbuilt.index(item(1L, "Red chair", null)); // writes are kept before and during the build
+
+        assertFalse(unbuilt.isReady());
+        assertThrows(ItemSearchIndex.NotReadyException.class, () -> unbuilt.search("red", null, 10));
+
+        unbuilt.rebuild();
+        assertTrue(unbuilt.isReady());
+        assertEquals(List.of(), unbuilt.search("red", null, 10)); // the table is empty, the build replaces the index
+    }
+
+    @Test
+    void writesMadeDuringABuildWinOverTheRowsItRead() {
+        // the build read the table before item 2 was renamed and item 3 was deleted
+        given(itemRepositoryMock.streamAllText()).willReturn(Stream.of(
+                new ItemText(1L, 0L, "Red chair", null), new ItemText(2L, 0L, "Blue chair", null),
+                new ItemText(3L, 0L, "Red table", null)).peek(text -> {
+            if (text.id() == 1L) {
+                Item renamed = item(2L, "Blue sofa", null);
+                renamed.setVersion(1L);
+                index.index(renamed);
+                index.remove(3L);
+            }
+        }));
+
+        index.rebuild();
+
+        assertEquals(List.of(2L), index.search("sofa", null, 10));
+        assertEquals(List.of(1L), index.search("red", null, 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void queryWithoutTermsIsRejected() {
+        assertThrows(ItemSearchIndex.InvalidQueryException.class, () -> index.search("  *-, ", null, 10));
+    }
+
+    @Test
+    void tooBroadPrefixIsRejected() {
+        given(itemRepositoryMock.streamAllText()).willReturn(Stream.of(
+                new ItemText(1L, 0L, "a1 a2 a3 a4", null), new ItemText(2L, 0L, "b1", null)));
+        index.rebuild();
+
+        assertEquals(List.of(2L), index.search("b*", null, 10));
+        assertThrows(ItemSearchIndex.InvalidQueryException.class, () -> index.search("a*", null, 10));
+    }
+
+    private static Item item(Long id, String name, String description) {
+        Item item = new Item(id, name, description, ItemStatus.NEW, "item" + id + "@test.com");
+        item.setVersion(0L);
+        return item;
+    }
+}
@@ -1,25 +1,35 @@
 package com.siemens.internship.service;
 
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ItemPage;
+import com.siemens.internship.model.ItemPatch;
+import com.siemens.internship.model.ItemSummary;
 import com.siemens.internship.repository.ItemRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 
@@ -30,7 +40,22 @@ class ItemServiceTest {
     private ItemRepository itemRepositoryMock;
 
     @Mock
-    private Executor executorMock;
+    private PartitionedItemProcessor processorMock;
+
+    @Mock
+    private EntityManager entityManagerMock;
+
+    @Mock
+    private ItemCache itemCacheMock;
+
+    @Mock
+    private ItemChangeLog changeLogMock;
+
+    @Mock
+    private ItemSearchIndex searchIndexMock;
+
+    @Mock
+    private PlatformTransactionManager transactionManagerMock;
 
     @InjectMocks
     private ItemService itemService;
@@ -39,8 +64,8 @@ class ItemServiceTest {
 
     @BeforeEach
     void setUp() {
-        item1 = new Item(1L, "Item 1", "Description 1", "NEW", "item1@test.com");
-        item2 = new Item(2L, "Item 2", "Description 2", "OLD", "iteml2@test.com");
+        item1 = new Item(1L, "Item 1", "Description 1", ItemStatus.NEW, "item1@test.com");
+        item2 = new Item(2L, "Item 2", "Description 2", ItemStatus.UPDATED, "iteml2@test.com");
 
     }
 
@@ -57,42 +82,107 @@ class ItemServiceTest {
         verify(itemRepositoryMock).findAll();
     }
 
+    @Test
+    void forEachItem() {
+        given(itemRepositoryMock.streamAll()).willReturn(Stream.of(item1, item2));
+
+        List<Item> visited = new ArrayList<>();
+        itemService.forEachItem(visited::add);
+
+        assertEquals(List.of(item1, item2), visited);
+        // every entity is detached after use, the persistence context doesn't grow with the table
+        verify(entityManagerMock).detach(item1);
+        verify(entityManagerMock).detach(item2);
+        verify(itemRepositoryMock, never()).findAll();
+    }
+
+    @Test
+    void findPage() {
+        List<ItemSummary> summaries = List.of(new ItemSummary(1L, "Item 1", ItemStatus.NEW), new ItemSummary(2L, "Item 2", ItemStatus.UPDATED));
+        given(itemRepositoryMock.findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, Limit.of(2))).willReturn(summaries);
+        given(itemRepositoryMock.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(2))).willReturn(List.of());
+
+        ItemPage first = itemService.findPage(null, 2);
+        assertEquals(summaries, first.items());
+        assertEquals(2L, first.nextAfter());
+
+        ItemPage last = itemService.findPage(first.nextAfter(), 2);
+        assertTrue(last.items().isEmpty());
+        assertNull(last.nextAfter());
+    }
+
+    @Test
+    void findPageByStatus() {
+        List<ItemSummary> summaries = List.of(new ItemSummary(4L, "Item 4", ItemStatus.NEW));
+        given(itemRepositoryMock.findByStatusAndIdGreaterThanOrderByIdAsc(ItemStatus.NEW, 3L, Limit.of(2))).willReturn(summaries);
+
+        ItemPage page = itemService.findPage(ItemStatus.NEW, 3L, 2);
+
+        assertEquals(summaries, page.items());
+        assertNull(page.nextAfter());
+        verify(itemRepositoryMock, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    void searchPagesByTheLastHitOfTheIndex() {
+        given(searchIndexMock.search("item", null, 2)).willReturn(List.of(1L, 2L));
+        // item 2 was deleted after the index answered, the next page still starts behind it
+        given(itemRepositoryMock.findByIdInOrderByIdAsc(List.of(1L, 2L)))
+                .willReturn(List.of(new ItemSummary(1L, "Item 1", ItemStatus.NEW)));
+
+        ItemPage page = itemService.search("item", null, 2);
+
+        assertEquals(1, page.items().size());
+        assertEquals(2L, page.nextAfter());
+    }
+
+    @Test
+    void searchWithoutHitsSkipsTheDatabase() {
+        given(searchIndexMock.search("chair", 2L, 2)).willReturn(List.of());
+
+        ItemPage page = itemService.search("chair", 2L, 2);
+
+        assertTrue(page.items().isEmpty());
+        assertNull(page.nextAfter());
+        verify(itemRepositoryMock, never()).findByIdInOrderByIdAsc(any());
+    }
+
     @Test
     void findById() {
         Long existingId = 1L;
-        given(itemRepositoryMock.findById(existingId)).willReturn(Optional.of(item1));
+        given(itemCacheMock.get(existingId)).willReturn(Optional.of(item1));
 
         Optional<Item> resultWhenFound = itemService.findById(existingId);
         assertTrue(resultWhenFound.isPresent());
         assertEquals(item1.getName(), resultWhenFound.get().getName());
-        verify(itemRepositoryMock).findById(existingId);
+        verify(itemCacheMock).get(existingId);
 
         Long nonExistingId = 100L;
-        given(itemRepositoryMock.findById(nonExistingId)).willReturn(Optional.empty());
+        given(itemCacheMock.get(nonExistingId)).willReturn(Optional.empty());
         Optional<Item> resultWhenNotFound = itemService.findById(nonExistingId);
         assertFalse(resultWhenNotFound.isPresent());
-        verify(itemRepositoryMock).findById(nonExistingId);
+        verify(itemCacheMock).get(nonExistingId);
     }
 
     @Test
     void existsById() {
         Long existingId = 1L;
-        given(itemRepositoryMock.existsById(existingId)).willReturn(true);
+        given(itemCacheMock.get(existingId)).willReturn(Optional.of(item1));
         boolean exists = itemService.existsById(existingId);
         assertTrue(exists);
-        verify(itemRepositoryMock).existsById(existingId);
+        verify(itemCacheMock).get(existingId);
 
         Long nonExistingId = 100L;
-        given(itemRepositoryMock.existsById(nonExistingId)).willReturn(false);
+        given(itemCacheMock.get(nonExistingId)).willReturn(Optional.empty());
         boolean notExists = itemService.existsById(nonExistingId);
         assertFalse(notExists);
-        verify(itemRepositoryMock).existsById(nonExistingId);
+        verify(itemCacheMock).get(nonExistingId);
     }
 
     @Test
     void save() {
-        Item itemToSave = new Item(null, "Item", "Desc Save", "NEW", "save@test.com");
-        Item savedItem = new Item(5L, "Item", "Desc Save", "NEW", "save@test.com");
+        Item itemToSave = new Item(null, "Item", "Desc Save", ItemStatus.NEW, "save@test.com");
+        Item savedItem = new Item(5L, "Item", "Desc Save", ItemStatus.NEW, "save@test.com");
         given(itemRepositoryMock.save(any(Item.class))).willReturn(savedItem);
 
         Item result = itemService.save(itemToSave);
@@ -100,6 +190,32 @@ class ItemServiceTest {
         assertEquals(savedItem.getId(), result.getId());
         assertEquals(itemToSave.getName(), result.getName());
         verify(itemRepositoryMock).save(itemToSave);
+        verify(changeLogMock).record(List.of(5L));
+        verify(transactionManagerMock).commit(any());
+        verify(itemCacheMock).invalidate(5L);
+        verify(searchIndexMock).index(savedItem);
+    }
+
+    @Test
+    void findForUpdateReadsTheDatabaseNotTheCache() {
+        given(itemRepositoryMock.findById(1L)).willReturn(Optional.of(item1));
+
+        Optional<Item> result = itemService.findForUpdate(1L);
+
+        assertTrue(result.isPresent());
+        assertNotSame(item1, result.get()); // detached copy, save() merges it and checks its version
+        assertEquals(item1.getVersion(), result.get().getVersion());
+        verifyNoInteractions(itemCacheMock);
+    }
+
+    @Test
+    void saveWithStaleVersionEvictsTheCachedCopy() {
+        Item stale = new Item(1L, "Item", "Desc", ItemStatus.NEW, "save@test.com", 3L);
+        given(itemRepositoryMock.save(stale)).willThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> itemService.save(stale));
+        verify(itemCacheMock).invalidate(1L);
+        verifyNoInteractions(searchIndexMock);
     }
 
     @Test
@@ -107,43 +223,101 @@ class ItemServiceTest {
         Long id = 1L;
         itemService.deleteById(id);
         verify(itemRepositoryMock).deleteById(id);
+        verify(itemCacheMock).invalidate(id);
+        verify(searchIndexMock).remove(id);
     }
 
     @Test
-    void processItemsAsync() throws Exception {
+    void patch() {
+        ItemPatch patch = new ItemPatch("Renamed", null, null, null, null);
+        given(itemRepositoryMock.patch(1L, "Renamed", null, null, null, null)).willReturn(1);
+
+        assertTrue(itemService.patch(1L, patch));
+        verify(changeLogMock).record(List.of(1L));
+        verify(itemCacheMock).invalidate(1L);
+        verify(searchIndexMock).refresh(List.of(1L));
+        verify(itemRepositoryMock, never()).findById(any());
+    }
 
-        doAnswer(invocation -> {
-            Runnable task = invocation.getArgument(0);
-            task.run();
-            return null;
-        }).when(executorMock).execute(any(Runnable.class));
+    @Test
+    void patchMissingItem() {
+        given(itemRepositoryMock.patch(99L, "Renamed", null, null, null, null)).willReturn(0);
 
-        List<Long> ids = Arrays.asList(1L, 2L);
-        Item processedItem1 = new Item(1L, "Item 1", "Desc 1", "PROCESSED", "item1@example.com");
-        Item processedItem2 = new Item(2L, "Item 2", "Desc 2", "PROCESSED", "item2@example.com");
+        assertFalse(itemService.patch(99L, new ItemPatch("Renamed", null, null, null, null)));
+        verifyNoInteractions(changeLogMock);
+        verify(itemRepositoryMock, never()).existsById(any());
+    }
 
+    @Test
+    void patchWithStaleVersion() {
+        given(itemRepositoryMock.patch(1L, "Renamed", null, null, null, 3L)).willReturn(0);
+        given(itemRepositoryMock.existsById(1L)).willReturn(true);
 
-        given(itemRepositoryMock.findAllIds()).willReturn(ids);
-        given(itemRepositoryMock.findById(1L)).willReturn(Optional.of(item1));
-        given(itemRepositoryMock.findById(2L)).willReturn(Optional.of(item2));
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> itemService.patch(1L, new ItemPatch("Renamed", null, null, null, 3L)));
+    }
 
-        given(itemRepositoryMock.save(item1)).willReturn(processedItem1);
-        given(itemRepositoryMock.save(item2)).willReturn(processedItem2);;
+    @Test
+    void processItemsAsync() throws Exception {
 
+        // results of two chunks, the service keeps the counts and the failures, not every item
+        BatchResult counts = new BatchResult(2, 0, 1, 2, false, Duration.ofMillis(5));
+        given(processorMock.run(any())).willAnswer(invocation -> {
+            Consumer<ItemResult> listener = invocation.getArgument(0);
+            listener.accept(ItemResult.processed(1L, 1));
+            listener.accept(new ItemResult(2L, ItemResult.Outcome.DEAD_LETTERED, 3, "lock timeout"));
+            listener.accept(ItemResult.processed(3L, 2));
+            return counts;
+        });
 
         int initialProcessedCount = itemService.getProcessedCount();
 
-        CompletableFuture<List<Item>> futureResult = itemService.processItemsAsync();
-        List<Item> resultList = futureResult.get(100, TimeUnit.SECONDS);
+        CompletableFuture<ProcessingSummary> futureResult = itemService.processItemsAsync();
+        ProcessingSummary summary = futureResult.get(100, TimeUnit.SECONDS);
 
-        assertNotNull(resultList);
-        assertEquals(2, resultList.size());
-        assertTrue(resultList.stream().allMatch(item -> "PROCESSED".equals(item.getStatus())));
+        assertEquals(counts, summary.result());
+        assertEquals(List.of(new ItemResult(2L, ItemResult.Outcome.DEAD_LETTERED, 3, "lock timeout")), summary.failures());
+        assertEquals(0, summary.omittedFailures());
         assertEquals(initialProcessedCount + 2, itemService.getProcessedCount());
 
-        verify(itemRepositoryMock).findAllIds();
-        verify(itemRepositoryMock, times(2)).findById(anyLong());
-        verify(itemRepositoryMock, times(2)).save(any(Item.class));
+        verify(processorMock).run(any());
+        verifyNoInteractions(itemRepositoryMock);
+    }
+
+    @Test
+    void processItemsAsyncWithNoItems() throws Exception {
+        given(processorMock.run(any())).willReturn(new BatchResult(0, 0, 0, 0, false, Duration.ZERO));
+
+        ProcessingSummary summary = itemService.processItemsAsync().get(100, TimeUnit.SECONDS);
+
+        assertEquals(0, summary.result().processed());
+        assertTrue(summary.failures().isEmpty());
+    }
+
+    @Test
+    void processItemsAsyncListsOnlyTheFirstFailures() throws Exception {
+        int failed = ProcessingSummary.MAX_FAILURES + 50;
+        given(processorMock.run(any())).willAnswer(invocation -> {
+            Consumer<ItemResult> listener = invocation.getArgument(0);
+            for (long id = 1; id <= failed; id++) {
+                listener.accept(new ItemResult(id, ItemResult.Outcome.DEAD_LETTERED, 1, "invalid"));
+            }
+            return new BatchResult(0, 0, failed, 1, false, Duration.ofMillis(5));
+        });
+
+        ProcessingSummary summary = itemService.processItemsAsync().get(100, TimeUnit.SECONDS);
+
+        assertEquals(ProcessingSummary.MAX_FAILURES, summary.failures().size());
+        assertEquals(1L, summary.failures().get(0).itemId());
+        assertEquals(50, summary.omittedFailures());
+    }
+
+    @Test
+    void processItemsAsyncPropagatesAFailedRun() {
+        given(processorMock.run(any())).willThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> itemService.processItemsAsync());
+        assertEquals(0, itemService.getProcessedCount());
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.InternshipApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two nodes as two application contexts (own cache, pipeline, executor and node id) on one file database,
+// like replicas sharing it. PartitionedItemProcessorTest covers leases and take-overs within one context.
+class MultiNodeProcessingTest {
+
+    private static final int ITEMS = 5000;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void nodesSplitTheWorkAndEveryItemIsProcessedOnce() {
+        try (ConfigurableApplicationContext nodeA = start("node-a");
+             ConfigurableApplicationContext nodeB = start("node-b")) {
+            JdbcTemplate jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+            jdbcTemplate.update("INSERT INTO item (id, name, description, status, email, version) "
+                    + "SELECT x, 'Item ' || x, 'Description ' || x, 'NEW', 'item' || x || '@test.com', 0 "
+                    + "FROM SYSTEM_RANGE(1, ?)", ITEMS);
+            Set<Long> seenByA = ConcurrentHashMap.newKeySet();
+            Set<Long> seenByB = ConcurrentHashMap.newKeySet();
+
+            CompletableFuture<BatchResult> a = CompletableFuture.supplyAsync(() ->
+                    nodeA.getBean(PartitionedItemProcessor.class).run(result -> seenByA.add(result.itemId())));
+            CompletableFuture<BatchResult> b = CompletableFuture.supplyAsync(() ->
+                    nodeB.getBean(PartitionedItemProcessor.class).run(result -> seenByB.add(result.itemId())));
+            BatchResult resultA = a.join();
+            BatchResult resultB = b.join();
+
+            assertTrue(resultA.processed() > 0 && resultB.processed() > 0, "both nodes should have processed items");
+            assertEquals(ITEMS, resultA.processed() + resultB.processed());
+            Set<Long> both = new HashSet<>(seenByA);
+            both.retainAll(seenByB);
+            assertEquals(Set.of(), both, "items processed by both nodes");
+            assertEquals(ITEMS, seenByA.size() + seenByB.size());
+            // one committed transition per item: version 0 -> 1, read through the other node's connection pool
+            assertEquals(ITEMS, nodeB.getBean(JdbcTemplate.class).queryForObject(
+                    "SELECT count(*) FROM item WHERE status = 'PROCESSED' AND version = 1", Integer.class));
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM processing_partition WHERE owner IS NOT NULL", Integer.class));
+        }
+    }
+
+    // every item also has an outbox row, drained while the partitioned runs go through the same items
+    @Test
+    void outboxDrainsDoNotProcessItemsTheRunsProcessedAgain() throws Exception {
+        try (ConfigurableApplicationContext nodeA = start("node-a", true);
+             ConfigurableApplicationContext nodeB = start("node-b", true)) {
+            JdbcTemplate jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+            jdbcTemplate.update("INSERT INTO item (id, name, description, status, email, version) "
+                    + "SELECT x, 'Item ' || x, 'Description ' || x, 'NEW', 'item' || x || '@test.com', 0 "
+                    + "FROM SYSTEM_RANGE(1, ?)", ITEMS);
+            jdbcTemplate.update("INSERT INTO item_change (id, item_id, changed_at) "
+                    + "SELECT x, x, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, ?)", ITEMS);
+
+            CompletableFuture<BatchResult> a = CompletableFuture.supplyAsync(() ->
+                    nodeA.getBean(PartitionedItemProcessor.class).run(result -> { }));
+            CompletableFuture<BatchResult> b = CompletableFuture.supplyAsync(() ->
+                    nodeB.getBean(PartitionedItemProcessor.class).run(result -> { }));
+            CompletableFuture<BatchResult> drainB = CompletableFuture.supplyAsync(() ->
+                    nodeB.getBean(IncrementalItemProcessor.class).drain());
+            a.join();
+            b.join();
+            drainB.join();
+            // whatever the scheduled and concurrent drains left, the items behind it are all processed by now
+            nodeA.getBean(IncrementalItemProcessor.class).drain();
+
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM item_change", Integer.class));
+            // one committed transition per item, however many nodes and paths saw it
+            assertEquals(ITEMS, jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM item WHERE status = 'PROCESSED' AND version = 1", Integer.class));
+        }
+    }
+
+    private ConfigurableApplicationContext start(String nodeId) {
+        return start(nodeId, false);
+    }
+
+    private ConfigurableApplicationContext start(String nodeId, boolean incremental) {
+        return new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:file:" + directory.resolve("items") + ";AUTO_SERVER=TRUE",
+                        "--item.processing.node-id=" + nodeId,
+                        "--item.processing.partition.size=500",
+                        "--item.processing.chunk-size=100",
+                        "--item.processing.pipeline.flush-size=100",
+                        "--item.processing.incremental.enabled=" + incremental,
+                        "--item.processing.incremental.interval=PT0.1S",
+                        "--item.processing.jobs.resume-on-startup=false");
+    }
+}
@@ -0,0 +1,168 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ProcessingPartition;
+import com.siemens.internship.repository.DeadLetterItemRepository;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.repository.ProcessingPartitionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two "nodes" are two processors with their own node id in one context, for leases and take-overs;
+// MultiNodeProcessingTest runs separate application contexts on a shared file database
+// one chunk per flush, so a lease can be lost halfway through a partition; own database like IncrementalItemProcessorTest
+@SpringBootTest(properties = {"item.processing.incremental.interval=PT1H", "item.processing.chunk-size=100",
+        "item.processing.pipeline.flush-size=100", "spring.datasource.url=jdbc:h2:mem:partitioned"})
+class PartitionedItemProcessorTest {
+
+    private static final long PARTITION_SIZE = 500;
+
+    @Autowired
+    private ItemProcessingPipeline pipeline;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ProcessingPartitionRepository partitionRepository;
+
+    @Autowired
+    private DeadLetterItemRepository deadLetterRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        partitionRepository.deleteAllInBatch();
+        deadLetterRepository.deleteAllInBatch();
+        itemRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void nodesSplitThePartitionsAndProcessEveryItemOnce() {
+        seedItems(5000);
+        PartitionedItemProcessor nodeA = processor("node-a");
+        PartitionedItemProcessor nodeB = processor("node-b");
+
+        CompletableFuture<BatchResult> a = CompletableFuture.supplyAsync(() -> nodeA.run(result -> { }));
+        CompletableFuture<BatchResult> b = CompletableFuture.supplyAsync(() -> nodeB.run(result -> { }));
+        BatchResult resultA = a.join();
+        BatchResult resultB = b.join();
+
+        assertEquals(5000, resultA.processed() + resultB.processed());
+        assertTrue(resultA.processed() > 0 && resultB.processed() > 0, "both nodes should have processed items");
+        assertProcessedExactlyOnce(5000);
+        partitionRepository.findAll().forEach(partition -> {
+            assertNull(partition.getOwner());
+            assertNotNull(partition.getLastPassStartedAt());
+        });
+    }
+
+    @Test
+    void takesOverPartitionsWhoseLeaseExpired() {
+        seedItems(1000);
+        PartitionedItemProcessor node = processor("node-a");
+        // every partition was claimed by a node that died a minute ago
+        long maxId = itemRepository.findMaxId();
+        List<ProcessingPartition> abandoned = IntStream.rangeClosed(0, (int) (maxId / PARTITION_SIZE))
+                .mapToObj(i -> {
+                    ProcessingPartition partition = new ProcessingPartition(i, i * PARTITION_SIZE, (i + 1) * PARTITION_SIZE);
+                    partition.setOwner("dead-node");
+                    partition.setLeaseToken(7);
+                    partition.setLeaseUntil(Instant.now().minusSeconds(60));
+                    return partition;
+                })
+                .toList();
+        partitionRepository.saveAll(abandoned);
+
+        BatchResult result = node.run(item -> { });
+
+        assertEquals(1000, result.processed());
+        assertProcessedExactlyOnce(1000);
+        partitionRepository.findAll().forEach(partition -> {
+            assertNull(partition.getOwner());
+            assertEquals(8, partition.getLeaseToken());
+        });
+    }
+
+    @Test
+    void writesNothingMoreOnceTheLeaseWasTakenOver() {
+        seedItems(300);
+        PartitionedItemProcessor node = processor("node-a");
+        AtomicBoolean takenOver = new AtomicBoolean();
+
+        // after the first chunk another node takes the partition over, its lease already expired again
+        BatchResult result = node.run(item -> {
+            if (takenOver.compareAndSet(false, true)) {
+                jdbcTemplate.update("UPDATE processing_partition SET owner = 'node-b', lease_token = lease_token + 100, "
+                        + "lease_until = ? WHERE owner = 'node-a'", Instant.now().minusSeconds(1));
+            }
+        });
+
+        assertTrue(takenOver.get());
+        // the rest of the lost partition was written after claiming it again, never twice
+        assertProcessedExactlyOnce(300);
+        assertTrue(result.processed() < 300, "the run that lost its lease reports nothing");
+    }
+
+    @Test
+    void completesPartitionsWithoutPendingItemsWithoutAPipelineRun() {
+        seedItems(1000);
+        PartitionedItemProcessor node = processor("node-a");
+        node.run(item -> { });
+        double runs = pipelineRuns();
+        Instant since = Instant.now();
+
+        BatchResult result = node.run(since, item -> { }, () -> false, partition -> { });
+
+        assertEquals(0, result.chunks());
+        assertEquals(runs, pipelineRuns(), "pipeline runs for partitions that had nothing pending");
+        partitionRepository.findAll().forEach(partition -> {
+            assertNull(partition.getOwner());
+            assertFalse(partition.getLastPassStartedAt().isBefore(since));
+        });
+    }
+
+    private double pipelineRuns() {
+        return meterRegistry.find("item.processing.run").timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private PartitionedItemProcessor processor(String nodeId) {
+        return new PartitionedItemProcessor(partitionRepository, itemRepository, pipeline, new ProcessingNode(nodeId),
+                transactionManager, PARTITION_SIZE, Duration.ofSeconds(30), Duration.ofMillis(20));
+    }
+
+    private void seedItems(int count) {
+        itemRepository.saveAll(IntStream.range(0, count)
+                .mapToObj(i -> new Item(null, "item " + i, "description", ItemStatus.NEW, "item" + i + "@example.com"))
+                .toList());
+    }
+
+    private void assertProcessedExactlyOnce(int count) {
+        assertEquals(count, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM item WHERE status = 'PROCESSED' AND version = 1", Integer.class));
+    }
+}
@@ -0,0 +1,251 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ProcessingRun;
+import com.siemens.internship.repository.DeadLetterItemRepository;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.repository.ProcessingRunRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessingJobServiceTest {
+
+    @Mock
+    private ItemRepository itemRepositoryMock;
+
+    @Mock
+    private PartitionedItemProcessor processorMock;
+
+    @Mock
+    private DeadLetterItemRepository deadLetterRepositoryMock;
+
+    @Mock
+    private ProcessingRunRepository runRepositoryMock;
+
+    private final List<Runnable> submitted = new ArrayList<>();
+
+    private ProcessingJobRegistry registry;
+    private ProcessingJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ProcessingJobRegistry(2);
+        // tasks are collected and run by the test, like a paused executor
+        Executor executor = submitted::add;
+        jobService = jobService(executor);
+    }
+
+    private ProcessingJobService jobService(Executor executor) {
+        return new ProcessingJobService(itemRepositoryMock, processorMock, deadLetterRepositoryMock, runRepositoryMock,
+                registry, new ProcessingNode("node-a"), executor, Duration.ofSeconds(30), Duration.ofSeconds(5), true);
+    }
+
+    @Test
+    void startReturnsRunningJobWithoutWaiting() {
+        given(itemRepositoryMock.countByStatusIn(ItemStatus.pending())).willReturn(3L);
+
+        ProcessingJob job = jobService.start();
+
+        ProcessingJobStatus status = job.status();
+        assertEquals(ProcessingJob.State.RUNNING, status.state());
+        assertEquals(3, status.total());
+        assertEquals(3, status.remaining());
+        assertEquals(1, submitted.size());
+        assertSame(job, jobService.find(job.getId()).orElseThrow());
+
+        ArgumentCaptor<ProcessingRun> run = ArgumentCaptor.forClass(ProcessingRun.class);
+        verify(runRepositoryMock).save(run.capture());
+        assertEquals(job.getId(), run.getValue().getId());
+        assertEquals(ProcessingRun.State.RUNNING, run.getValue().getState());
+        assertEquals("node-a", run.getValue().getOwner());
+        assertEquals(job.getStartedAt(), run.getValue().getStartedAt());
+    }
+
+    @Test
+    void progressIsTrackedPerItem() {
+        given(itemRepositoryMock.countByStatusIn(ItemStatus.pending())).willReturn(5L);
+        given(processorMock.run(any(), any(), any(), any())).willAnswer(invocation -> {
+            Consumer<ItemResult> listener = invocation.getArgument(1);
+            listener.accept(ItemResult.processed(1L, 1));
+            listener.accept(ItemResult.processed(2L, 2));
+            listener.accept(ItemResult.notFound(3L, 1));
+            listener.accept(new ItemResult(4L, ItemResult.Outcome.DEAD_LETTERED, 3, "db down"));
+            listener.accept(new ItemResult(5L, ItemResult.Outcome.DEAD_LETTERED, 3, "db down"));
+            return new BatchResult(2, 1, 2, 2, false, Duration.ofMillis(10));
+        });
+
+        ProcessingJob job = jobService.start();
+        submitted.get(0).run();
+
+        ProcessingJobStatus status = job.status();
+        assertEquals(ProcessingJob.State.COMPLETED, status.state());
+        assertEquals(2, status.processed());
+        assertEquals(2, status.failed());
+        assertEquals(0, status.remaining());
+        assertNotNull(status.finishedAt());
+        verify(runRepositoryMock).finish(eq(job.getId()), eq("node-a"), eq(ProcessingRun.State.COMPLETED),
+                eq(2L), eq(1L), eq(2L), any(), any(), isNull());
+    }
+
+    @Test
+    void everyCompletedPartitionIsCheckpointed() {
+        given(runRepositoryMock.checkpoint(any(), any(), anyLong(), anyLong(), anyLong(), any(), any(), any(), any()))
+                .willReturn(1);
+        given(processorMock.run(any(), any(), any(), any())).willAnswer(invocation -> {
+            Consumer<ItemResult> listener = invocation.getArgument(1);
+            Consumer<PartitionedItemProcessor.Range> completed = invocation.getArgument(3);
+            listener.accept(ItemResult.processed(1L, 1));
+            completed.accept(new PartitionedItemProcessor.Range(0, 10_000));
+            return new BatchResult(1, 0, 0, 1, false, Duration.ofMillis(10));
+        });
+
+        ProcessingJob job = jobService.start();
+        submitted.get(0).run();
+
+        verify(runRepositoryMock).checkpoint(eq(job.getId()), eq("node-a"), eq(1L), eq(0L), eq(0L), eq(0L),
+                eq(10_000L), any(), any());
+    }
+
+    @Test
+    void runStoppedByShutdownStaysResumable() {
+        // the pipeline reports a cancelled run, but no client cancelled the job
+        given(processorMock.run(any(), any(), any(), any()))
+                .willReturn(new BatchResult(3, 0, 0, 1, true, Duration.ofMillis(10)));
+
+        ProcessingJob job = jobService.start();
+        submitted.get(0).run();
+
+        verify(runRepositoryMock).finish(eq(job.getId()), eq("node-a"), eq(ProcessingRun.State.RUNNING),
+                anyLong(), anyLong(), anyLong(), any(), isNull(), isNull());
+    }
+
+    @Test
+    void resumesInterruptedRunWhereItsCheckpointLeftIt() {
+        Instant startedAt = Instant.parse("2026-01-01T10:00:00Z");
+        ProcessingRun run = new ProcessingRun("run-1", 100, startedAt, "node-b", startedAt.plusSeconds(30));
+        run.setProcessed(40);
+        given(runRepositoryMock.findResumable(eq("node-a"), any())).willReturn(List.of(run));
+        given(runRepositoryMock.claim(eq("run-1"), eq("node-a"), any(), any())).willReturn(1);
+        given(processorMock.run(eq(startedAt), any(), any(), any())).willAnswer(invocation -> {
+            Consumer<ItemResult> listener = invocation.getArgument(1);
+            listener.accept(ItemResult.processed(41L, 1));
+            return new BatchResult(1, 0, 0, 1, false, Duration.ofMillis(10));
+        });
+
+        List<ProcessingJob> resumed = jobService.resumeInterrupted();
+        assertEquals(1, resumed.size());
+        ProcessingJob job = resumed.get(0);
+        assertEquals("run-1", job.getId());
+        assertNotNull(job.status().resumedAt());
+        assertEquals(40, job.status().processed());
+        // already running here, the next scan leaves it alone
+        assertTrue(jobService.resumeInterrupted().isEmpty());
+
+        submitted.get(0).run();
+
+        assertEquals(1, submitted.size());
+        assertEquals(41, job.status().processed());
+        assertEquals(59, job.status().remaining());
+    }
+
+    @Test
+    void runClaimedByAnotherNodeIsNotResumed() {
+        ProcessingRun run = new ProcessingRun("run-1", 100, Instant.now(), null, null);
+        given(runRepositoryMock.findResumable(eq("node-a"), any())).willReturn(List.of(run));
+        given(runRepositoryMock.claim(eq("run-1"), eq("node-a"), any(), any())).willReturn(0);
+
+        assertTrue(jobService.resumeInterrupted().isEmpty());
+        assertTrue(submitted.isEmpty());
+        assertTrue(jobService.find("run-1").isEmpty());
+    }
+
+    @Test
+    void lostRunLeaseStopsTheJob() {
+        given(runRepositoryMock.checkpoint(any(), any(), anyLong(), anyLong(), anyLong(), any(), any(), any(), any()))
+                .willReturn(0);
+
+        ProcessingJob job = jobService.start();
+        jobService.checkpointAndResume();
+
+        assertTrue(job.isCancelRequested());
+        verify(runRepositoryMock, never()).claim(any(), any(), any(), any());
+    }
+
+    @Test
+    void cancelStopsTheRunningJob() {
+        given(itemRepositoryMock.countByStatusIn(ItemStatus.pending())).willReturn(5L);
+        given(processorMock.run(any(), any(), any(), any())).willAnswer(invocation -> {
+            BooleanSupplier cancelled = invocation.getArgument(2);
+            assertTrue(cancelled.getAsBoolean());
+            return new BatchResult(0, 0, 0, 0, true, Duration.ZERO);
+        });
+
+        ProcessingJob job = jobService.start();
+        assertTrue(jobService.cancel(job));
+        submitted.get(0).run();
+
+        assertEquals(ProcessingJob.State.CANCELLED, job.getState());
+        assertFalse(jobService.cancel(job), "a finished job cannot be cancelled again");
+    }
+
+    @Test
+    void failingRunMarksTheJobFailed() {
+        given(processorMock.run(any(), any(), any(), any())).willThrow(new IllegalStateException("db down"));
+
+        ProcessingJob job = jobService.start();
+        submitted.get(0).run();
+
+        assertEquals(ProcessingJob.State.FAILED, job.getState());
+        assertTrue(job.status().error().contains("db down"));
+    }
+
+    @Test
+    void rejectedJobIsNotRegistered() {
+        jobService = jobService(task -> {
+            throw new RejectedExecutionException("full");
+        });
+
+        assertThrows(RejectedExecutionException.class, () -> jobService.start());
+        assertTrue(jobService.findAll().isEmpty());
+        verify(runRepositoryMock).deleteById(any());
+    }
+
+    @Test
+    void registryRefusesJobsWhenFullOfRunningJobs() {
+        ProcessingJob first = jobService.start();
+        jobService.start();
+
+        assertThrows(ProcessingJobRegistry.JobLimitExceededException.class, () -> jobService.start());
+
+        // once a job finished its slot can be reused
+        given(processorMock.run(any(), any(), any(), any())).willReturn(new BatchResult(0, 0, 0, 0, false, Duration.ZERO));
+        submitted.get(0).run();
+        ProcessingJob third = jobService.start();
+
+        assertTrue(jobService.find(first.getId()).isEmpty());
+        assertTrue(jobService.find(third.getId()).isPresent());
+    }
+}
@@ -0,0 +1,65 @@
+package com.siemens.internship.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadTaskExecutorTest {
+
+    private final LongAdder rejections = new LongAdder();
+    private final VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("Test-", 1, rejections);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void releaseTasks() {
+        release.countDown();
+    }
+
+    @Test
+    void executeWaitsForAPermitInsteadOfRejecting() throws Exception {
+        executor.execute(this::blockUntilReleased);
+        CountDownLatch secondRan = new CountDownLatch(1);
+
+        CompletableFuture<Void> submitted = CompletableFuture.runAsync(() -> executor.execute(secondRan::countDown));
+        assertFalse(secondRan.await(200, TimeUnit.MILLISECONDS), "ran while the only permit was taken");
+        assertFalse(submitted.isDone(), "submitter should wait for the permit");
+
+        release.countDown();
+        submitted.get(5, TimeUnit.SECONDS);
+        assertTrue(secondRan.await(5, TimeUnit.SECONDS));
+        assertEquals(0, rejections.sum());
+    }
+
+    @Test
+    void executeOrRejectDoesNotWait() throws Exception {
+        CountDownLatch firstRunning = new CountDownLatch(1);
+        VirtualThreadTaskExecutor.executeOrReject(executor, () -> {
+            firstRunning.countDown();
+            blockUntilReleased();
+        });
+        assertTrue(firstRunning.await(5, TimeUnit.SECONDS));
+
+        assertThrows(RejectedExecutionException.class, () -> VirtualThreadTaskExecutor.executeOrReject(executor, () -> { }));
+        assertEquals(1, rejections.sum());
+
+        release.countDown();
+        CountDownLatch nextRan = new CountDownLatch(1);
+        executor.execute(nextRan::countDown); // the permit came back
+        assertTrue(nextRan.await(5, TimeUnit.SECONDS));
+    }
+
+    private void blockUntilReleased() {
+        try {
+            release.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}